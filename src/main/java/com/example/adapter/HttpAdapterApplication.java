@@ -3,9 +3,11 @@ package com.example.adapter;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.example.adapter.repository")
+@EnableScheduling
 public class HttpAdapterApplication {
 
     public static void main(String[] args) {
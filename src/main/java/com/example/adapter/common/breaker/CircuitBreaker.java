@@ -0,0 +1,82 @@
+package com.example.adapter.common.breaker;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 熔断器 - 连续失败达到阈值后打开，打开期间直接拒绝调用；
+ * 打开时间结束后进入半开状态，只放行一个探测调用，成功则关闭，失败则重新打开
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private volatile State state = State.CLOSED;
+    private volatile int failures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * 是否允许本次调用，允许时调用结束后必须回报 {@link #onSuccess()} 或 {@link #onFailure()}
+     */
+    public boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                probing = false;
+            }
+            if (state == State.HALF_OPEN && !probing) {
+                probing = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+    }
+
+    public void onSuccess() {
+        if (state == State.CLOSED && failures == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                log.info("Circuit breaker closed, name={}", name);
+            }
+            state = State.CLOSED;
+            failures = 0;
+            probing = false;
+        }
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            log.warn("Circuit breaker opened, name={}, failures={}, openMillis={}", name, failures, openMillis);
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probing = false;
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.adapter.common.breaker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.function.Supplier;
+
+/**
+ * Redis熔断 - 限流、重试计数等对Redis的调用共用，Redis不可用时快速走本地降级，
+ * 不必每条消息都等待 spring.redis.timeout 超时
+ */
+@Slf4j
+@Component
+public class RedisCircuitBreaker {
+
+    @Value("${adapter.redis-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${adapter.redis-breaker.open-ms:5000}")
+    private long openMillis;
+
+    private CircuitBreaker breaker;
+
+    @PostConstruct
+    public void init() {
+        breaker = new CircuitBreaker("redis", failureThreshold, openMillis);
+    }
+
+    /**
+     * 执行Redis调用，熔断打开或调用失败时返回降级结果
+     */
+    public <T> T execute(Supplier<T> action, Supplier<T> fallback) {
+        if (!breaker.allowRequest()) {
+            return fallback.get();
+        }
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            breaker.onFailure();
+            log.warn("Redis call failed, using local fallback. error={}", e.getMessage());
+            return fallback.get();
+        }
+        breaker.onSuccess();
+        return result;
+    }
+
+    public boolean isAvailable() {
+        return breaker.getState() != CircuitBreaker.State.OPEN;
+    }
+}
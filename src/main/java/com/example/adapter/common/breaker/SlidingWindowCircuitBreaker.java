@@ -0,0 +1,264 @@
+package com.example.adapter.common.breaker;
+
+import com.example.adapter.common.breaker.CircuitBreaker.State;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 滑动窗口熔断器 - 按最近 windowSize 次调用的失败率、慢调用率决定是否打开
+ *
+ * <p>窗口内调用数达到 minimumCalls 后，失败率或慢调用率（百分比）达到阈值即打开，打开期间直接拒绝调用；
+ * 打开时间结束后进入半开状态，放行 halfOpenProbes 个探测调用，全部结束后按探测结果的失败率、慢调用率
+ * 决定关闭或重新打开。阈值为0时不按该项判断。</p>
+ *
+ * <p>每次状态切换递增代数，调用许可记录发放时的代数，结果只计入同一代的统计：
+ * 关闭期间发出、半开期间才结束的调用不会被当作探测结果。</p>
+ */
+@Slf4j
+public class SlidingWindowCircuitBreaker {
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallMillis;
+    private final int slowCallRateThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+
+    /**
+     * 最近调用结果的环形缓冲区，每个元素为 FAILURE | SLOW 的组合
+     */
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+
+    /**
+     * 状态代数，每次状态切换（含手动重置）递增
+     */
+    private volatile long generation;
+
+    private int probesIssued;
+    private int probesCompleted;
+    private int probeFailures;
+    private int probeSlowCalls;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public SlidingWindowCircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                                       long slowCallMillis, int slowCallRateThreshold, long openMillis,
+                                       int halfOpenProbes) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.outcomes = new byte[this.windowSize];
+    }
+
+    /**
+     * 申请本次调用的许可，调用结束后必须通过许可回报 {@link Permit#onResult(long, boolean)}
+     * 或 {@link Permit#onCancelled()}
+     *
+     * @return 调用许可，熔断打开或半开探测名额已用完时为null
+     */
+    public Permit tryAcquire() {
+        // 先读代数再读状态：状态切换时先递增代数，关闭状态下发放的许可不会带上之后半开探测的代数
+        long current = generation;
+        if (state == State.CLOSED) {
+            return new Permit(current);
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                log.info("Circuit breaker half-open, name={}, probes={}", name, halfOpenProbes);
+                transition(State.HALF_OPEN);
+                probesIssued = 0;
+                probesCompleted = 0;
+                probeFailures = 0;
+                probeSlowCalls = 0;
+            }
+            if (state == State.HALF_OPEN && probesIssued < halfOpenProbes) {
+                probesIssued++;
+                return new Permit(generation);
+            }
+            if (state == State.CLOSED) {
+                return new Permit(generation);
+            }
+        }
+        rejected.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 回报调用结果，许可发放后状态已切换的调用不计入
+     */
+    private synchronized void onResult(long permitGeneration, long durationMillis, boolean failure) {
+        if (permitGeneration != generation || state == State.OPEN) {
+            // 打开前或上一轮半开时发出的调用，结果不再计入
+            return;
+        }
+        boolean slow = slowCallMillis > 0 && durationMillis >= slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            probesCompleted++;
+            probeFailures += failure ? 1 : 0;
+            probeSlowCalls += slow ? 1 : 0;
+            if (probesCompleted >= halfOpenProbes) {
+                if (exceeded(probeFailures, probeSlowCalls, probesCompleted)) {
+                    open("half-open probes failed", probeFailures, probeSlowCalls, probesCompleted);
+                } else {
+                    log.info("Circuit breaker closed, name={}", name);
+                    clear();
+                    transition(State.CLOSED);
+                }
+            }
+            return;
+        }
+
+        if (calls == windowSize) {
+            byte evicted = outcomes[next];
+            failures -= (evicted & FAILURE) != 0 ? 1 : 0;
+            slowCalls -= (evicted & SLOW) != 0 ? 1 : 0;
+        } else {
+            calls++;
+        }
+        outcomes[next] = (byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0));
+        next = (next + 1) % windowSize;
+        failures += failure ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+
+        if (calls >= minimumCalls && exceeded(failures, slowCalls, calls)) {
+            open("threshold exceeded", failures, slowCalls, calls);
+        }
+    }
+
+    /**
+     * 放行的调用被取消，不计入统计；本轮半开的探测调用归还探测名额
+     */
+    private synchronized void onCancelled(long permitGeneration) {
+        if (permitGeneration == generation && state == State.HALF_OPEN && probesIssued > probesCompleted) {
+            probesIssued--;
+        }
+    }
+
+    /**
+     * 手动关闭并清空统计
+     */
+    public synchronized void reset() {
+        clear();
+        transition(State.CLOSED);
+        log.info("Circuit breaker reset, name={}", name);
+    }
+
+    private boolean exceeded(int failureCount, int slowCount, int total) {
+        return (failureRateThreshold > 0 && failureCount * 100 >= failureRateThreshold * total)
+                || (slowCallRateThreshold > 0 && slowCount * 100 >= slowCallRateThreshold * total);
+    }
+
+    private void open(String reason, int failureCount, int slowCount, int total) {
+        log.warn("Circuit breaker opened ({}), name={}, failures={}/{}, slowCalls={}/{}, openMillis={}",
+                reason, name, failureCount, total, slowCount, total, openMillis);
+        clear();
+        openedAt = System.currentTimeMillis();
+        transition(State.OPEN);
+    }
+
+    /**
+     * 切换状态：先递增代数再写状态，与 {@link #tryAcquire()} 的读取顺序相反
+     */
+    private void transition(State target) {
+        generation++;
+        state = target;
+    }
+
+    private void clear() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public synchronized int getBufferedCalls() {
+        return calls;
+    }
+
+    /**
+     * 当前窗口的失败率（百分比）
+     */
+    public synchronized float getFailureRate() {
+        return calls > 0 ? failures * 100f / calls : 0;
+    }
+
+    /**
+     * 当前窗口的慢调用率（百分比）
+     */
+    public synchronized float getSlowCallRate() {
+        return calls > 0 ? slowCalls * 100f / calls : 0;
+    }
+
+    /**
+     * 一次调用的许可，记录发放时的状态代数；结果或取消只回报一次
+     */
+    public final class Permit {
+
+        private final long permitGeneration;
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        private Permit(long permitGeneration) {
+            this.permitGeneration = permitGeneration;
+        }
+
+        /**
+         * 回报调用结果
+         *
+         * @param durationMillis 调用耗时
+         * @param failure        是否失败（网络异常、5xx等）
+         */
+        public void onResult(long durationMillis, boolean failure) {
+            if (reported.compareAndSet(false, true)) {
+                SlidingWindowCircuitBreaker.this.onResult(permitGeneration, durationMillis, failure);
+            }
+        }
+
+        /**
+         * 放行的调用被取消，不计入统计
+         */
+        public void onCancelled() {
+            if (reported.compareAndSet(false, true)) {
+                SlidingWindowCircuitBreaker.this.onCancelled(permitGeneration);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
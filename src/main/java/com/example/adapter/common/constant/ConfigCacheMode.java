@@ -0,0 +1,15 @@
+package com.example.adapter.common.constant;
+
+/**
+ * 配置缓存模式（adapter.config-cache.mode）
+ */
+public interface ConfigCacheMode {
+    /**
+     * 按键缓存，未命中时查询数据库，配置变更通知到达后清除对应的键
+     */
+    String CACHE = "CACHE";
+    /**
+     * 全量快照，启动时加载全部配置，后台按 update_time 增量刷新并整体替换
+     */
+    String SNAPSHOT = "SNAPSHOT";
+}
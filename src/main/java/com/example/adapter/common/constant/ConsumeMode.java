@@ -0,0 +1,23 @@
+package com.example.adapter.common.constant;
+
+/**
+ * Kafka消费模式（adapter.kafka.consume-mode）
+ */
+public interface ConsumeMode {
+    /**
+     * 逐条消费，每个监听线程同步处理一条消息
+     */
+    String SINGLE = "SINGLE";
+    /**
+     * 批量消费，一次poll的消息分发到工作线程池并发处理
+     */
+    String BATCH = "BATCH";
+    /**
+     * 按键有序消费，同一 tenantCode + apiCode 的消息串行处理，不同键之间并发处理
+     */
+    String KEY_ORDERED = "KEY_ORDERED";
+    /**
+     * 异步消费，HTTP调用异步执行，调用完成后再ack（乱序ack由容器按位点顺序提交）
+     */
+    String ASYNC = "ASYNC";
+}
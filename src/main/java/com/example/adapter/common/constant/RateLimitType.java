@@ -0,0 +1,23 @@
+package com.example.adapter.common.constant;
+
+/**
+ * 限流类型（rate_limit_config.limit_type）
+ */
+public interface RateLimitType {
+    /**
+     * 固定窗口计数，time_window 秒内最多 limit_value 次，窗口边界处可能出现2倍突发
+     */
+    String QPS = "QPS";
+    /**
+     * GCRA：按 time_window / limit_value 的间隔匀速放行，允许少量突发
+     */
+    String GCRA = "GCRA";
+    /**
+     * 滑动窗口计数：按上一窗口计数的剩余占比加权估算当前滑动窗口内的请求数
+     */
+    String SLIDING_WINDOW = "SLIDING_WINDOW";
+    /**
+     * 并发数：同时进行中的HTTP请求不超过 limit_value，time_window 不生效
+     */
+    String CONCURRENT = "CONCURRENT";
+}
@@ -0,0 +1,12 @@
+package com.example.adapter.common.exception;
+
+/**
+ * 下游限流异常 - 下游返回429，或下游主机处于背压暂停期间（Retry-After、X-RateLimit-Reset）
+ * 与本地限流不同，消息不会被丢弃：总是交给重试机制在暂停结束后处理，不计入重试次数
+ */
+public class DownstreamThrottledException extends RateLimitException {
+
+    public DownstreamThrottledException(String message, long retryAfterMillis) {
+        super(message, retryAfterMillis);
+    }
+}
@@ -26,7 +26,9 @@ public enum ErrorCode {
     HTTP_REQUEST_TIMEOUT(5002, "HTTP请求超时"),
 
     MESSAGE_PARSE_ERROR(6001, "消息解析失败"),
-    MESSAGE_PARAM_ERROR(6002, "消息参数错误");
+    MESSAGE_PARAM_ERROR(6002, "消息参数错误"),
+
+    DLQ_REPLAY_STATE_ERROR(7001, "死信重放任务当前状态不允许该操作");
 
     private final int code;
     private final String message;
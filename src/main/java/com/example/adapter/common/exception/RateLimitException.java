@@ -1,12 +1,26 @@
 package com.example.adapter.common.exception;
 
+import lombok.Getter;
+
+@Getter
 public class RateLimitException extends BusinessException {
 
+    /**
+     * 预计多久后可获得许可（毫秒），0表示未知
+     */
+    private final long retryAfterMillis;
+
     public RateLimitException() {
         super(ErrorCode.RATE_LIMIT_EXCEEDED);
+        this.retryAfterMillis = 0;
     }
 
     public RateLimitException(String message) {
+        this(message, 0);
+    }
+
+    public RateLimitException(String message, long retryAfterMillis) {
         super(ErrorCode.RATE_LIMIT_EXCEEDED, message);
+        this.retryAfterMillis = retryAfterMillis;
     }
 }
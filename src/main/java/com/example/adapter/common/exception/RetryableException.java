@@ -2,7 +2,7 @@ package com.example.adapter.common.exception;
 
 /**
  * 可重试异常 - 环境原因导致的异常，如网络超时、连接失败等
- * 抛出此异常时，Kafka消息不会被ack，将触发重试
+ * 抛出此异常时，消息投递到延迟重试主题（adapter.kafka.retry.enabled=false 时不ack，由Kafka重新投递）
  */
 public class RetryableException extends RuntimeException {
 
@@ -1,5 +1,6 @@
 package com.example.adapter.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -24,4 +25,22 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 消息处理工作线程池（批量消费模式使用），队列满时由消费线程自行执行，形成背压
+     */
+    @Bean("adapterWorkerExecutor")
+    public Executor adapterWorkerExecutor(@Value("${adapter.kafka.worker.core-pool-size:16}") int corePoolSize,
+                                          @Value("${adapter.kafka.worker.max-pool-size:64}") int maxPoolSize,
+                                          @Value("${adapter.kafka.worker.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("adapter-worker-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.adapter.config;
+
+import com.example.adapter.kafka.AsyncAdapterMessageListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+/**
+ * Kafka消费者配置 - 除自动配置的逐条消费容器外，按消费模式提供额外的监听容器
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * 批量消费容器（BATCH、KEY_ORDERED模式使用），沿用spring.kafka.listener下的全部配置（ack-mode、concurrency等）
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    /**
+     * 异步消费容器（ASYNC模式使用），允许在其他线程中乱序ack，容器在位点连续后再提交；
+     * 异步监听器同时跟踪分区分配，分区被回收后停止重新处理该分区的消息
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> asyncKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            ObjectProvider<AsyncAdapterMessageListener> asyncListener) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAsyncAcks(true);
+        asyncListener.ifAvailable(listener -> factory.getContainerProperties().setConsumerRebalanceListener(listener));
+        return factory;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.adapter.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka生产者配置 - 除默认的KafkaTemplate外，为死信队列提供单独调优的生产者
+ *
+ * <p>定义了额外的KafkaTemplate后自动配置的默认KafkaTemplate不再生效，因此在此显式声明并设为首选。</p>
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    /**
+     * 默认生产者（重试主题等使用），沿用spring.kafka.producer下的全部配置
+     */
+    @Bean
+    @Primary
+    public KafkaTemplate<?, ?> kafkaTemplate(ProducerFactory<Object, Object> producerFactory,
+                                             ObjectProvider<ProducerListener<Object, Object>> producerListener,
+                                             KafkaProperties properties) {
+        KafkaTemplate<Object, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        producerListener.ifAvailable(kafkaTemplate::setProducerListener);
+        kafkaTemplate.setDefaultTopic(properties.getTemplate().getDefaultTopic());
+        return kafkaTemplate;
+    }
+
+    /**
+     * 死信队列生产者：下游故障时大量消息同时进入死信队列，攒批、压缩提高吞吐；
+     * acks=all并开启幂等，确认写入后才提交源消息位点。
+     * 调用方异步发送，一批消息的死信写入在 linger-ms 内合并为一个请求，全部确认后再提交位点
+     */
+    @Bean
+    public KafkaTemplate<String, byte[]> deadLetterKafkaTemplate(
+            ProducerFactory<String, byte[]> producerFactory,
+            @Value("${adapter.kafka.dead-letter.producer.linger-ms:20}") int lingerMs,
+            @Value("${adapter.kafka.dead-letter.producer.batch-size:262144}") int batchSize,
+            @Value("${adapter.kafka.dead-letter.producer.compression-type:lz4}") String compressionType) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        overrides.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        overrides.put(ProducerConfig.ACKS_CONFIG, "all");
+        overrides.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        // 按覆盖配置创建独立的生产者工厂，随KafkaTemplate销毁时关闭
+        return new KafkaTemplate<>(producerFactory, overrides);
+    }
+}
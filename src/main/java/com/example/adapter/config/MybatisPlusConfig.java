@@ -29,9 +29,13 @@ public class MybatisPlusConfig {
                 this.strictInsertFill(metaObject, "updateTime", LocalDateTime::now, LocalDateTime.class);
             }
 
+            /**
+             * 总是覆盖 updateTime：先 selectById 再 updateById 时实体带着旧的更新时间，strictUpdateFill 不会填充，
+             * 且显式写入该列时MySQL的 ON UPDATE CURRENT_TIMESTAMP 也不生效，快照模式的增量刷新会漏读修改
+             */
             @Override
             public void updateFill(MetaObject metaObject) {
-                this.strictUpdateFill(metaObject, "updateTime", LocalDateTime::now, LocalDateTime.class);
+                this.setFieldValByName("updateTime", LocalDateTime.now(), metaObject);
             }
         };
     }
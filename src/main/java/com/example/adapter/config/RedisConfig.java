@@ -0,0 +1,49 @@
+package com.example.adapter.config;
+
+import com.example.adapter.service.ConfigChangeNotifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis配置 - 订阅配置变更通知
+ */
+@Slf4j
+@Configuration
+public class RedisConfig {
+
+    private static final long SUBSCRIBE_RETRY_INTERVAL_SECONDS = 10;
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ConfigChangeNotifier configChangeNotifier) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void start() {
+                // Redis不可用时不阻止应用启动，后台定时重试订阅，期间依赖缓存过期时间兜底
+                try {
+                    super.start();
+                } catch (Exception e) {
+                    log.error("Failed to subscribe config change channel, retry in {}s, error={}",
+                            SUBSCRIBE_RETRY_INTERVAL_SECONDS, e.getMessage());
+                    CompletableFuture.runAsync(() -> {
+                        // 启动失败后容器仍处于已启动状态，需要先停止再重新启动
+                        if (isActive()) {
+                            stop();
+                            start();
+                        }
+                    }, CompletableFuture.delayedExecutor(SUBSCRIBE_RETRY_INTERVAL_SECONDS, TimeUnit.SECONDS));
+                }
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(configChangeNotifier, new ChannelTopic(configChangeNotifier.getChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.adapter.controller;
+
+import com.example.adapter.common.breaker.SlidingWindowCircuitBreaker;
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.common.response.Result;
+import com.example.adapter.dto.CircuitBreakerStatus;
+import com.example.adapter.http.AdaptiveConcurrencyLimiter;
+import com.example.adapter.http.DownstreamBackpressure;
+import com.example.adapter.http.DownstreamCircuitBreakerRegistry;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Tag(name = "下游熔断与并发")
+@RestController
+@RequestMapping("/api/admin/circuit-breakers")
+@RequiredArgsConstructor
+public class CircuitBreakerController {
+
+    private final DownstreamCircuitBreakerRegistry circuitBreakerRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final DownstreamBackpressure backpressure;
+
+    @Operation(summary = "本节点的下游熔断器状态")
+    @GetMapping
+    public Result<List<CircuitBreakerStatus>> list() {
+        return Result.success(circuitBreakerRegistry.getAll().stream()
+                .map(this::toStatus)
+                .sorted(Comparator.comparing(CircuitBreakerStatus::getName))
+                .collect(Collectors.toList()));
+    }
+
+    @Operation(summary = "手动关闭本节点的下游熔断器")
+    @PostMapping("/reset")
+    public Result<Void> reset(@RequestParam String name) {
+        if (!circuitBreakerRegistry.reset(name)) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "熔断器不存在: " + name);
+        }
+        return Result.success();
+    }
+
+    @Operation(summary = "本节点各下游主机的自适应并发上限")
+    @GetMapping("/concurrency-limits")
+    public Result<Map<String, String>> concurrencyLimits() {
+        return Result.success(concurrencyLimiter.getLimits());
+    }
+
+    @Operation(summary = "本节点各下游主机的背压暂停剩余时间（毫秒）")
+    @GetMapping("/pauses")
+    public Result<Map<String, Long>> pauses() {
+        return Result.success(backpressure.getPauses());
+    }
+
+    private CircuitBreakerStatus toStatus(SlidingWindowCircuitBreaker breaker) {
+        CircuitBreakerStatus status = new CircuitBreakerStatus();
+        status.setName(breaker.getName());
+        status.setState(breaker.getState().name());
+        status.setBufferedCalls(breaker.getBufferedCalls());
+        status.setFailureRate(breaker.getFailureRate());
+        status.setSlowCallRate(breaker.getSlowCallRate());
+        status.setOpenedTime(breaker.getOpenedAt() > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(breaker.getOpenedAt()), ZoneId.systemDefault()) : null);
+        status.setRejectedCalls(breaker.getRejected());
+        return status;
+    }
+}
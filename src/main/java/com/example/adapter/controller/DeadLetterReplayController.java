@@ -0,0 +1,45 @@
+package com.example.adapter.controller;
+
+import com.example.adapter.common.response.Result;
+import com.example.adapter.dto.DeadLetterReplayRequest;
+import com.example.adapter.dto.DeadLetterReplayStatus;
+import com.example.adapter.kafka.DeadLetterReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@Tag(name = "死信重放")
+@RestController
+@RequestMapping("/api/admin/dlq/replay")
+@RequiredArgsConstructor
+public class DeadLetterReplayController {
+
+    private final DeadLetterReplayService replayService;
+
+    @Operation(summary = "启动死信重放")
+    @PostMapping
+    public Result<DeadLetterReplayStatus> start(@Valid @RequestBody DeadLetterReplayRequest request) {
+        return Result.success(replayService.start(request));
+    }
+
+    @Operation(summary = "暂停死信重放")
+    @PostMapping("/pause")
+    public Result<DeadLetterReplayStatus> pause() {
+        return Result.success(replayService.pause());
+    }
+
+    @Operation(summary = "从检查点继续死信重放")
+    @PostMapping("/resume")
+    public Result<DeadLetterReplayStatus> resume() {
+        return Result.success(replayService.resume());
+    }
+
+    @Operation(summary = "死信重放进度")
+    @GetMapping
+    public Result<DeadLetterReplayStatus> status() {
+        return Result.success(replayService.getStatus());
+    }
+}
@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.adapter.common.response.Result;
 import com.example.adapter.entity.RateLimitConfig;
 import com.example.adapter.repository.RateLimitConfigMapper;
+import com.example.adapter.service.ConfigChangeEvent;
+import com.example.adapter.service.ConfigChangeNotifier;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -19,26 +21,39 @@ import javax.validation.Valid;
 public class RateLimitConfigController {
 
     private final RateLimitConfigMapper rateLimitConfigMapper;
+    private final ConfigChangeNotifier configChangeNotifier;
 
     @Operation(summary = "创建限流配置")
     @PostMapping
     public Result<RateLimitConfig> create(@Valid @RequestBody RateLimitConfig config) {
         rateLimitConfigMapper.insert(config);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.RATE_LIMIT, config.getTenantId());
         return Result.success(config);
     }
 
     @Operation(summary = "更新限流配置")
     @PutMapping("/{id}")
     public Result<RateLimitConfig> update(@PathVariable Long id, @RequestBody RateLimitConfig config) {
+        RateLimitConfig existing = rateLimitConfigMapper.selectById(id);
         config.setId(id);
         rateLimitConfigMapper.updateById(config);
+        if (existing != null) {
+            configChangeNotifier.publish(ConfigChangeEvent.Type.RATE_LIMIT, existing.getTenantId());
+        }
+        if (config.getTenantId() != null && (existing == null || !config.getTenantId().equals(existing.getTenantId()))) {
+            configChangeNotifier.publish(ConfigChangeEvent.Type.RATE_LIMIT, config.getTenantId());
+        }
         return Result.success(config);
     }
 
     @Operation(summary = "删除限流配置")
     @DeleteMapping("/{id}")
     public Result<Void> delete(@PathVariable Long id) {
+        RateLimitConfig existing = rateLimitConfigMapper.selectById(id);
         rateLimitConfigMapper.deleteById(id);
+        if (existing != null) {
+            configChangeNotifier.publish(ConfigChangeEvent.Type.RATE_LIMIT, existing.getTenantId());
+        }
         return Result.success();
     }
 
@@ -1,6 +1,8 @@
 package com.example.adapter.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.ToString;
 
 import java.util.Map;
 
@@ -13,10 +15,20 @@ public class AdapterMessage {
 
     private String traceId;
 
+    /**
+     * 消息体，流式取值模式下不预先解析，为null时按需从 rawMessage 中提取
+     */
     private Map<String, Object> messageBody;
 
     private UserInfo userInfo;
 
+    /**
+     * 原始消息，仅流式取值模式下设置
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    private transient byte[] rawMessage;
+
     @Data
     public static class UserInfo {
         private String userId;
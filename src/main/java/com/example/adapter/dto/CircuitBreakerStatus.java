@@ -0,0 +1,47 @@
+package com.example.adapter.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 下游熔断器状态
+ */
+@Data
+public class CircuitBreakerStatus {
+
+    /**
+     * 熔断器名称（下游主机 host:port 或 tenantCode:apiCode）
+     */
+    private String name;
+
+    /**
+     * CLOSED / OPEN / HALF_OPEN
+     */
+    private String state;
+
+    /**
+     * 窗口内的调用数
+     */
+    private int bufferedCalls;
+
+    /**
+     * 窗口内的失败率（百分比）
+     */
+    private float failureRate;
+
+    /**
+     * 窗口内的慢调用率（百分比）
+     */
+    private float slowCallRate;
+
+    /**
+     * 最近一次打开的时间
+     */
+    private LocalDateTime openedTime;
+
+    /**
+     * 累计直接拒绝的调用数
+     */
+    private long rejectedCalls;
+}
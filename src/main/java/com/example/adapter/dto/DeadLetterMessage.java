@@ -34,4 +34,9 @@ public class DeadLetterMessage {
      * 失败时间
      */
     private LocalDateTime failedTime;
+
+    /**
+     * 首次失败时间
+     */
+    private LocalDateTime firstFailedTime;
 }
@@ -0,0 +1,65 @@
+package com.example.adapter.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.time.LocalDateTime;
+
+/**
+ * 死信重放请求
+ *
+ * <p>起始位置按 fromOffset、fromTime 的顺序取第一个指定的值；都未指定时从上次的检查点继续，
+ * 没有检查点时从最早的消息开始。结束位置为 toOffset、toTime 与启动时各分区末尾中最早的一个。</p>
+ */
+@Data
+public class DeadLetterReplayRequest {
+
+    /**
+     * 起始位点（各分区相同）
+     */
+    private Long fromOffset;
+
+    /**
+     * 结束位点（不含，各分区相同）
+     */
+    private Long toOffset;
+
+    /**
+     * 起始时间（消息进入死信队列的时间）
+     */
+    private LocalDateTime fromTime;
+
+    /**
+     * 结束时间（不含）
+     */
+    private LocalDateTime toTime;
+
+    /**
+     * 只重放指定租户的消息
+     */
+    private String tenantCode;
+
+    /**
+     * 只重放指定接口的消息
+     */
+    private String apiCode;
+
+    /**
+     * 只重放错误信息包含该内容的消息
+     */
+    private String errorKeyword;
+
+    /**
+     * 每秒重放的消息数，为空时使用 adapter.kafka.dead-letter.replay.rate
+     */
+    @Min(1)
+    private Integer rate;
+
+    /**
+     * 并发数，为空时使用 adapter.kafka.dead-letter.replay.concurrency
+     */
+    @Min(1)
+    @Max(64)
+    private Integer concurrency;
+}
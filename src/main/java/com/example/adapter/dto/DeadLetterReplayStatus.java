@@ -0,0 +1,52 @@
+package com.example.adapter.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 死信重放进度
+ */
+@Data
+public class DeadLetterReplayStatus {
+
+    public enum State {
+        IDLE, RUNNING, PAUSING, PAUSED, COMPLETED, FAILED
+    }
+
+    private State state;
+
+    private DeadLetterReplayRequest request;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    /**
+     * 已读取的死信消息数
+     */
+    private long scanned;
+
+    /**
+     * 不满足过滤条件而跳过的消息数
+     */
+    private long skipped;
+
+    /**
+     * 重放成功的消息数
+     */
+    private long succeeded;
+
+    /**
+     * 重放仍失败、重新写入死信队列的消息数
+     */
+    private long failed;
+
+    /**
+     * 各分区的检查点（下一条待重放消息的位点）
+     */
+    private Map<Integer, Long> checkpoints;
+
+    private String lastError;
+}
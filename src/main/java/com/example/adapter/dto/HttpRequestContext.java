@@ -1,6 +1,8 @@
 package com.example.adapter.dto;
 
 import lombok.Data;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -14,8 +16,25 @@ public class HttpRequestContext {
 
     private String contentType;
 
+    /**
+     * 预解析的URL和内容类型（来自请求计划），为空时按 url / contentType 解析
+     */
+    private HttpUrl httpUrl;
+
+    private MediaType mediaType;
+
     private int timeout;
 
+    /**
+     * HTTP客户端配置档名称，为空时使用默认客户端
+     */
+    private String clientProfile;
+
+    /**
+     * 对冲延迟（毫秒）：null-不对冲，0-按接口最近耗时的分位数，大于0-固定延迟
+     */
+    private Integer hedgeDelay;
+
     private Map<String, String> headers = new HashMap<>();
 
     private Map<String, String> queryParams = new HashMap<>();
@@ -11,6 +11,9 @@ public class HttpResponseResult {
 
     private int statusCode;
 
+    /**
+     * 响应头，名称不区分大小写，同名多值时取最后一个
+     */
     private Map<String, String> headers;
 
     private String body;
@@ -0,0 +1,32 @@
+package com.example.adapter.dto;
+
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.RateLimitConfig;
+import com.example.adapter.entity.Tenant;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 处理一条消息所需的全部配置：租户、接口配置、参数配置及接口级、租户级限流配置
+ */
+@Data
+public class ResolvedApiConfig {
+
+    private Tenant tenant;
+
+    private ExternalApiConfig apiConfig;
+
+    private List<ApiParamConfig> paramConfigs;
+
+    /**
+     * 接口级限流配置，没有配置时为null
+     */
+    private RateLimitConfig rateLimitConfig;
+
+    /**
+     * 租户级限流配置（租户下所有接口共用），没有配置时为null
+     */
+    private RateLimitConfig tenantRateLimitConfig;
+}
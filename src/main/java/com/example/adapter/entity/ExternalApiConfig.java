@@ -26,6 +26,21 @@ public class ExternalApiConfig {
 
     private Integer timeout;
 
+    /**
+     * HTTP客户端配置档（adapter.http.profiles 下的名称），为空时使用默认客户端
+     */
+    private String clientProfile;
+
+    /**
+     * 是否发送对冲请求：0-否，1-是，仅允许幂等方法开启
+     */
+    private Integer hedgeEnabled;
+
+    /**
+     * 对冲延迟（毫秒），为空时按接口最近耗时的分位数
+     */
+    private Integer hedgeDelayMs;
+
     private Integer retryCount;
 
     private String description;
@@ -0,0 +1,239 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.HttpRequestContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 下游自适应并发限制 - 按下游主机限制同时进行的HTTP调用数，并按调用结果以AIMD方式调整上限
+ *
+ * <p>调用失败（网络异常、5xx、429）或RTT明显高于最近的最小RTT时，上限乘以 backoff-ratio（每个RTT最多下调一次）；
+ * 上限使用过半且调用正常时，每次调用结束上限增加 1/上限，约每个RTT加1。
+ * 超过上限的调用排队等待，排队超过 queue-timeout-ms 或队列已满时不再等待，由调用方按可重试异常处理。</p>
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * RTT与最小RTT之差小于该值时不视为排队，避免RTT很小时的正常抖动触发下调
+     */
+    private static final long MIN_RTT_GAP_MS = 20;
+
+    @Value("${adapter.http.adaptive-concurrency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.http.adaptive-concurrency.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${adapter.http.adaptive-concurrency.min-limit:1}")
+    private int minLimit;
+
+    @Value("${adapter.http.adaptive-concurrency.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${adapter.http.adaptive-concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    /**
+     * RTT超过最小RTT的倍数时视为下游开始排队
+     */
+    @Value("${adapter.http.adaptive-concurrency.rtt-tolerance:2.0}")
+    private double rttTolerance;
+
+    /**
+     * 最小RTT的统计周期，周期结束后以本周期的最小值作为新的基准
+     */
+    @Value("${adapter.http.adaptive-concurrency.rtt-window-ms:60000}")
+    private long rttWindowMs;
+
+    @Value("${adapter.http.adaptive-concurrency.queue-timeout-ms:1000}")
+    private long queueTimeoutMs;
+
+    @Value("${adapter.http.adaptive-concurrency.max-queue:1000}")
+    private int maxQueue;
+
+    private Cache<String, HostLimit> limits;
+
+    @PostConstruct
+    public void init() {
+        limits = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * 获取调用许可，未达上限时立即完成，否则排队等待
+     *
+     * @return 许可；排队超时时以 {@link java.util.concurrent.TimeoutException} 结束，队列已满时为null
+     */
+    public CompletableFuture<Permit> acquire(HttpRequestContext context) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(Permit.NONE);
+        }
+        String host = DownstreamCircuitBreakerRegistry.hostKey(context);
+        try {
+            return limits.get(host, () -> new HostLimit(host)).acquire();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 各下游主机当前的并发上限和进行中的调用数
+     */
+    public Map<String, String> getLimits() {
+        Map<String, String> result = new LinkedHashMap<>();
+        limits.asMap().forEach((host, limit) -> result.put(host, limit.toString()));
+        return result;
+    }
+
+    /**
+     * 调用许可，调用结束后必须调用 {@link #release(boolean)} 或 {@link #cancel()}
+     */
+    public static class Permit {
+
+        static final Permit NONE = new Permit(null);
+
+        private final HostLimit owner;
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(HostLimit owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * 归还许可并按本次调用结果调整上限
+         *
+         * @param overloaded 下游是否过载（网络异常、5xx、429）
+         */
+        public void release(boolean overloaded) {
+            if (owner != null && released.compareAndSet(false, true)) {
+                owner.release(this, overloaded, true);
+            }
+        }
+
+        /**
+         * 调用被取消，只归还许可
+         */
+        public void cancel() {
+            if (owner != null && released.compareAndSet(false, true)) {
+                owner.release(this, false, false);
+            }
+        }
+    }
+
+    final class HostLimit {
+
+        private final String host;
+        private double limit = initialLimit;
+        private int inFlight;
+        private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+        private long windowStart = System.currentTimeMillis();
+        private long windowMinRtt = Long.MAX_VALUE;
+        private long baselineRtt = Long.MAX_VALUE;
+        private long lastDecreaseAt;
+
+        HostLimit(String host) {
+            this.host = host;
+        }
+
+        synchronized CompletableFuture<Permit> acquire() {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(this));
+            }
+            if (queueTimeoutMs <= 0 || waiters.size() >= maxQueue) {
+                return null;
+            }
+            CompletableFuture<Permit> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            waiter.orTimeout(queueTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((permit, e) -> {
+                if (e != null) {
+                    removeWaiter(waiter);
+                }
+            });
+            return waiter;
+        }
+
+        private synchronized void removeWaiter(CompletableFuture<Permit> waiter) {
+            waiters.remove(waiter);
+        }
+
+        void release(Permit permit, boolean overloaded, boolean sample) {
+            synchronized (this) {
+                if (sample) {
+                    update(permit, overloaded);
+                }
+            }
+            // 许可直接转交给排队的调用；在锁外完成Future，避免在锁内执行后续的HTTP调用
+            while (true) {
+                CompletableFuture<Permit> waiter;
+                synchronized (this) {
+                    waiter = inFlight <= (int) limit ? waiters.poll() : null;
+                    if (waiter == null) {
+                        inFlight--;
+                        return;
+                    }
+                }
+                if (waiter.complete(new Permit(this))) {
+                    return;
+                }
+            }
+        }
+
+        private void update(Permit permit, boolean overloaded) {
+            long now = System.currentTimeMillis();
+            long rtt = now - permit.startedAt;
+            if (now - windowStart >= rttWindowMs) {
+                if (windowMinRtt != Long.MAX_VALUE) {
+                    baselineRtt = windowMinRtt;
+                }
+                windowMinRtt = Long.MAX_VALUE;
+                windowStart = now;
+            }
+            if (!overloaded) {
+                windowMinRtt = Math.min(windowMinRtt, rtt);
+            }
+            long baseline = Math.min(baselineRtt, windowMinRtt);
+            boolean queueing = baseline != Long.MAX_VALUE
+                    && rtt > baseline * rttTolerance && rtt - baseline > MIN_RTT_GAP_MS;
+
+            if (overloaded || queueing) {
+                // 下调之前发出的调用不再重复下调，每个RTT最多下调一次
+                if (permit.startedAt >= lastDecreaseAt) {
+                    double previous = limit;
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseAt = now;
+                    log.debug("Adaptive concurrency limit decreased, host={}, limit={} -> {}, rtt={}ms, baseline={}ms, overloaded={}",
+                            host, (int) previous, (int) limit, rtt, baseline, overloaded);
+                }
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "limit=" + (int) limit + ", inFlight=" + inFlight + ", queued=" + waiters.size()
+                    + ", minRtt=" + (Math.min(baselineRtt, windowMinRtt) != Long.MAX_VALUE
+                    ? Math.min(baselineRtt, windowMinRtt) + "ms" : "-");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.HttpRequestContext;
+import com.example.adapter.dto.HttpResponseResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游背压 - 按下游主机记录暂停截止时间，暂停期间本节点发往该主机的调用（包括排队中的调用）都不发出，
+ * 所有消息一起等到暂停结束，而不是各自按固定退避重试
+ *
+ * <p>暂停时间取自下游响应：429/503 的 Retry-After（秒数或HTTP日期）；429未带 Retry-After 时为 default-pause-ms；
+ * 任意响应的 X-RateLimit-Remaining（或 RateLimit-Remaining）为0时，暂停到 X-RateLimit-Reset（剩余秒数或Unix时间戳）。
+ * 暂停时间不超过 max-pause-ms；暂停结束后各调用再随机错开 jitter-ms 以内，避免同时涌向下游。</p>
+ */
+@Slf4j
+@Component
+public class DownstreamBackpressure {
+
+    /**
+     * X-RateLimit-Reset 大于该值时按Unix时间戳（秒）解析，否则按剩余秒数
+     */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    @Value("${adapter.http.backpressure.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.http.backpressure.default-pause-ms:1000}")
+    private long defaultPauseMs;
+
+    @Value("${adapter.http.backpressure.max-pause-ms:300000}")
+    private long maxPauseMs;
+
+    @Value("${adapter.http.backpressure.jitter-ms:200}")
+    private long jitterMs;
+
+    /**
+     * 下游主机 -> 暂停截止时间
+     */
+    private Cache<String, Long> pauses;
+
+    @PostConstruct
+    public void init() {
+        pauses = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(Math.max(1, maxPauseMs), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 按响应头更新下游主机的暂停时间
+     */
+    public void onResponse(HttpRequestContext context, HttpResponseResult result) {
+        if (!enabled || result == null || !result.isSuccess()) {
+            return;
+        }
+        long pauseMillis = pauseMillis(result);
+        if (pauseMillis <= 0) {
+            return;
+        }
+        pauseMillis = Math.min(pauseMillis, maxPauseMs);
+        String host = DownstreamCircuitBreakerRegistry.hostKey(context);
+        long until = System.currentTimeMillis() + pauseMillis;
+        Long previous = pauses.getIfPresent(host);
+        pauses.asMap().merge(host, until, Math::max);
+        if (previous == null || previous < until) {
+            log.warn("Downstream backpressure, pausing calls. host={}, statusCode={}, pause={}ms, traceId={}",
+                    host, result.getStatusCode(), pauseMillis, context.getTraceId());
+        }
+    }
+
+    /**
+     * 下游主机的剩余暂停时间（毫秒），未暂停时为0
+     */
+    public long remainingPause(HttpRequestContext context) {
+        if (!enabled) {
+            return 0;
+        }
+        Long until = pauses.getIfPresent(DownstreamCircuitBreakerRegistry.hostKey(context));
+        return until != null ? Math.max(0, until - System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * 重试前需等待的时间：剩余暂停时间加随机错开，未暂停时为0
+     */
+    public long retryDelay(HttpRequestContext context) {
+        long remaining = remainingPause(context);
+        if (remaining <= 0) {
+            return 0;
+        }
+        return remaining + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0);
+    }
+
+    /**
+     * 各下游主机的剩余暂停时间（毫秒）
+     */
+    public Map<String, Long> getPauses() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> result = new TreeMap<>();
+        pauses.asMap().forEach((host, until) -> {
+            if (until > now) {
+                result.put(host, until - now);
+            }
+        });
+        return result;
+    }
+
+    private long pauseMillis(HttpResponseResult result) {
+        int statusCode = result.getStatusCode();
+        if (statusCode == 429 || statusCode == 503) {
+            long retryAfter = parseRetryAfter(header(result, "Retry-After"));
+            if (retryAfter > 0) {
+                return retryAfter;
+            }
+        }
+        String remaining = header(result, "X-RateLimit-Remaining", "RateLimit-Remaining");
+        if (remaining != null && parseLong(remaining) == 0) {
+            long reset = parseReset(header(result, "X-RateLimit-Reset", "RateLimit-Reset"));
+            if (reset > 0) {
+                return reset;
+            }
+        }
+        return statusCode == 429 ? defaultPauseMs : 0;
+    }
+
+    /**
+     * Retry-After：秒数或HTTP日期
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long seconds = parseLong(value);
+        if (seconds >= 0) {
+            return seconds * 1000;
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return date.toInstant().toEpochMilli() - System.currentTimeMillis();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * X-RateLimit-Reset：剩余秒数或Unix时间戳（秒）
+     */
+    static long parseReset(String value) {
+        long seconds = parseLong(value);
+        if (seconds <= 0) {
+            return 0;
+        }
+        if (seconds > EPOCH_SECONDS_THRESHOLD) {
+            return seconds * 1000 - System.currentTimeMillis();
+        }
+        return seconds * 1000;
+    }
+
+    /**
+     * @return 解析失败时返回-1
+     */
+    private static long parseLong(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String header(HttpResponseResult result, String... names) {
+        Map<String, String> headers = result.getHeaders();
+        if (headers == null) {
+            return null;
+        }
+        for (String name : names) {
+            String value = headers.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.adapter.http;
+
+import com.example.adapter.common.breaker.SlidingWindowCircuitBreaker;
+import com.example.adapter.dto.HttpRequestContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import okhttp3.HttpUrl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游熔断器 - 按下游主机（adapter.http.circuit-breaker.key-type=HOST）或接口（API，tenantCode:apiCode）
+ * 各维护一个 {@link SlidingWindowCircuitBreaker}，长时间未调用的熔断器自动清除
+ */
+@Component
+public class DownstreamCircuitBreakerRegistry {
+
+    public enum KeyType {
+        HOST, API
+    }
+
+    @Value("${adapter.http.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.http.circuit-breaker.key-type:HOST}")
+    private KeyType keyType;
+
+    @Value("${adapter.http.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${adapter.http.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${adapter.http.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${adapter.http.circuit-breaker.slow-call-duration-ms:5000}")
+    private long slowCallMillis;
+
+    @Value("${adapter.http.circuit-breaker.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${adapter.http.circuit-breaker.open-ms:30000}")
+    private long openMillis;
+
+    @Value("${adapter.http.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    private Cache<String, SlidingWindowCircuitBreaker> breakers;
+
+    @PostConstruct
+    public void init() {
+        breakers = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * 获取请求对应的熔断器，关闭熔断时返回null
+     */
+    public SlidingWindowCircuitBreaker get(HttpRequestContext context) {
+        if (!enabled) {
+            return null;
+        }
+        String name = keyType == KeyType.API ? context.getTenantCode() + ":" + context.getApiCode() : hostKey(context);
+        try {
+            return breakers.get(name, () -> new SlidingWindowCircuitBreaker(name, windowSize, minimumCalls,
+                    failureRateThreshold, slowCallMillis, slowCallRateThreshold, openMillis, halfOpenProbes));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public List<SlidingWindowCircuitBreaker> getAll() {
+        return new ArrayList<>(breakers.asMap().values());
+    }
+
+    /**
+     * 手动关闭指定熔断器
+     *
+     * @return 熔断器是否存在
+     */
+    public boolean reset(String name) {
+        SlidingWindowCircuitBreaker breaker = breakers.getIfPresent(name);
+        if (breaker == null) {
+            return false;
+        }
+        breaker.reset();
+        return true;
+    }
+
+    /**
+     * 下游主机键 host:port
+     */
+    static String hostKey(HttpRequestContext context) {
+        HttpUrl url = context.getHttpUrl() != null ? context.getHttpUrl() : HttpUrl.parse(context.getUrl());
+        return url != null ? url.host() + ":" + url.port() : String.valueOf(context.getUrl());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.HttpRequestContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲请求策略 - 开启对冲（hedge_enabled）且请求方法为幂等方法的接口，首个请求超过对冲延迟仍未返回时
+ * 再发送一个相同的请求，先返回的结果生效
+ *
+ * <p>对冲延迟为接口配置的 hedge_delay_ms，未配置时取该接口最近调用耗时的 percentile 分位数（样本不足时不对冲）。
+ * 对冲预算按接口计算：每个请求积累 budget-percent% 个令牌，每次对冲消耗一个，额外请求量不超过流量的 budget-percent%。</p>
+ */
+@Component
+public class HedgingPolicy {
+
+    /**
+     * 每个接口保留的最近耗时样本数
+     */
+    private static final int SAMPLE_SIZE = 200;
+
+    /**
+     * 计算分位数需要的最少样本数
+     */
+    private static final int MIN_SAMPLES = 20;
+
+    /**
+     * 预算最多累积的令牌数，避免长时间无对冲后集中对冲
+     */
+    private static final double MAX_BUDGET_TOKENS = 10;
+
+    @Value("${adapter.http.hedge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.http.hedge.idempotent-methods:GET,HEAD}")
+    private List<String> idempotentMethods;
+
+    @Value("${adapter.http.hedge.percentile:95}")
+    private int percentile;
+
+    @Value("${adapter.http.hedge.budget-percent:10}")
+    private double budgetPercent;
+
+    private Set<String> idempotentMethodSet;
+
+    private Cache<String, ApiStats> stats;
+
+    @PostConstruct
+    public void init() {
+        idempotentMethodSet = new HashSet<>();
+        for (String method : idempotentMethods) {
+            idempotentMethodSet.add(method.trim().toUpperCase(Locale.ROOT));
+        }
+        stats = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    /**
+     * 请求方法是否允许对冲
+     */
+    public boolean isIdempotent(String method) {
+        return method != null && idempotentMethodSet.contains(method.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * 接口是否开启对冲且请求方法为幂等方法
+     */
+    public boolean isEligible(HttpRequestContext context) {
+        return enabled && context.getHedgeDelay() != null && isIdempotent(context.getMethod());
+    }
+
+    /**
+     * 登记一次请求（积累对冲预算），返回本次请求的对冲延迟
+     *
+     * @return 对冲延迟（毫秒），耗时样本不足时返回-1，不对冲
+     */
+    public long onRequest(HttpRequestContext context) {
+        ApiStats apiStats = statsFor(context);
+        apiStats.accrue(budgetPercent / 100);
+        if (context.getHedgeDelay() > 0) {
+            return context.getHedgeDelay();
+        }
+        return apiStats.percentile(percentile);
+    }
+
+    /**
+     * 采集生效结果的耗时样本
+     */
+    public void record(HttpRequestContext context, long costMillis) {
+        statsFor(context).record(costMillis);
+    }
+
+    /**
+     * 从预算中扣减一次对冲
+     */
+    public boolean tryAcquireBudget(HttpRequestContext context) {
+        return statsFor(context).tryAcquire();
+    }
+
+    private ApiStats statsFor(HttpRequestContext context) {
+        try {
+            return stats.get(context.getTenantCode() + ":" + context.getApiCode(), ApiStats::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class ApiStats {
+
+        private final long[] samples = new long[SAMPLE_SIZE];
+        private int next;
+        private int count;
+        private double budget;
+
+        /**
+         * 缓存的分位数，每积累 MIN_SAMPLES 个新样本重新计算
+         */
+        private long cachedPercentile = -1;
+        private int sinceComputed;
+
+        synchronized void record(long costMillis) {
+            samples[next] = costMillis;
+            next = (next + 1) % SAMPLE_SIZE;
+            count = Math.min(count + 1, SAMPLE_SIZE);
+            sinceComputed++;
+        }
+
+        synchronized void accrue(double tokens) {
+            budget = Math.min(MAX_BUDGET_TOKENS, budget + tokens);
+        }
+
+        synchronized boolean tryAcquire() {
+            if (budget < 1) {
+                return false;
+            }
+            budget -= 1;
+            return true;
+        }
+
+        synchronized long percentile(int percentile) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedPercentile < 0 || sinceComputed >= MIN_SAMPLES) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+                cachedPercentile = sorted[Math.max(0, Math.min(index, count - 1))];
+                sinceComputed = 0;
+            }
+            return cachedPercentile;
+        }
+    }
+}
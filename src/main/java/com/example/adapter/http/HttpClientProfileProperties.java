@@ -0,0 +1,81 @@
+package com.example.adapter.http;
+
+import lombok.Data;
+import okhttp3.Protocol;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP客户端配置档（adapter.http.profiles.{name}），接口配置通过 client_profile 引用
+ *
+ * <p>未设置的项沿用 adapter.http 下的默认值。</p>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "adapter.http")
+public class HttpClientProfileProperties {
+
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+
+        private Integer connectTimeout;
+
+        private Integer readTimeout;
+
+        private Integer writeTimeout;
+
+        /**
+         * 连接池大小（最大空闲连接数）
+         */
+        private Integer maxIdleConnections;
+
+        private Integer keepAliveDuration;
+
+        private Integer maxRequests;
+
+        private Integer maxRequestsPerHost;
+
+        /**
+         * 协议，如 HTTP_2, HTTP_1_1；为空时由OkHttp协商
+         */
+        private List<Protocol> protocols;
+
+        private Tls tls;
+    }
+
+    @Data
+    public static class Tls {
+
+        /**
+         * 允许的TLS版本，如 TLSv1.2, TLSv1.3
+         */
+        private List<String> versions;
+
+        /**
+         * 允许的加密套件，为空时使用OkHttp默认值
+         */
+        private List<String> cipherSuites;
+
+        /**
+         * 信任库（下游使用私有CA时），支持 classpath: 和 file: 前缀
+         */
+        private String trustStore;
+
+        private String trustStorePassword;
+
+        /**
+         * 客户端证书（双向TLS）
+         */
+        private String keyStore;
+
+        private String keyStorePassword;
+
+        private String storeType = "PKCS12";
+    }
+}
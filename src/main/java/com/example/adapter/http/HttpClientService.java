@@ -1,21 +1,76 @@
 package com.example.adapter.http;
 
+import com.example.adapter.common.breaker.SlidingWindowCircuitBreaker;
+import com.example.adapter.common.exception.DownstreamThrottledException;
+import com.example.adapter.common.exception.RetryableException;
 import com.example.adapter.dto.HttpRequestContext;
 import com.example.adapter.dto.HttpResponseResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSink;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
 
 import javax.annotation.PostConstruct;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * HTTP调用服务
+ *
+ * <p>每个客户端配置档（{@link HttpClientProfileProperties}）启动时创建一个独立连接池和Dispatcher的客户端，
+ * 接口通过 client_profile 引用，未引用时使用默认客户端。接口超时时间与配置档不同时派生的客户端
+ * 按 配置档 + 超时时间 缓存，与配置档共用连接池和Dispatcher。</p>
+ *
+ * <p>调用经过下游熔断器（{@link DownstreamCircuitBreakerRegistry}），熔断打开时不发起网络请求，
+ * 直接抛出 {@link RetryableException} 交给重试/死信处理；再经过按下游主机的自适应并发限制
+ * （{@link AdaptiveConcurrencyLimiter}），超过上限的调用排队，排队超时同样按可重试异常处理。</p>
+ *
+ * <p>下游通过 Retry-After、X-RateLimit-* 要求暂停时（{@link DownstreamBackpressure}），发往该主机的调用
+ * 在暂停结束前不发出（已在并发限制中排队的调用同样如此），抛出 {@link DownstreamThrottledException}。</p>
+ *
+ * <p>开启对冲的幂等接口按 {@link HedgingPolicy} 发送对冲请求，每个请求各自经过熔断器和并发限制，
+ * 先返回的成功结果生效，另一个请求随即取消。</p>
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class HttpClientService {
 
+    private static final byte[] EMPTY_JSON_BODY = {'{', '}'};
+
+    private final ObjectMapper objectMapper;
+    private final HttpClientProfileProperties profileProperties;
+    private final DownstreamCircuitBreakerRegistry circuitBreakers;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final HedgingPolicy hedgingPolicy;
+    private final DownstreamBackpressure backpressure;
+
     @Value("${adapter.http.connect-timeout:5000}")
     private int connectTimeout;
 
@@ -31,58 +86,542 @@ public class HttpClientService {
     @Value("${adapter.http.keep-alive-duration:300}")
     private int keepAliveDuration;
 
+    @Value("${adapter.http.max-requests:1000}")
+    private int maxRequests;
+
+    @Value("${adapter.http.max-requests-per-host:200}")
+    private int maxRequestsPerHost;
+
     private OkHttpClient httpClient;
 
+    /**
+     * 配置档名称 -> 客户端，启动后不再变化
+     */
+    private Map<String, OkHttpClient> profileClients;
+
+    /**
+     * 超时时间 -> 由默认客户端派生的客户端
+     */
+    private final Map<Integer, OkHttpClient> timeoutClients = new ConcurrentHashMap<>();
+
+    private final Set<String> unknownProfiles = ConcurrentHashMap.newKeySet();
+
+    private ObjectWriter bodyWriter;
+
     @PostConstruct
     public void init() {
+        bodyWriter = objectMapper.writer();
+
+        httpClient = buildClient(new HttpClientProfileProperties.Profile());
+
+        Map<String, OkHttpClient> clients = new HashMap<>();
+        for (Map.Entry<String, HttpClientProfileProperties.Profile> entry : profileProperties.getProfiles().entrySet()) {
+            try {
+                clients.put(entry.getKey(), buildClient(entry.getValue()));
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Invalid HTTP client profile: " + entry.getKey(), e);
+            }
+        }
+        profileClients = clients;
+        log.info("HTTP client profiles initialized: {}", profileClients.keySet());
+    }
+
+    /**
+     * 是否存在指定名称的客户端配置档
+     */
+    public boolean hasProfile(String name) {
+        return profileClients.containsKey(name);
+    }
+
+    private OkHttpClient buildClient(HttpClientProfileProperties.Profile profile) {
         ConnectionPool connectionPool = new ConnectionPool(
-                maxIdleConnections,
-                keepAliveDuration,
+                valueOrDefault(profile.getMaxIdleConnections(), maxIdleConnections),
+                valueOrDefault(profile.getKeepAliveDuration(), keepAliveDuration),
                 TimeUnit.SECONDS
         );
 
-        httpClient = new OkHttpClient.Builder()
-                .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
-                .readTimeout(readTimeout, TimeUnit.MILLISECONDS)
-                .writeTimeout(writeTimeout, TimeUnit.MILLISECONDS)
+        // 异步调用的并发上限，同步调用不受Dispatcher限制
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(valueOrDefault(profile.getMaxRequests(), maxRequests));
+        dispatcher.setMaxRequestsPerHost(valueOrDefault(profile.getMaxRequestsPerHost(), maxRequestsPerHost));
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(valueOrDefault(profile.getConnectTimeout(), connectTimeout), TimeUnit.MILLISECONDS)
+                .readTimeout(valueOrDefault(profile.getReadTimeout(), readTimeout), TimeUnit.MILLISECONDS)
+                .writeTimeout(valueOrDefault(profile.getWriteTimeout(), writeTimeout), TimeUnit.MILLISECONDS)
                 .connectionPool(connectionPool)
-                .build();
+                .dispatcher(dispatcher);
+        if (profile.getProtocols() != null && !profile.getProtocols().isEmpty()) {
+            builder.protocols(profile.getProtocols());
+        }
+        if (profile.getTls() != null) {
+            applyTls(builder, profile.getTls());
+        }
+        return builder.build();
     }
 
-    public HttpResponseResult execute(HttpRequestContext context) {
-        long startTime = System.currentTimeMillis();
+    private void applyTls(OkHttpClient.Builder builder, HttpClientProfileProperties.Tls tls) {
+        if (tls.getVersions() != null || tls.getCipherSuites() != null) {
+            ConnectionSpec.Builder spec = new ConnectionSpec.Builder(ConnectionSpec.MODERN_TLS);
+            if (tls.getVersions() != null) {
+                spec.tlsVersions(tls.getVersions().toArray(new String[0]));
+            }
+            if (tls.getCipherSuites() != null) {
+                spec.cipherSuites(tls.getCipherSuites().toArray(new String[0]));
+            }
+            builder.connectionSpecs(Arrays.asList(spec.build(), ConnectionSpec.CLEARTEXT));
+        }
+        if (tls.getTrustStore() == null && tls.getKeyStore() == null) {
+            return;
+        }
 
         try {
-            OkHttpClient client = httpClient;
-            if (context.getTimeout() > 0 && context.getTimeout() != readTimeout) {
-                client = httpClient.newBuilder()
-                        .readTimeout(context.getTimeout(), TimeUnit.MILLISECONDS)
-                        .build();
+            // 未指定信任库时使用系统默认信任库
+            TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(
+                    TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory.init(tls.getTrustStore() != null
+                    ? loadKeyStore(tls.getTrustStore(), tls.getTrustStorePassword(), tls.getStoreType()) : null);
+            X509TrustManager trustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
+
+            KeyManager[] keyManagers = null;
+            if (tls.getKeyStore() != null) {
+                KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(
+                        KeyManagerFactory.getDefaultAlgorithm());
+                keyManagerFactory.init(loadKeyStore(tls.getKeyStore(), tls.getKeyStorePassword(), tls.getStoreType()),
+                        password(tls.getKeyStorePassword()));
+                keyManagers = keyManagerFactory.getKeyManagers();
             }
 
-            Request request = buildRequest(context);
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagers, new TrustManager[]{trustManager}, null);
+            builder.sslSocketFactory(sslContext.getSocketFactory(), trustManager);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Failed to initialize TLS: " + e.getMessage(), e);
+        }
+    }
+
+    private KeyStore loadKeyStore(String location, String password, String type)
+            throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        try (InputStream in = ResourceUtils.getURL(location).openStream()) {
+            keyStore.load(in, password(password));
+        }
+        return keyStore;
+    }
+
+    private char[] password(String password) {
+        return password != null ? password.toCharArray() : null;
+    }
+
+    private int valueOrDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * 发送HTTP请求
+     *
+     * @throws RetryableException 下游熔断已打开，或并发已达自适应上限且排队超时
+     * @throws DownstreamThrottledException 下游主机处于背压暂停期间
+     */
+    public HttpResponseResult execute(HttpRequestContext context) {
+        if (hedgingPolicy.isEligible(context)) {
+            return awaitHedged(context);
+        }
+        OkHttpClient client = clientFor(context);
+        Request request = buildRequest(context);
+        checkPause(context);
+        SlidingWindowCircuitBreaker.Permit breakerPermit = acquireBreaker(context);
+        AdaptiveConcurrencyLimiter.Permit permit = awaitPermit(context, breakerPermit);
+        DownstreamThrottledException paused = pausedWhileQueued(context, breakerPermit, permit);
+        if (paused != null) {
+            throw paused;
+        }
+
+        long startTime = System.currentTimeMillis();
+        HttpResponseResult result = null;
+        try {
             log.info("Sending HTTP request, traceId={}, url={}, method={}",
                     context.getTraceId(), context.getUrl(), context.getMethod());
 
             try (Response response = client.newCall(request).execute()) {
-                long costTime = System.currentTimeMillis() - startTime;
-                String responseBody = response.body() != null ? response.body().string() : null;
+                result = toResult(context, response, startTime);
+            } catch (IOException e) {
+                result = toFailResult(context, e, startTime);
+            }
+            return result;
+        } finally {
+            recordResult(context, breakerPermit, permit, result, startTime);
+        }
+    }
+
+    /**
+     * 异步发送HTTP请求，基于OkHttp Dispatcher，不占用调用线程等待响应
+     *
+     * <p>取消返回的Future会同时取消底层的HTTP调用。下游熔断已打开，或并发已达自适应上限且排队超时时，
+     * 返回以 {@link RetryableException} 结束的Future；下游主机处于背压暂停期间时，返回以
+     * {@link DownstreamThrottledException} 结束的Future；排队期间不占用线程</p>
+     */
+    public CompletableFuture<HttpResponseResult> executeAsync(HttpRequestContext context) {
+        if (hedgingPolicy.isEligible(context)) {
+            return new HedgedCall(context).start();
+        }
+        return send(context);
+    }
+
+    /**
+     * 同步等待对冲调用的结果
+     */
+    private HttpResponseResult awaitHedged(HttpRequestContext context) {
+        CompletableFuture<HttpResponseResult> future = new HedgedCall(context).start();
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return HttpResponseResult.fail("Interrupted while waiting for hedged request", 0);
+        }
+    }
+
+    private CompletableFuture<HttpResponseResult> send(HttpRequestContext context) {
+        CompletableFuture<HttpResponseResult> future = new CompletableFuture<>();
+
+        Call call;
+        SlidingWindowCircuitBreaker.Permit breakerPermit;
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending;
+        try {
+            Request request = buildRequest(context);
+            call = clientFor(context).newCall(request);
+            checkPause(context);
+            breakerPermit = acquireBreaker(context);
+            pending = concurrencyLimiter.acquire(context);
+            if (pending == null) {
+                throw concurrencyExceeded(context, breakerPermit);
+            }
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        pending.whenComplete((permit, error) -> {
+            if (future.isDone()) {
+                // 调用已被取消（如对冲中落败的请求）：排队中的许可随之取消，不是并发超限，只归还熔断许可
+                if (permit != null) {
+                    permit.cancel();
+                }
+                if (breakerPermit != null) {
+                    breakerPermit.onCancelled();
+                }
+            } else if (error != null) {
+                future.completeExceptionally(concurrencyExceeded(context, breakerPermit));
+            } else {
+                DownstreamThrottledException paused = pausedWhileQueued(context, breakerPermit, permit);
+                if (paused != null) {
+                    future.completeExceptionally(paused);
+                } else {
+                    enqueue(context, call, breakerPermit, permit, future);
+                }
+            }
+        });
+
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                pending.cancel(false);
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private void enqueue(HttpRequestContext context, Call call, SlidingWindowCircuitBreaker.Permit breakerPermit,
+                         AdaptiveConcurrencyLimiter.Permit permit, CompletableFuture<HttpResponseResult> future) {
+        long startTime = System.currentTimeMillis();
+        log.info("Sending async HTTP request, traceId={}, url={}, method={}",
+                context.getTraceId(), context.getUrl(), context.getMethod());
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (call.isCanceled()) {
+                    if (breakerPermit != null) {
+                        breakerPermit.onCancelled();
+                    }
+                    permit.cancel();
+                    // 调用方已取消（如对冲请求的另一方已返回），不记录错误日志
+                    future.complete(HttpResponseResult.fail(e.getMessage(), System.currentTimeMillis() - startTime));
+                    return;
+                }
+                complete(toFailResult(context, e, startTime));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    complete(toResult(context, r, startTime));
+                } catch (IOException e) {
+                    complete(toFailResult(context, e, startTime));
+                }
+            }
+
+            private void complete(HttpResponseResult result) {
+                recordResult(context, breakerPermit, permit, result, startTime);
+                future.complete(result);
+            }
+        });
+    }
+
+    /**
+     * 一次对冲调用：首个请求超过对冲延迟未返回且预算充足时再发送一个相同的请求，
+     * 先返回的成功结果（非5xx）生效；两个请求都失败时以首个请求的失败结果结束
+     */
+    private final class HedgedCall {
+
+        private final HttpRequestContext context;
+        private final CompletableFuture<HttpResponseResult> result = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponseResult>> attempts = new ArrayList<>(2);
+        private int outstanding;
+        private HttpResponseResult failedResult;
+        private Throwable failedError;
+
+        HedgedCall(HttpRequestContext context) {
+            this.context = context;
+        }
+
+        CompletableFuture<HttpResponseResult> start() {
+            long hedgeDelay = hedgingPolicy.onRequest(context);
+            launch(false);
+            if (hedgeDelay > 0 && !result.isDone()) {
+                CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.MILLISECONDS).execute(() -> hedge(hedgeDelay));
+            }
+            // 结果确定或调用方取消时，取消仍在进行的请求
+            result.whenComplete((r, e) -> cancelAttempts());
+            return result;
+        }
+
+        private void hedge(long hedgeDelay) {
+            if (result.isDone() || !hedgingPolicy.tryAcquireBudget(context)) {
+                return;
+            }
+            log.info("Sending hedged request, traceId={}, apiCode={}, hedgeDelay={}ms",
+                    context.getTraceId(), context.getApiCode(), hedgeDelay);
+            launch(true);
+        }
+
+        private void launch(boolean hedged) {
+            CompletableFuture<HttpResponseResult> attempt = send(context);
+            synchronized (this) {
+                attempts.add(attempt);
+                outstanding++;
+            }
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((r, e) -> onAttemptComplete(r, e, hedged));
+        }
+
+        private void onAttemptComplete(HttpResponseResult r, Throwable e, boolean hedged) {
+            if (e == null && r.isSuccess() && r.getStatusCode() < 500) {
+                if (result.complete(r)) {
+                    hedgingPolicy.record(context, r.getCostTime());
+                    if (hedged) {
+                        log.info("Hedged request won, traceId={}, apiCode={}, costTime={}ms",
+                                context.getTraceId(), context.getApiCode(), r.getCostTime());
+                    }
+                }
+                return;
+            }
+            synchronized (this) {
+                outstanding--;
+                // 优先以首个请求的失败结束，对冲请求被熔断或并发限制拒绝时不影响首个请求
+                boolean first = failedResult == null && failedError == null;
+                if ((first || !hedged) && !(e instanceof CancellationException)) {
+                    failedResult = r;
+                    failedError = e;
+                }
+                if (outstanding > 0) {
+                    return;
+                }
+            }
+            if (failedResult != null) {
+                result.complete(failedResult);
+            } else if (failedError != null) {
+                result.completeExceptionally(failedError);
+            } else {
+                result.cancel(false);
+            }
+        }
+
+        private void cancelAttempts() {
+            List<CompletableFuture<HttpResponseResult>> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(attempts);
+            }
+            snapshot.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    /**
+     * 获取下游熔断器的调用许可
+     *
+     * @return 熔断器的调用许可，关闭熔断时为null
+     * @throws RetryableException 熔断已打开
+     */
+    private SlidingWindowCircuitBreaker.Permit acquireBreaker(HttpRequestContext context) {
+        SlidingWindowCircuitBreaker breaker = circuitBreakers.get(context);
+        if (breaker == null) {
+            return null;
+        }
+        SlidingWindowCircuitBreaker.Permit breakerPermit = breaker.tryAcquire();
+        if (breakerPermit == null) {
+            log.warn("Circuit breaker open, request rejected without calling downstream. traceId={}, breaker={}",
+                    context.getTraceId(), breaker.getName());
+            throw new RetryableException("Circuit breaker open: " + breaker.getName());
+        }
+        return breakerPermit;
+    }
+
+    /**
+     * 同步等待自适应并发许可
+     *
+     * @throws RetryableException 队列已满或排队超时
+     */
+    private AdaptiveConcurrencyLimiter.Permit awaitPermit(HttpRequestContext context,
+                                                          SlidingWindowCircuitBreaker.Permit breakerPermit) {
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending = concurrencyLimiter.acquire(context);
+        if (pending == null) {
+            throw concurrencyExceeded(context, breakerPermit);
+        }
+        try {
+            return pending.get();
+        } catch (ExecutionException e) {
+            throw concurrencyExceeded(context, breakerPermit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 等待期间已拿到的许可直接归还
+            if (!pending.cancel(false)) {
+                pending.join().cancel();
+            }
+            if (breakerPermit != null) {
+                breakerPermit.onCancelled();
+            }
+            throw new RetryableException("Interrupted while waiting for concurrency permit");
+        }
+    }
 
-                log.info("HTTP response received, traceId={}, statusCode={}, costTime={}ms",
-                        context.getTraceId(), response.code(), costTime);
+    /**
+     * @throws DownstreamThrottledException 下游主机处于背压暂停期间
+     */
+    private void checkPause(HttpRequestContext context) {
+        long retryDelay = backpressure.retryDelay(context);
+        if (retryDelay > 0) {
+            throw new DownstreamThrottledException(
+                    "Downstream paused by backpressure: " + DownstreamCircuitBreakerRegistry.hostKey(context), retryDelay);
+        }
+    }
 
-                return HttpResponseResult.success(response.code(), responseBody, costTime);
+    /**
+     * 排队期间下游主机进入背压暂停时，归还许可，不发出调用
+     *
+     * @return 需要抛出的异常，未暂停时为null
+     */
+    private DownstreamThrottledException pausedWhileQueued(HttpRequestContext context,
+                                                           SlidingWindowCircuitBreaker.Permit breakerPermit,
+                                                           AdaptiveConcurrencyLimiter.Permit permit) {
+        try {
+            checkPause(context);
+            return null;
+        } catch (DownstreamThrottledException e) {
+            permit.cancel();
+            if (breakerPermit != null) {
+                breakerPermit.onCancelled();
             }
+            return e;
+        }
+    }
+
+    private RetryableException concurrencyExceeded(HttpRequestContext context,
+                                                   SlidingWindowCircuitBreaker.Permit breakerPermit) {
+        if (breakerPermit != null) {
+            breakerPermit.onCancelled();
+        }
+        String host = DownstreamCircuitBreakerRegistry.hostKey(context);
+        log.warn("Adaptive concurrency limit exceeded, request shed. traceId={}, host={}", context.getTraceId(), host);
+        return new RetryableException("Adaptive concurrency limit exceeded: " + host);
+    }
+
+    /**
+     * 回报调用结果：网络异常和5xx计为熔断失败，另外429也视为下游过载，用于下调并发上限；
+     * 响应头中的 Retry-After、X-RateLimit-* 更新下游的背压暂停时间
+     */
+    private void recordResult(HttpRequestContext context, SlidingWindowCircuitBreaker.Permit breakerPermit,
+                              AdaptiveConcurrencyLimiter.Permit permit, HttpResponseResult result, long startTime) {
+        boolean failure = result == null || !result.isSuccess() || result.getStatusCode() >= 500;
+        if (breakerPermit != null) {
+            breakerPermit.onResult(System.currentTimeMillis() - startTime, failure);
+        }
+        permit.release(failure || result.getStatusCode() == 429);
+        backpressure.onResponse(context, result);
+    }
+
+    /**
+     * 选择发送请求的客户端
+     *
+     * <p>超时时间的优先级：接口引用了配置档时使用配置档的 read-timeout，忽略接口的 timeout
+     * （该列非空且默认30000，无法区分是否单独设置过）；未引用配置档或配置档不存在时，
+     * 接口的 timeout 与默认客户端不同时派生客户端</p>
+     */
+    private OkHttpClient clientFor(HttpRequestContext context) {
+        String profile = context.getClientProfile();
+        if (profile != null) {
+            OkHttpClient client = profileClients.get(profile);
+            if (client != null) {
+                return client;
+            }
+            // 配置档已从配置文件中移除，使用默认客户端
+            if (unknownProfiles.add(profile)) {
+                log.warn("Unknown HTTP client profile, using default client. profile={}, apiCode={}",
+                        profile, context.getApiCode());
+            }
+        }
+
+        int timeout = context.getTimeout();
+        if (timeout <= 0 || timeout == httpClient.readTimeoutMillis()) {
+            return httpClient;
+        }
+        return timeoutClients.computeIfAbsent(timeout, key -> httpClient.newBuilder()
+                .readTimeout(timeout, TimeUnit.MILLISECONDS)
+                .build());
+    }
+
+    private HttpResponseResult toResult(HttpRequestContext context, Response response, long startTime) throws IOException {
+        long costTime = System.currentTimeMillis() - startTime;
+        String responseBody = response.body() != null ? response.body().string() : null;
 
-        } catch (IOException e) {
-            long costTime = System.currentTimeMillis() - startTime;
-            log.error("HTTP request failed, traceId={}, error={}", context.getTraceId(), e.getMessage(), e);
-            return HttpResponseResult.fail(e.getMessage(), costTime);
+        log.info("HTTP response received, traceId={}, statusCode={}, costTime={}ms",
+                context.getTraceId(), response.code(), costTime);
+
+        HttpResponseResult result = HttpResponseResult.success(response.code(), responseBody, costTime);
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String name : response.headers().names()) {
+            headers.put(name, response.header(name));
         }
+        result.setHeaders(headers);
+        return result;
+    }
+
+    private HttpResponseResult toFailResult(HttpRequestContext context, IOException e, long startTime) {
+        long costTime = System.currentTimeMillis() - startTime;
+        log.error("HTTP request failed, traceId={}, error={}", context.getTraceId(), e.getMessage(), e);
+        return HttpResponseResult.fail(e.getMessage(), costTime);
     }
 
     private Request buildRequest(HttpRequestContext context) {
-        HttpUrl.Builder urlBuilder = HttpUrl.parse(context.getUrl()).newBuilder();
+        HttpUrl httpUrl = context.getHttpUrl() != null ? context.getHttpUrl() : HttpUrl.parse(context.getUrl());
+        HttpUrl.Builder urlBuilder = httpUrl.newBuilder();
         for (Map.Entry<String, String> entry : context.getQueryParams().entrySet()) {
             urlBuilder.addQueryParameter(entry.getKey(), entry.getValue());
         }
@@ -123,21 +662,49 @@ public class HttpClientService {
     }
 
     private RequestBody createRequestBody(HttpRequestContext context) {
-        MediaType mediaType = MediaType.parse(context.getContentType());
-        String bodyContent = serializeBody(context);
-        return RequestBody.create(bodyContent, mediaType);
-    }
-
-    private String serializeBody(HttpRequestContext context) {
+        MediaType mediaType = context.getMediaType() != null
+                ? context.getMediaType() : MediaType.parse(context.getContentType());
         if (context.getBody() == null || context.getBody().isEmpty()) {
-            return "{}";
+            return RequestBody.create(EMPTY_JSON_BODY, mediaType);
         }
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.writeValueAsString(context.getBody());
+            // 直接序列化为UTF-8字节写入Okio缓冲区，不产生中间String
+            Buffer buffer = new Buffer();
+            bodyWriter.writeValue(buffer.outputStream(), context.getBody());
+            return new BufferRequestBody(buffer, mediaType);
         } catch (Exception e) {
             log.warn("Failed to serialize body, traceId={}", context.getTraceId(), e);
-            return "{}";
+            return RequestBody.create(EMPTY_JSON_BODY, mediaType);
+        }
+    }
+
+    /**
+     * 以Okio缓冲区为内容的请求体，每次写出时共享缓冲区分段而不复制字节，支持OkHttp重发
+     */
+    private static final class BufferRequestBody extends RequestBody {
+
+        private final Buffer content;
+        private final MediaType mediaType;
+
+        BufferRequestBody(Buffer content, MediaType mediaType) {
+            this.content = content;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return mediaType;
+        }
+
+        @Override
+        public long contentLength() {
+            return content.size();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            Buffer copy = content.copy();
+            sink.write(copy, copy.size());
         }
     }
 }
@@ -0,0 +1,168 @@
+package com.example.adapter.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式取值 - 在原始消息上一次扫描提取 messageBody 下的多个简单路径，
+ * 不相关的子树直接跳过，所有路径取到后立即结束扫描
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonStreamExtractor {
+
+    private static final String MESSAGE_BODY_FIELD = "messageBody";
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 提取 messageBody 下各路径的值，路径不存在时对应位置为null
+     */
+    public Object[] extract(byte[] rawMessage, SimpleJsonPath[] paths) throws IOException {
+        Object[] values = new Object[paths.length];
+        if (paths.length == 0) {
+            return values;
+        }
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(rawMessage)) {
+            if (!moveToMessageBody(parser)) {
+                return values;
+            }
+            List<Integer> active = new ArrayList<>(paths.length);
+            for (int i = 0; i < paths.length; i++) {
+                active.add(i);
+            }
+            walk(parser, paths, active, 0, values, new int[]{paths.length});
+        }
+        return values;
+    }
+
+    /**
+     * 完整解析 messageBody（复杂路径的降级方案）
+     */
+    public Map<String, Object> readBody(byte[] rawMessage) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(rawMessage)) {
+            if (!moveToMessageBody(parser) || parser.currentToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return parser.readValueAs(MAP_TYPE);
+        }
+    }
+
+    /**
+     * 将解析器移动到 messageBody 的值上
+     */
+    private boolean moveToMessageBody(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (MESSAGE_BODY_FIELD.equals(field)) {
+                return value != JsonToken.VALUE_NULL;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * 递归扫描当前节点，active 为前 depth 个片段与当前节点匹配的路径
+     *
+     * @param remaining 尚未取到值的路径数，为0时结束扫描
+     */
+    private void walk(JsonParser parser, SimpleJsonPath[] paths, List<Integer> active, int depth,
+                      Object[] values, int[] remaining) throws IOException {
+        boolean terminal = false;
+        for (Integer index : active) {
+            if (paths[index].length() == depth) {
+                terminal = true;
+                break;
+            }
+        }
+
+        if (terminal) {
+            // 当前节点即为取值目标，物化后再处理更深的路径
+            Object value = parser.readValueAs(Object.class);
+            for (Integer index : active) {
+                values[index] = navigate(value, paths[index], depth);
+                remaining[0]--;
+            }
+            return;
+        }
+
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                List<Integer> matched = match(paths, active, depth, field);
+                if (matched.isEmpty()) {
+                    parser.skipChildren();
+                } else {
+                    walk(parser, paths, matched, depth + 1, values, remaining);
+                    if (remaining[0] == 0) {
+                        return;
+                    }
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            int position = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                List<Integer> matched = match(paths, active, depth, position);
+                if (matched.isEmpty()) {
+                    parser.skipChildren();
+                } else {
+                    walk(parser, paths, matched, depth + 1, values, remaining);
+                    if (remaining[0] == 0) {
+                        return;
+                    }
+                }
+                position++;
+            }
+        }
+    }
+
+    private List<Integer> match(SimpleJsonPath[] paths, List<Integer> active, int depth, Object segment) {
+        List<Integer> matched = new ArrayList<>(active.size());
+        for (Integer index : active) {
+            if (segment.equals(paths[index].segment(depth))) {
+                matched.add(index);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 在已物化的值上继续按路径取值
+     */
+    private Object navigate(Object value, SimpleJsonPath path, int from) {
+        Object current = value;
+        for (int i = from; i < path.length() && current != null; i++) {
+            Object segment = path.segment(i);
+            if (segment instanceof String && current instanceof Map) {
+                current = ((Map<?, ?>) current).get(segment);
+            } else if (segment instanceof Integer && current instanceof List) {
+                List<?> list = (List<?>) current;
+                int position = (Integer) segment;
+                current = position < list.size() ? list.get(position) : null;
+            } else {
+                return null;
+            }
+        }
+        return current;
+    }
+}
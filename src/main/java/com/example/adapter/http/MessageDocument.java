@@ -0,0 +1,60 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.AdapterMessage;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+
+import java.io.IOException;
+
+/**
+ * 单条消息的取值文档 - 同一条消息的所有消息取值参数共用，消息体只解析一次
+ *
+ * <p>消息体已反序列化时，所有JSONPath共用同一个 {@link DocumentContext}；
+ * 流式取值模式下（消息体未反序列化），简单路径由 {@link JsonStreamExtractor} 一次扫描全部取出，
+ * 只有出现复杂路径时才完整解析消息体。</p>
+ */
+public class MessageDocument {
+
+    private final AdapterMessage message;
+    private final RequestPlan plan;
+    private final JsonStreamExtractor extractor;
+
+    private DocumentContext documentContext;
+    private Object[] streamedValues;
+
+    public MessageDocument(AdapterMessage message, RequestPlan plan, JsonStreamExtractor extractor) {
+        this.message = message;
+        this.plan = plan;
+        this.extractor = extractor;
+    }
+
+    public AdapterMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * 读取消息体中的值
+     *
+     * @param path        编译后的JSONPath
+     * @param streamIndex 简单路径在计划流式路径中的位置，非简单路径为-1
+     */
+    Object read(JsonPath path, int streamIndex) throws IOException {
+        if (message.getMessageBody() == null && message.getRawMessage() != null) {
+            if (streamIndex >= 0) {
+                if (streamedValues == null) {
+                    streamedValues = extractor.extract(message.getRawMessage(), plan.getStreamPaths());
+                }
+                return streamedValues[streamIndex];
+            }
+            message.setMessageBody(extractor.readBody(message.getRawMessage()));
+        }
+
+        if (message.getMessageBody() == null) {
+            return null;
+        }
+        if (documentContext == null) {
+            documentContext = JsonPath.parse(message.getMessageBody());
+        }
+        return documentContext.read(path);
+    }
+}
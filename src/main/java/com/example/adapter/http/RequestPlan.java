@@ -0,0 +1,164 @@
+package com.example.adapter.http;
+
+import lombok.Getter;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 编译后的请求计划 - 由接口配置及其参数配置预处理得到，不可变，按配置版本缓存复用
+ *
+ * <p>固定值参数在编译时已完成类型转换并归入静态参数；URL预先按路径参数切分，
+ * 不含动态路径参数时直接使用预解析的 {@link HttpUrl}；消息取值参数预编译为取值函数，同一条消息的取值共用一个 {@link MessageDocument}。</p>
+ *
+ * @see RequestPlanCompiler
+ */
+@Getter
+public class RequestPlan {
+
+    public enum Target {
+        HEADER, QUERY, BODY, PATH
+    }
+
+    private final Long configId;
+    private final LocalDateTime configUpdateTime;
+    private final long paramVersion;
+
+    private final String method;
+    private final String contentType;
+    private final MediaType mediaType;
+    private final int timeout;
+    private final String clientProfile;
+
+    /**
+     * 对冲延迟，null表示不对冲，0表示按最近耗时的分位数
+     */
+    private final Integer hedgeDelay;
+
+    /**
+     * 已替换固定路径参数的URL；不含动态路径参数时附带预解析结果，否则httpUrl为null
+     */
+    private final String url;
+    private final HttpUrl httpUrl;
+
+    /**
+     * 含动态路径参数时的URL模板：urlLiterals[0] + 参数0 + urlLiterals[1] + ... + urlLiterals[n]，
+     * urlPathKeys[i] 为第i个动态路径参数的键名
+     */
+    private final String[] urlLiterals;
+    private final String[] urlPathKeys;
+
+    /**
+     * 动态路径参数都未取到值时回退的固定值（配置在动态参数之后的同名固定值），没有时为null
+     */
+    private final String[] urlPathFallbacks;
+
+    private final Map<String, String> staticHeaders;
+    private final Map<String, String> staticQueryParams;
+    private final Map<String, Object> staticBody;
+
+    private final List<CompiledParam> dynamicParams;
+
+    /**
+     * 消息取值参数中的简单路径，流式取值模式下一次扫描全部取出
+     */
+    private final SimpleJsonPath[] streamPaths;
+
+    RequestPlan(Long configId, LocalDateTime configUpdateTime, long paramVersion,
+                String method, String contentType, MediaType mediaType, int timeout, String clientProfile,
+                Integer hedgeDelay, String url, HttpUrl httpUrl, String[] urlLiterals, String[] urlPathKeys,
+                String[] urlPathFallbacks,
+                Map<String, String> staticHeaders, Map<String, String> staticQueryParams,
+                Map<String, Object> staticBody, List<CompiledParam> dynamicParams,
+                SimpleJsonPath[] streamPaths) {
+        this.configId = configId;
+        this.configUpdateTime = configUpdateTime;
+        this.paramVersion = paramVersion;
+        this.method = method;
+        this.contentType = contentType;
+        this.mediaType = mediaType;
+        this.timeout = timeout;
+        this.clientProfile = clientProfile;
+        this.hedgeDelay = hedgeDelay;
+        this.url = url;
+        this.httpUrl = httpUrl;
+        this.urlLiterals = urlLiterals;
+        this.urlPathKeys = urlPathKeys;
+        this.urlPathFallbacks = urlPathFallbacks;
+        this.staticHeaders = staticHeaders;
+        this.staticQueryParams = staticQueryParams;
+        this.staticBody = staticBody;
+        this.dynamicParams = dynamicParams;
+        this.streamPaths = streamPaths;
+    }
+
+    /**
+     * 计划是否仍与当前配置版本一致
+     */
+    public boolean matches(LocalDateTime updateTime, long paramVersion) {
+        return Objects.equals(configUpdateTime, updateTime) && this.paramVersion == paramVersion;
+    }
+
+    public boolean hasPathParams() {
+        return urlLiterals != null;
+    }
+
+    public int getPathSlotCount() {
+        return urlPathKeys == null ? 0 : urlPathKeys.length;
+    }
+
+    /**
+     * 用路径参数值渲染URL，未取到值的参数使用回退的固定值，没有时保留原占位符
+     */
+    public String renderUrl(String[] pathValues) {
+        StringBuilder sb = new StringBuilder(url.length() + 32);
+        for (int i = 0; i < pathValues.length; i++) {
+            sb.append(urlLiterals[i]);
+            if (pathValues[i] != null) {
+                sb.append(pathValues[i]);
+            } else if (urlPathFallbacks[i] != null) {
+                sb.append(urlPathFallbacks[i]);
+            } else {
+                sb.append('{').append(urlPathKeys[i]).append('}');
+            }
+        }
+        sb.append(urlLiterals[pathValues.length]);
+        return sb.toString();
+    }
+
+    /**
+     * 编译后的动态参数（取值依赖消息内容）；target为null时只做必填校验
+     * （未知参数类型，或被配置在其后的同名固定值覆盖）
+     */
+    @Getter
+    public static final class CompiledParam {
+
+        private final Target target;
+        private final String key;
+        private final boolean required;
+        private final Function<MessageDocument, String> resolver;
+
+        /**
+         * PATH参数在URL模板中的位置
+         */
+        private final int[] pathSlots;
+
+        CompiledParam(Target target, String key, boolean required,
+                      Function<MessageDocument, String> resolver, int[] pathSlots) {
+            this.target = target;
+            this.key = key;
+            this.required = required;
+            this.resolver = resolver;
+            this.pathSlots = pathSlots;
+        }
+
+        public String resolve(MessageDocument document) {
+            return resolver.apply(document);
+        }
+    }
+}
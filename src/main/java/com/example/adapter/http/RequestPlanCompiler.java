@@ -0,0 +1,387 @@
+package com.example.adapter.http;
+
+import com.example.adapter.common.constant.ParamType;
+import com.example.adapter.common.constant.StatusConstant;
+import com.example.adapter.common.constant.ValueSource;
+import com.example.adapter.dto.AdapterMessage;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * 请求计划编译器 - 将接口配置及参数配置编译为不可变的 {@link RequestPlan}
+ *
+ * <p>计划按配置ID缓存，配置或参数的 update_time 变化后重新编译；
+ * 同一秒内的多次修改由 {@link #evict(Long)} 显式失效。</p>
+ */
+@Slf4j
+@Component
+public class RequestPlanCompiler {
+
+    private static final Pattern PATH_PARAM_PATTERN = Pattern.compile("\\{(\\w+)}");
+
+    private static final String USER_EXTRA_PREFIX = "userInfo.extra.";
+
+    private final Cache<Long, RequestPlan> planCache = CacheBuilder.newBuilder()
+            .maximumSize(5000)
+            .build();
+
+    /**
+     * 获取接口的请求计划，缓存的计划与当前配置版本不一致时重新编译
+     */
+    public RequestPlan getPlan(ExternalApiConfig config, List<ApiParamConfig> paramConfigs) {
+        long paramVersion = paramVersion(paramConfigs);
+        RequestPlan plan = planCache.getIfPresent(config.getId());
+        if (plan != null && plan.matches(config.getUpdateTime(), paramVersion)) {
+            return plan;
+        }
+
+        plan = compile(config, paramConfigs, paramVersion);
+        planCache.put(config.getId(), plan);
+        log.debug("Compiled request plan, configId={}, dynamicParams={}", config.getId(), plan.getDynamicParams().size());
+        return plan;
+    }
+
+    /**
+     * 清除指定接口的请求计划（配置更新时调用）
+     */
+    public void evict(Long configId) {
+        planCache.invalidate(configId);
+    }
+
+    /**
+     * 编译请求计划，结果与按配置顺序逐个处理参数一致：
+     * <ul>
+     *     <li>HEADER/QUERY/BODY 后出现的参数覆盖先出现的同名参数，取值为null的参数不覆盖；
+     *     被后面固定值覆盖的动态参数只做必填校验</li>
+     *     <li>PATH 参数按配置顺序第一个非null的值生效，动态值为null时回退到其后的固定值</li>
+     *     <li>未知类型的参数不生效，但必填时仍做必填校验</li>
+     * </ul>
+     */
+    RequestPlan compile(ExternalApiConfig config, List<ApiParamConfig> paramConfigs, long paramVersion) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        Map<String, String> queryParams = new LinkedHashMap<>();
+        Map<String, Object> body = new LinkedHashMap<>();
+        Map<String, String> fixedPathValues = new HashMap<>();
+        Map<String, String> fallbackPathValues = new HashMap<>();
+        Set<String> dynamicPathKeys = new HashSet<>();
+        List<PendingParam> pendingParams = new ArrayList<>();
+        List<SimpleJsonPath> streamPaths = new ArrayList<>();
+
+        // 每个 HEADER/QUERY/BODY 参数最后一个非null固定值的位置，在它之前的同名动态参数不生效
+        Map<String, Integer> lastFixedIndex = new HashMap<>();
+        for (int i = 0; i < paramConfigs.size(); i++) {
+            ApiParamConfig paramConfig = paramConfigs.get(i);
+            RequestPlan.Target target = toTarget(paramConfig.getParamType());
+            if (target != null && target != RequestPlan.Target.PATH && isFixed(paramConfig)
+                    && paramConfig.getParamValue() != null) {
+                lastFixedIndex.put(target + ":" + paramConfig.getParamKey(), i);
+            }
+        }
+
+        for (int i = 0; i < paramConfigs.size(); i++) {
+            ApiParamConfig paramConfig = paramConfigs.get(i);
+            RequestPlan.Target target = toTarget(paramConfig.getParamType());
+            String key = paramConfig.getParamKey();
+            boolean required = Integer.valueOf(1).equals(paramConfig.getRequired());
+
+            Function<MessageDocument, String> resolver = toResolver(paramConfig, streamPaths);
+            String value = paramConfig.getParamValue();
+            if (resolver == null && required && !StringUtils.hasText(value)) {
+                // 必填固定值缺失，保留为动态参数，每条消息按原逻辑报错
+                resolver = document -> value;
+            }
+
+            if (target == null) {
+                log.warn("Unknown param type: {}, configId={}", paramConfig.getParamType(), config.getId());
+                if (required) {
+                    pendingParams.add(new PendingParam(null, key, true, resolver != null ? resolver : document -> value));
+                }
+                continue;
+            }
+
+            if (resolver != null) {
+                boolean applied;
+                if (target == RequestPlan.Target.PATH) {
+                    // 前面已有固定值时路径参数已确定
+                    applied = !fixedPathValues.containsKey(key) && !fallbackPathValues.containsKey(key);
+                    if (applied) {
+                        dynamicPathKeys.add(key);
+                    }
+                } else {
+                    applied = lastFixedIndex.getOrDefault(target + ":" + key, -1) < i;
+                }
+                pendingParams.add(new PendingParam(applied ? target : null, key, required, resolver));
+                continue;
+            }
+
+            // 固定值参数
+            if (value == null) {
+                continue;
+            }
+            switch (target) {
+                case HEADER:
+                    headers.put(key, value);
+                    break;
+                case QUERY:
+                    queryParams.put(key, value);
+                    break;
+                case BODY:
+                    body.put(key, RequestBuilder.parseValue(value));
+                    break;
+                case PATH:
+                    if (dynamicPathKeys.contains(key)) {
+                        fallbackPathValues.putIfAbsent(key, value);
+                    } else {
+                        fixedPathValues.putIfAbsent(key, value);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // 切分URL模板：固定路径参数直接替换，动态路径参数记录位置
+        String apiUrl = config.getApiUrl();
+        List<String> literals = new ArrayList<>();
+        List<String> pathKeys = new ArrayList<>();
+        List<String> pathFallbacks = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        Matcher matcher = PATH_PARAM_PATTERN.matcher(apiUrl);
+        int last = 0;
+        while (matcher.find()) {
+            literal.append(apiUrl, last, matcher.start());
+            String key = matcher.group(1);
+            if (fixedPathValues.containsKey(key)) {
+                literal.append(fixedPathValues.get(key));
+            } else if (dynamicPathKeys.contains(key)) {
+                literals.add(literal.toString());
+                pathKeys.add(key);
+                pathFallbacks.add(fallbackPathValues.get(key));
+                literal.setLength(0);
+            } else {
+                literal.append(matcher.group());
+            }
+            last = matcher.end();
+        }
+        literal.append(apiUrl, last, apiUrl.length());
+        literals.add(literal.toString());
+
+        List<RequestPlan.CompiledParam> dynamicParams = new ArrayList<>(pendingParams.size());
+        for (PendingParam pending : pendingParams) {
+            int[] pathSlots = null;
+            if (pending.target == RequestPlan.Target.PATH) {
+                pathSlots = IntStream.range(0, pathKeys.size())
+                        .filter(i -> pathKeys.get(i).equals(pending.key))
+                        .toArray();
+            }
+            dynamicParams.add(new RequestPlan.CompiledParam(
+                    pending.target, pending.key, pending.required, pending.resolver, pathSlots));
+        }
+
+        String url;
+        HttpUrl httpUrl = null;
+        String[] urlLiterals = null;
+        String[] urlPathKeys = null;
+        String[] urlPathFallbacks = null;
+        if (pathKeys.isEmpty()) {
+            url = literals.get(0);
+            httpUrl = HttpUrl.parse(url);
+        } else {
+            url = apiUrl;
+            urlLiterals = literals.toArray(new String[0]);
+            urlPathKeys = pathKeys.toArray(new String[0]);
+            urlPathFallbacks = pathFallbacks.toArray(new String[0]);
+        }
+
+        String contentType = config.getContentType();
+        return new RequestPlan(config.getId(), config.getUpdateTime(), paramVersion,
+                config.getHttpMethod(), contentType, contentType != null ? MediaType.parse(contentType) : null,
+                config.getTimeout() != null ? config.getTimeout() : 0,
+                StringUtils.hasText(config.getClientProfile()) ? config.getClientProfile() : null,
+                hedgeDelay(config),
+                url, httpUrl, urlLiterals, urlPathKeys, urlPathFallbacks,
+                Collections.unmodifiableMap(headers),
+                Collections.unmodifiableMap(queryParams),
+                Collections.unmodifiableMap(body),
+                Collections.unmodifiableList(dynamicParams),
+                streamPaths.toArray(new SimpleJsonPath[0]));
+    }
+
+    /**
+     * 对冲延迟：未开启对冲时为null，未配置 hedge_delay_ms 时为0（按最近耗时的分位数）
+     */
+    private static Integer hedgeDelay(ExternalApiConfig config) {
+        if (!Objects.equals(config.getHedgeEnabled(), StatusConstant.ENABLED)) {
+            return null;
+        }
+        return config.getHedgeDelayMs() != null ? Math.max(0, config.getHedgeDelayMs()) : 0;
+    }
+
+    /**
+     * 参数配置版本，参数增删或任一参数的 update_time 变化都会改变版本
+     */
+    static long paramVersion(List<ApiParamConfig> paramConfigs) {
+        long version = paramConfigs.size();
+        for (ApiParamConfig paramConfig : paramConfigs) {
+            version = 31 * version + Objects.hashCode(paramConfig.getId());
+            version = 31 * version + Objects.hashCode(paramConfig.getUpdateTime());
+        }
+        return version;
+    }
+
+    /**
+     * 是否为固定值参数，与 {@link #toResolver} 返回null的情况一致
+     */
+    private static boolean isFixed(ApiParamConfig paramConfig) {
+        String source = paramConfig.getValueSource();
+        return !ValueSource.MESSAGE.equals(source) && !ValueSource.CONTEXT.equals(source);
+    }
+
+    private RequestPlan.Target toTarget(String paramType) {
+        if (paramType == null) {
+            return null;
+        }
+        switch (paramType) {
+            case ParamType.HEADER:
+                return RequestPlan.Target.HEADER;
+            case ParamType.QUERY:
+                return RequestPlan.Target.QUERY;
+            case ParamType.BODY:
+                return RequestPlan.Target.BODY;
+            case ParamType.PATH:
+                return RequestPlan.Target.PATH;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 编译取值函数，固定值参数返回null
+     */
+    private Function<MessageDocument, String> toResolver(ApiParamConfig paramConfig, List<SimpleJsonPath> streamPaths) {
+        String source = paramConfig.getValueSource();
+        if (!StringUtils.hasText(source)) {
+            source = ValueSource.FIXED;
+        }
+
+        switch (source) {
+            case ValueSource.FIXED:
+                return null;
+
+            case ValueSource.MESSAGE:
+                return compileMessageResolver(paramConfig.getValueExpression(), streamPaths);
+
+            case ValueSource.CONTEXT:
+                Function<AdapterMessage, String> contextResolver = compileContextResolver(paramConfig.getValueExpression());
+                return document -> contextResolver.apply(document.getMessage());
+
+            default:
+                log.warn("Unknown value source: {}", source);
+                return null;
+        }
+    }
+
+    private Function<MessageDocument, String> compileMessageResolver(String expression, List<SimpleJsonPath> streamPaths) {
+        if (!StringUtils.hasText(expression)) {
+            return document -> null;
+        }
+
+        JsonPath path;
+        try {
+            path = JsonPath.compile(expression);
+        } catch (Exception e) {
+            log.warn("Invalid JSONPath expression: {}", expression, e);
+            return document -> null;
+        }
+
+        SimpleJsonPath simplePath = SimpleJsonPath.parse(expression);
+        int streamIndex = -1;
+        if (simplePath != null) {
+            streamIndex = streamPaths.size();
+            streamPaths.add(simplePath);
+        }
+
+        int finalStreamIndex = streamIndex;
+        return document -> {
+            try {
+                Object value = document.read(path, finalStreamIndex);
+                return value != null ? String.valueOf(value) : null;
+            } catch (PathNotFoundException e) {
+                log.debug("Path not found in message: {}", expression);
+                return null;
+            } catch (Exception e) {
+                log.warn("Failed to extract value from message, expression={}", expression, e);
+                return null;
+            }
+        };
+    }
+
+    private Function<AdapterMessage, String> compileContextResolver(String expression) {
+        if (!StringUtils.hasText(expression)) {
+            return message -> null;
+        }
+
+        switch (expression) {
+            case "traceId":
+                return AdapterMessage::getTraceId;
+            case "tenantCode":
+                return AdapterMessage::getTenantCode;
+            case "apiCode":
+                return AdapterMessage::getApiCode;
+            case "userId":
+                return message -> message.getUserInfo() != null ? message.getUserInfo().getUserId() : null;
+            case "userName":
+                return message -> message.getUserInfo() != null ? message.getUserInfo().getUserName() : null;
+            default:
+                if (expression.startsWith(USER_EXTRA_PREFIX)) {
+                    String key = expression.substring(USER_EXTRA_PREFIX.length());
+                    return message -> {
+                        if (message.getUserInfo() == null) {
+                            return null;
+                        }
+                        Map<String, String> extra = message.getUserInfo().getExtra();
+                        return extra != null ? extra.get(key) : null;
+                    };
+                }
+                return message -> null;
+        }
+    }
+
+    private static class PendingParam {
+        private final RequestPlan.Target target;
+        private final String key;
+        private final boolean required;
+        private final Function<MessageDocument, String> resolver;
+
+        PendingParam(RequestPlan.Target target, String key, boolean required,
+                     Function<MessageDocument, String> resolver) {
+            this.target = target;
+            this.key = key;
+            this.required = required;
+            this.resolver = resolver;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.adapter.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 简单JSONPath - 只由字段名和非负数组下标组成的路径（如 $.order.items[0].id、$['a-b'].c），
+ * 可以在流式解析中直接定位，无需构建完整文档
+ *
+ * <p>包含通配符、过滤器、深度扫描等的表达式不属于简单路径，{@link #parse(String)} 返回null。</p>
+ */
+public final class SimpleJsonPath {
+
+    private static final Pattern SEGMENT_PATTERN =
+            Pattern.compile("\\.([A-Za-z_$][\\w$-]*)|\\['([^'\\\\]+)']|\\[(\\d+)]");
+
+    /**
+     * 路径片段，String 为字段名，Integer 为数组下标
+     */
+    private final Object[] segments;
+
+    private SimpleJsonPath(Object[] segments) {
+        this.segments = segments;
+    }
+
+    public static SimpleJsonPath parse(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        String path = expression.trim();
+        if (path.startsWith("$")) {
+            path = path.substring(1);
+        } else {
+            path = "." + path;
+        }
+        if (path.isEmpty()) {
+            return null;
+        }
+
+        List<Object> segments = new ArrayList<>();
+        Matcher matcher = SEGMENT_PATTERN.matcher(path);
+        int position = 0;
+        while (position < path.length()) {
+            if (!matcher.find(position) || matcher.start() != position) {
+                return null;
+            }
+            if (matcher.group(1) != null) {
+                segments.add(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                segments.add(matcher.group(2));
+            } else {
+                segments.add(Integer.valueOf(matcher.group(3)));
+            }
+            position = matcher.end();
+        }
+        return new SimpleJsonPath(segments.toArray());
+    }
+
+    public int length() {
+        return segments.length;
+    }
+
+    public Object segment(int index) {
+        return segments[index];
+    }
+
+    @Override
+    public String toString() {
+        return "$" + Arrays.toString(segments);
+    }
+}
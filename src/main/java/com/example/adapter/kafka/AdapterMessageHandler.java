@@ -0,0 +1,528 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.DownstreamThrottledException;
+import com.example.adapter.common.exception.RateLimitException;
+import com.example.adapter.common.exception.RetryableException;
+import com.example.adapter.dto.AdapterMessage;
+import com.example.adapter.service.AdapterService;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 单条消息处理逻辑，供各消费模式的监听器共用
+ */
+@Slf4j
+@Component
+public class AdapterMessageHandler {
+
+    private final ObjectMapper objectMapper;
+    private final AdapterService adapterService;
+    private final DeadLetterQueueService deadLetterQueueService;
+    private final RetryTopicService retryTopicService;
+    private final Executor workerExecutor;
+
+    /**
+     * 流式取值模式：只解析消息信封，messageBody 按请求计划中配置的路径从原始消息中按需提取
+     */
+    @Value("${adapter.message.streaming-extract:false}")
+    private boolean streamingExtract;
+
+    /**
+     * 限流时延迟处理而不是丢弃：同步处理的消息直接交给重试主题延后处理；
+     * 异步处理的消息先通过延迟执行器等待（不占线程），累计等待超过 max-wait-ms 仍被限流时再交给重试主题
+     */
+    @Value("${adapter.rate-limit.throttle.enabled:true}")
+    private boolean throttleEnabled;
+
+    @Value("${adapter.rate-limit.throttle.max-wait-ms:1000}")
+    private long throttleMaxWaitMs;
+
+    /**
+     * 被限流的消息从首次失败起累计延后处理的上限，超过后写入死信队列，避免下游持续限流时无限循环；0表示不限制
+     */
+    @Value("${adapter.rate-limit.throttle.max-defer-ms:3600000}")
+    private long throttleMaxDeferMs;
+
+    /**
+     * 限流结果未给出等待时间时（如并发限流）的等待间隔
+     */
+    @Value("${adapter.rate-limit.throttle.default-wait-ms:100}")
+    private long throttleDefaultWaitMs;
+
+    /**
+     * 按键有序模式下可重试失败的消息在通道内等待的间隔（乘以重试次数），之后停止通道重新投递
+     */
+    @Value("${adapter.kafka.key-ordered.retry-backoff-ms:1000}")
+    private long orderedRetryBackoffMs;
+
+    private ObjectReader envelopeReader;
+
+    public AdapterMessageHandler(ObjectMapper objectMapper, AdapterService adapterService,
+                                 DeadLetterQueueService deadLetterQueueService, RetryTopicService retryTopicService,
+                                 @Qualifier("adapterWorkerExecutor") Executor workerExecutor) {
+        this.objectMapper = objectMapper;
+        this.adapterService = adapterService;
+        this.deadLetterQueueService = deadLetterQueueService;
+        this.retryTopicService = retryTopicService;
+        this.workerExecutor = workerExecutor;
+    }
+
+    @PostConstruct
+    public void init() {
+        envelopeReader = objectMapper.copy()
+                .addMixIn(AdapterMessage.class, EnvelopeMixIn.class)
+                .readerFor(AdapterMessage.class);
+    }
+
+    /**
+     * 处理单条消息
+     *
+     * <p>HTTP调用在当前线程同步完成；需要写入死信队列时不等待确认，返回的结果在写入确认后才完成，
+     * 调用方可以先处理后续消息，一批消息的死信写入由生产者合并发送。</p>
+     *
+     * @param record Kafka消息
+     * @return true-处理结束，可以提交位点；false-需要重新投递，不能提交位点
+     */
+    public CompletableFuture<Boolean> handle(ConsumerRecord<String, byte[]> record) {
+        return handle(record, null);
+    }
+
+    /**
+     * 处理单条消息
+     *
+     * @param record Kafka消息
+     * @param parsed 已解析的消息，为null时从record中解析
+     * @return true-处理结束，可以提交位点；false-需要重新投递，不能提交位点
+     */
+    public CompletableFuture<Boolean> handle(ConsumerRecord<String, byte[]> record, AdapterMessage parsed) {
+        String traceId = null;
+        AdapterMessage message = null;
+
+        try {
+            message = parsed != null ? parsed : parse(record.value());
+            traceId = prepare(message);
+
+            // 被限流时不在当前线程等待，直接交给重试主题延后处理，不阻塞同一分区上其他租户的消息
+            adapterService.process(message);
+            return CompletableFuture.completedFuture(onSuccess(record, traceId));
+
+        } catch (Exception e) {
+            return onFailure(record, message, traceId, e);
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+
+    /**
+     * 按键有序处理单条消息（KEY_ORDERED通道内调用）
+     *
+     * <p>可重试失败和被限流的消息都不投递重试主题，否则同键的后续消息会先于它处理；
+     * 在通道工作线程上等待一段时间后返回false，由通道停止处理后续消息并回退位点重新投递。
+     * 等待只阻塞同键的通道，不占用消费线程。重试次数按消息位置在本地计数，被限流不计入重试次数。</p>
+     *
+     * <p>重试次数用尽的消息写入死信队列时不等待确认，返回未完成的结果，通道可以继续处理同键的后续消息。</p>
+     *
+     * @param record Kafka消息
+     * @param parsed 已解析的消息，为null时从record中解析
+     * @return true-处理结束，可以提交位点；false-需要重新投递，同键后续消息不能先处理
+     */
+    public CompletableFuture<Boolean> handleOrdered(ConsumerRecord<String, byte[]> record, AdapterMessage parsed) {
+        String traceId = null;
+        AdapterMessage message = null;
+
+        try {
+            message = parsed != null ? parsed : parse(record.value());
+            traceId = prepare(message);
+
+            adapterService.process(message);
+            deadLetterQueueService.clearRetryCount(record);
+            log.info("Message processed successfully, traceId={}", traceId);
+            return CompletableFuture.completedFuture(true);
+
+        } catch (Exception e) {
+            return onOrderedFailure(record, message, traceId, e);
+        } finally {
+            MDC.remove("traceId");
+        }
+    }
+
+    /**
+     * 异步处理单条消息，HTTP调用完成后才结束，调用线程不等待下游响应
+     *
+     * @param record Kafka消息
+     * @return true-处理结束，可以提交位点；false-需要重新投递，不能提交位点
+     */
+    public CompletableFuture<Boolean> handleAsync(ConsumerRecord<String, byte[]> record) {
+        String traceId = null;
+        AdapterMessage message = null;
+        CompletableFuture<Void> future;
+
+        try {
+            message = parse(record.value());
+            traceId = prepare(message);
+
+            future = processAsyncThrottled(message, System.currentTimeMillis() + throttleMaxWaitMs);
+        } catch (Exception e) {
+            return onFailure(record, message, traceId, e);
+        } finally {
+            MDC.remove("traceId");
+        }
+
+        String finalTraceId = traceId;
+        AdapterMessage finalMessage = message;
+        return future.handle((ignored, error) -> {
+            if (error == null) {
+                MDC.put("traceId", finalTraceId);
+                try {
+                    return CompletableFuture.completedFuture(onSuccess(record, finalTraceId));
+                } finally {
+                    MDC.remove("traceId");
+                }
+            }
+            // 失败处理要同步等待重试主题的写入确认，切换到工作线程池，不占用OkHttp回调线程
+            return CompletableFuture.supplyAsync(() -> {
+                MDC.put("traceId", finalTraceId);
+                try {
+                    return onFailure(record, finalMessage, finalTraceId, unwrap(error));
+                } finally {
+                    MDC.remove("traceId");
+                }
+            }, workerExecutor).thenCompose(Function.identity());
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 异步处理消息，被限流时通过延迟执行器等待后重新处理，不占用线程
+     */
+    private CompletableFuture<Void> processAsyncThrottled(AdapterMessage message, long deadline) {
+        return adapterService.processAsync(message).handle((ignored, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof RateLimitException) {
+                long waitMillis = throttleWait((RateLimitException) cause, deadline);
+                if (waitMillis >= 0) {
+                    Executor delayed = CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.runAsync(() -> { }, delayed)
+                            .thenCompose(next -> processAsyncThrottled(message, deadline));
+                }
+            }
+            return error == null ? CompletableFuture.<Void>completedFuture(null)
+                    : CompletableFuture.<Void>failedFuture(cause);
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 计算被限流后的等待时间
+     *
+     * @return 需等待的毫秒数，未开启延迟处理或超过等待上限时返回-1
+     */
+    private long throttleWait(RateLimitException e, long deadline) {
+        if (!throttleEnabled) {
+            return -1;
+        }
+        long waitMillis = e.getRetryAfterMillis() > 0 ? e.getRetryAfterMillis() : throttleDefaultWaitMs;
+        return System.currentTimeMillis() + waitMillis <= deadline ? waitMillis : -1;
+    }
+
+    private Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 补全traceId、设置日志上下文并校验消息
+     *
+     * @return traceId
+     */
+    private String prepare(AdapterMessage message) {
+        String traceId = message.getTraceId();
+        if (!StringUtils.hasText(traceId)) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+            message.setTraceId(traceId);
+        }
+        MDC.put("traceId", traceId);
+
+        log.info("Received message, tenantCode={}, apiCode={}, traceId={}",
+                message.getTenantCode(), message.getApiCode(), traceId);
+
+        validateMessage(message);
+        return traceId;
+    }
+
+    private boolean onSuccess(ConsumerRecord<String, byte[]> record, String traceId) {
+        // 处理成功，清除本地重试计数（重试主题模式下重试次数在消息头中，无需清除）
+        if (!retryTopicService.isEnabled()) {
+            deadLetterQueueService.clearRetryCount(record);
+        }
+        log.info("Message processed successfully, traceId={}", traceId);
+        return true;
+    }
+
+    /**
+     * 按异常类型决定消息去向
+     *
+     * @return 是否可以提交位点
+     */
+    private CompletableFuture<Boolean> onFailure(ConsumerRecord<String, byte[]> record, AdapterMessage message,
+                              String traceId, Throwable e) {
+        if ((throttleEnabled && e instanceof RateLimitException) || e instanceof DownstreamThrottledException) {
+            // 被限流的消息延后处理，不丢弃；下游限流不论是否开启延迟处理都不丢弃
+            RateLimitException throttled = (RateLimitException) e;
+            if (retryTopicService.isEnabled()) {
+                long firstFailureAt = retryTopicService.getFirstFailureAt(record);
+                if (deferralExceeded(firstFailureAt)) {
+                    return sendThrottledToDeadLetterQueue(record, traceId, throttled,
+                            retryTopicService.getRetryAttempt(record), firstFailureAt);
+                }
+                return CompletableFuture.completedFuture(deferToRetryTopic(record, traceId, throttled));
+            }
+            long firstFailureAt = deadLetterQueueService.markFailure(record);
+            if (deferralExceeded(firstFailureAt)) {
+                return sendThrottledToDeadLetterQueue(record, traceId, throttled,
+                        deadLetterQueueService.getRetryCount(record), firstFailureAt);
+            }
+            return delayRedelivery(traceId, throttled);
+        }
+
+        if (e instanceof RetryableException) {
+            // 环境原因导致的异常（网络超时、连接失败、5xx错误等）
+            if (retryTopicService.isEnabled()) {
+                return routeToRetryTopic(record, traceId, record.value(), (RetryableException) e);
+            }
+            return handleRetryableException(record, traceId, (RetryableException) e);
+        }
+
+        if (e instanceof BusinessException) {
+            // 业务异常（租户不存在、配置错误、限流等），进行ack，不重试
+            log.error("Business error occurred, will not retry. traceId={}, tenantCode={}, apiCode={}, error={}",
+                    traceId,
+                    message != null ? message.getTenantCode() : "unknown",
+                    message != null ? message.getApiCode() : "unknown",
+                    e.getMessage());
+            return CompletableFuture.completedFuture(true);
+        }
+
+        if (e instanceof IllegalArgumentException) {
+            // 参数校验失败，进行ack，不重试
+            log.error("Message validation failed, will not retry. traceId={}, error={}", traceId, e.getMessage());
+            return CompletableFuture.completedFuture(true);
+        }
+
+        // 消息解析失败等其他异常，进行ack，不重试（避免无限重试无法解析的消息）
+        log.error("Unexpected error occurred, will not retry. traceId={}, error={}", traceId, e.getMessage(), e);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * 按键有序模式的失败处理：限流和可重试失败在通道内等待后重新投递，其他异常与 {@link #onFailure} 相同
+     *
+     * @return 是否可以提交位点
+     */
+    private CompletableFuture<Boolean> onOrderedFailure(ConsumerRecord<String, byte[]> record, AdapterMessage message,
+                                     String traceId, Exception e) {
+        if ((throttleEnabled && e instanceof RateLimitException) || e instanceof DownstreamThrottledException) {
+            long firstFailureAt = deadLetterQueueService.markFailure(record);
+            if (deferralExceeded(firstFailureAt)) {
+                return sendThrottledToDeadLetterQueue(record, traceId, (RateLimitException) e,
+                        deadLetterQueueService.getRetryCount(record), firstFailureAt);
+            }
+            long retryAfterMillis = ((RateLimitException) e).getRetryAfterMillis();
+            long waitMillis = Math.min(retryAfterMillis > 0 ? retryAfterMillis : throttleDefaultWaitMs,
+                    throttleMaxWaitMs);
+            log.warn("Message throttled, lane blocked until redelivery. traceId={}, wait={}ms, error={}",
+                    traceId, waitMillis, e.getMessage());
+            pauseLane(waitMillis);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        if (e instanceof RetryableException) {
+            CompletableFuture<Boolean> result = handleRetryableException(record, traceId, (RetryableException) e);
+            if (!result.isDone()) {
+                // 正在写入死信队列
+                return result;
+            }
+            if (!result.join()) {
+                pauseLane(orderedRetryBackoffMs * deadLetterQueueService.getRetryCount(record));
+            }
+            return result;
+        }
+
+        return onFailure(record, message, traceId, e);
+    }
+
+    /**
+     * 在通道工作线程上等待，只阻塞同键的消息
+     */
+    private void pauseLane(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 重试主题模式：投递到下一个延迟层级后ack，重试次数用尽则发送到死信队列
+     *
+     * @return 是否可以提交位点
+     */
+    private CompletableFuture<Boolean> routeToRetryTopic(ConsumerRecord<String, byte[]> record, String traceId,
+                                      byte[] originalMessage, RetryableException e) {
+        int retryAttempt = retryTopicService.getRetryAttempt(record);
+        int maxRetryCount = deadLetterQueueService.getMaxRetryCount();
+
+        if (retryAttempt >= maxRetryCount) {
+            log.error("Max retry count exceeded, sending to dead letter queue. traceId={}, retryCount={}/{}",
+                    traceId, retryAttempt, maxRetryCount);
+            // 死信写入确认后才ack，写入失败时重新投递
+            return deadLetterQueueService.sendToDeadLetterQueue(originalMessage, traceId, e.getMessage(), retryAttempt,
+                    retryTopicService.getFirstFailureAt(record));
+        }
+
+        try {
+            RetryTier tier = retryTopicService.sendToRetryTopic(record, retryAttempt + 1, e.getMessage());
+            log.warn("Retryable error occurred, sent to retry topic. traceId={}, retryCount={}/{}, delay={}, error={}",
+                    traceId, retryAttempt + 1, maxRetryCount, tier.getDelay(), e.getMessage());
+            return CompletableFuture.completedFuture(true);
+        } catch (Exception sendError) {
+            // 投递失败时不ack，由Kafka重新投递，避免消息丢失
+            log.error("Failed to send message to retry topic, will redeliver. traceId={}", traceId, sendError);
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * 重试主题模式下被限流：按限流结果给出的等待时间投递到重试主题，不计入重试次数。
+     * 下游没有失败这条消息，只有从首次失败起累计超过 max-defer-ms 时才进入死信队列
+     *
+     * @return 是否可以提交位点
+     */
+    private boolean deferToRetryTopic(ConsumerRecord<String, byte[]> record, String traceId, RateLimitException e) {
+        long delayMillis = e.getRetryAfterMillis() > 0 ? e.getRetryAfterMillis() : throttleDefaultWaitMs;
+        try {
+            RetryTier tier = retryTopicService.deferToRetryTopic(record, "Throttled: " + e.getMessage(), delayMillis);
+            log.warn("Message throttled, deferred to retry topic. traceId={}, tier={}, delay={}ms, error={}",
+                    traceId, tier, delayMillis, e.getMessage());
+            return true;
+        } catch (Exception sendError) {
+            log.error("Failed to send throttled message to retry topic, will redeliver. traceId={}", traceId, sendError);
+            return false;
+        }
+    }
+
+    /**
+     * 被限流的消息是否已超过累计延后处理的上限
+     */
+    private boolean deferralExceeded(long firstFailureAt) {
+        return throttleMaxDeferMs > 0 && System.currentTimeMillis() - firstFailureAt >= throttleMaxDeferMs;
+    }
+
+    /**
+     * 被限流超过 max-defer-ms 的消息写入死信队列，写入确认后才可以提交位点
+     *
+     * @return 写入结果；false时重新投递
+     */
+    private CompletableFuture<Boolean> sendThrottledToDeadLetterQueue(ConsumerRecord<String, byte[]> record,
+                                                                      String traceId, RateLimitException e,
+                                                                      int retryCount, long firstFailureAt) {
+        log.error("Message throttled for more than {}ms, sending to dead letter queue. traceId={}, error={}",
+                throttleMaxDeferMs, traceId, e.getMessage());
+        return deadLetterQueueService.sendToDeadLetterQueue(record.value(), traceId,
+                "Throttled for more than " + throttleMaxDeferMs + "ms: " + e.getMessage(), retryCount, firstFailureAt)
+                .thenApply(sent -> {
+                    if (sent) {
+                        deadLetterQueueService.clearRetryCount(record);
+                    }
+                    return sent;
+                });
+    }
+
+    /**
+     * 关闭重试主题时被限流：不计入重试次数，按限流结果给出的等待时间（不超过 max-wait-ms）延迟后再返回false，
+     * 由监听器回退位点重新投递，避免立即重新投递后再次被限流。等待通过延迟执行器完成，不占用工作线程
+     *
+     * @return 延迟后完成的结果，始终为false
+     */
+    private CompletableFuture<Boolean> delayRedelivery(String traceId, RateLimitException e) {
+        long retryAfterMillis = e.getRetryAfterMillis();
+        long waitMillis = Math.min(retryAfterMillis > 0 ? retryAfterMillis : throttleDefaultWaitMs, throttleMaxWaitMs);
+        log.warn("Message throttled, will redeliver in {}ms without counting a retry. traceId={}, error={}",
+                waitMillis, traceId, e.getMessage());
+        return CompletableFuture.supplyAsync(() -> false,
+                CompletableFuture.delayedExecutor(waitMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 处理可重试异常，检查重试次数，超过阈值则发送到死信队列
+     *
+     * @return 是否可以提交位点
+     */
+    private CompletableFuture<Boolean> handleRetryableException(ConsumerRecord<String, byte[]> record, String traceId,
+                                             RetryableException e) {
+        // 增加重试计数（按消息位置计数，未ack的消息重新拉取时位置不变）
+        int retryCount = deadLetterQueueService.incrementRetryCount(record);
+        int maxRetryCount = deadLetterQueueService.getMaxRetryCount();
+
+        if (retryCount >= maxRetryCount) {
+            // 超过最大重试次数，发送到死信队列
+            log.error("Max retry count exceeded, sending to dead letter queue. traceId={}, retryCount={}/{}",
+                    traceId, retryCount, maxRetryCount);
+            return deadLetterQueueService.sendToDeadLetterQueue(record.value(), traceId, e.getMessage(), retryCount,
+                    deadLetterQueueService.getFirstFailureAt(record)).thenApply(sent -> {
+                        // 死信写入失败时保留重试状态不ack，重新拉取后再次发送
+                        if (sent) {
+                            deadLetterQueueService.clearRetryCount(record);
+                        }
+                        return sent;
+                    });
+        }
+        // 未超过最大重试次数，不进行ack，触发Kafka重试
+        log.warn("Retryable error occurred, will retry. traceId={}, retryCount={}/{}, error={}",
+                traceId, retryCount, maxRetryCount, e.getMessage());
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * 解析消息体
+     */
+    public AdapterMessage parse(byte[] originalMessage) throws IOException {
+        if (!streamingExtract) {
+            return objectMapper.readValue(originalMessage, AdapterMessage.class);
+        }
+        AdapterMessage message = envelopeReader.readValue(originalMessage);
+        message.setRawMessage(originalMessage);
+        return message;
+    }
+
+    private void validateMessage(AdapterMessage message) {
+        if (!StringUtils.hasText(message.getTenantCode())) {
+            throw new IllegalArgumentException("tenantCode is required");
+        }
+        if (!StringUtils.hasText(message.getApiCode())) {
+            throw new IllegalArgumentException("apiCode is required");
+        }
+    }
+
+    /**
+     * 信封解析时跳过 messageBody
+     */
+    @JsonIgnoreProperties({"messageBody"})
+    private abstract static class EnvelopeMixIn {
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.constant.ConsumeMode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步消费监听器（adapter.kafka.consume-mode=ASYNC）
+ *
+ * <p>消费线程只负责发起处理，HTTP调用在OkHttp Dispatcher上异步执行，完成后再ack。
+ * 同时处理中的消息数由 adapter.kafka.async.max-in-flight 限制，达到上限时消费线程等待。</p>
+ *
+ * <p>异步ack模式下容器不支持 nack，需要重新投递的消息（如重试主题、死信队列写入失败）在本节点延迟
+ * redelivery-delay-ms 后重新处理，直到可以ack为止，期间一直占用并发名额；未ack前容器不会提交越过它的位点，
+ * 节点宕机后由Kafka重新投递。</p>
+ *
+ * <p>分区被回收（再均衡、停止消费）后不再重新处理该分区的消息并归还并发名额，由分区的新消费者从已提交位点重新投递；
+ * 分配关系通过 {@link ConsumerAwareRebalanceListener} 跟踪（见 KafkaConsumerConfig 中的异步消费容器）。</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "adapter.kafka.consume-mode", havingValue = ConsumeMode.ASYNC)
+public class AsyncAdapterMessageListener implements ConsumerAwareRebalanceListener {
+
+    private final AdapterMessageHandler messageHandler;
+
+    @Value("${adapter.kafka.async.max-in-flight:1000}")
+    private int maxInFlight;
+
+    @Value("${adapter.kafka.async.redelivery-delay-ms:1000}")
+    private long redeliveryDelayMs;
+
+    private Semaphore inFlight;
+
+    /**
+     * 本节点当前分配到的分区 -> 分配序号；分区被回收后重新分配时序号不同，回收前的消息不再重新处理
+     */
+    private final Map<TopicPartition, Long> assignments = new ConcurrentHashMap<>();
+
+    private final AtomicLong assignmentSequence = new AtomicLong();
+
+    private volatile boolean stopped;
+
+    public AsyncAdapterMessageListener(AdapterMessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    @KafkaListener(topics = "${adapter.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "asyncKafkaListenerContainerFactory")
+    public void onMessage(ConsumerRecord<String, byte[]> record, Acknowledgment ack) throws InterruptedException {
+        inFlight.acquire();
+        process(record, ack, assignments.get(partitionOf(record)));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            assignments.put(partition, assignmentSequence.incrementAndGet());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        partitions.forEach(assignments::remove);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @param assignment 收到消息时分区的分配序号
+     */
+    private void process(ConsumerRecord<String, byte[]> record, Acknowledgment ack, Long assignment) {
+        messageHandler.handleAsync(record).whenComplete((commit, error) -> {
+            if (Boolean.TRUE.equals(commit)) {
+                inFlight.release();
+                ack.acknowledge();
+                return;
+            }
+            if (!isAssigned(record, assignment)) {
+                abandon(record);
+                return;
+            }
+            // 不ack会在已提交位点之后留下永久空洞，延迟后在本节点重新处理
+            log.warn("Async record needs redelivery, reprocessing in {}ms. partition={}, offset={}",
+                    redeliveryDelayMs, record.partition(), record.offset(), error);
+            CompletableFuture.delayedExecutor(redeliveryDelayMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (isAssigned(record, assignment)) {
+                    process(record, ack, assignment);
+                } else {
+                    abandon(record);
+                }
+            });
+        });
+    }
+
+    /**
+     * 分区是否仍由本节点消费，且不是回收后重新分配的
+     */
+    private boolean isAssigned(ConsumerRecord<String, byte[]> record, Long assignment) {
+        return !stopped && assignment != null && assignment.equals(assignments.get(partitionOf(record)));
+    }
+
+    /**
+     * 分区已被回收或正在停止：放弃重新处理并归还并发名额，消息未ack，由分区的新消费者重新投递
+     */
+    private void abandon(ConsumerRecord<String, byte[]> record) {
+        inFlight.release();
+        log.warn("Partition revoked or consumer stopping, giving up redelivery on this node. partition={}, offset={}",
+                record.partition(), record.offset());
+    }
+
+    private static TopicPartition partitionOf(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+}
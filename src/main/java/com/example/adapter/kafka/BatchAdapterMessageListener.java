@@ -0,0 +1,63 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.constant.ConsumeMode;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 批量消费监听器（adapter.kafka.consume-mode=BATCH）
+ *
+ * <p>一次poll的消息分发到有界工作线程池并发处理，全部结束后按分区提交连续完成的最大位点，
+ * 未完成的分区回退到第一个未完成的位点，下次poll重新投递；其后已经完成的消息随之被重新拉取时
+ * 直接标记完成，不重复处理（见 {@link CompletedAheadOffsets}）。</p>
+ */
+@Component
+@ConditionalOnProperty(name = "adapter.kafka.consume-mode", havingValue = ConsumeMode.BATCH)
+public class BatchAdapterMessageListener {
+
+    private final AdapterMessageHandler messageHandler;
+    private final Executor workerExecutor;
+    private final CompletedAheadOffsets completedAhead = new CompletedAheadOffsets();
+
+    public BatchAdapterMessageListener(AdapterMessageHandler messageHandler,
+                                       @Qualifier("adapterWorkerExecutor") Executor workerExecutor) {
+        this.messageHandler = messageHandler;
+        this.workerExecutor = workerExecutor;
+    }
+
+    @KafkaListener(topics = "${adapter.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void onMessages(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (completedAhead.contains(record)) {
+                tracker.complete(record);
+                continue;
+            }
+            // 工作线程只执行HTTP调用，死信写入不等待确认，所有写入确认后再统一提交
+            futures.add(CompletableFuture.supplyAsync(() -> messageHandler.handle(record), workerExecutor)
+                    .thenCompose(Function.identity())
+                    .thenAccept(commit -> {
+                        if (commit) {
+                            tracker.complete(record);
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        tracker.commit(consumer);
+        completedAhead.remember(tracker);
+    }
+}
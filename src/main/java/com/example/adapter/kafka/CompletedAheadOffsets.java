@@ -0,0 +1,50 @@
+package com.example.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 回退位点后会被重新拉取、但已经处理完成的位点
+ *
+ * <p>一批消息存在未完成的消息时，分区回退到第一个未完成的位点，其后已经完成的消息会一并拉回。
+ * 这些位点记录在本节点，重新拉取时直接标记完成，不重复处理（发生再均衡后由新节点重新处理，仍为至少一次）。
+ * 每个分区只由一个消费线程读写。</p>
+ */
+public class CompletedAheadOffsets {
+
+    private final Map<TopicPartition, NavigableSet<Long>> offsets = new ConcurrentHashMap<>();
+
+    /**
+     * 消息是否在回退前已经处理完成
+     */
+    public boolean contains(ConsumerRecord<?, ?> record) {
+        Set<Long> done = offsets.get(new TopicPartition(record.topic(), record.partition()));
+        return done != null && done.contains(record.offset());
+    }
+
+    /**
+     * 一批消息提交后，记录各分区下次拉取位点之后已完成的位点，已被提交越过的位点不再保留
+     */
+    public void remember(PartitionOffsetTracker tracker) {
+        for (Map.Entry<TopicPartition, Long> entry : tracker.nextOffsets().entrySet()) {
+            TopicPartition partition = entry.getKey();
+            long nextOffset = entry.getValue();
+            NavigableSet<Long> ahead = new TreeSet<>(tracker.completedFrom(partition, nextOffset));
+            NavigableSet<Long> previous = offsets.get(partition);
+            if (previous != null) {
+                ahead.addAll(previous.tailSet(nextOffset, true));
+            }
+            if (ahead.isEmpty()) {
+                offsets.remove(partition);
+            } else {
+                offsets.put(partition, ahead);
+            }
+        }
+    }
+}
@@ -2,26 +2,39 @@ package com.example.adapter.kafka;
 
 import com.example.adapter.dto.DeadLetterMessage;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 死信队列服务 - 处理重试多次仍失败的消息
+ *
+ * <p>关闭重试主题时重试次数和首次失败时间按消息位置记录在本节点内存中；
+ * 开启重试主题时重试次数和首次失败时间在消息头中（见 {@link RetryTopicService}）。</p>
+ *
+ * <p>死信消息通过单独的压缩生产者异步发送（见 {@link com.example.adapter.config.KafkaProducerConfig}），
+ * 不阻塞调用线程；调用方收集一批消息的写入结果，确认后才提交源消息位点，发送失败或超时时源消息重新投递。</p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DeadLetterQueueService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final StringRedisTemplate redisTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final ObjectMapper objectMapper;
 
     @Value("${adapter.kafka.dead-letter-topic:http-adapter-request-dlq}")
@@ -30,81 +43,135 @@ public class DeadLetterQueueService {
     @Value("${adapter.kafka.max-retry-count:3}")
     private int maxRetryCount;
 
-    private static final String RETRY_COUNT_KEY_PREFIX = "adapter:retry:";
-    private static final long RETRY_COUNT_EXPIRE_HOURS = 24;
+    @Value("${adapter.kafka.dead-letter.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private static final long RETRY_STATE_EXPIRE_HOURS = 24;
+
+    /**
+     * 关闭重试主题时的重试状态，按消息位置（topic-partition@offset）记录在本节点内存中。
+     * 未ack的消息由本节点重新拉取，位置不变；发生再均衡后新节点从0开始计数，最多多重试一轮
+     */
+    private final Cache<String, RetryState> retryStates = CacheBuilder.newBuilder()
+            .maximumSize(100000)
+            .expireAfterWrite(RETRY_STATE_EXPIRE_HOURS, TimeUnit.HOURS)
+            .build();
+
+    public DeadLetterQueueService(@Qualifier("deadLetterKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+                                  ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+    }
 
     /**
      * 增加重试次数并返回当前次数
      *
-     * @param messageKey 消息唯一标识（通常用 traceId 或 partition+offset）
+     * @param record 失败的消息
      * @return 当前重试次数
      */
-    public int incrementRetryCount(String messageKey) {
-        String key = RETRY_COUNT_KEY_PREFIX + messageKey;
-        Long count = redisTemplate.opsForValue().increment(key);
-        if (count != null && count == 1) {
-            redisTemplate.expire(key, RETRY_COUNT_EXPIRE_HOURS, TimeUnit.HOURS);
+    public int incrementRetryCount(ConsumerRecord<?, ?> record) {
+        try {
+            return retryStates.get(messageKey(record), RetryState::new).count.incrementAndGet();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 记录一次不计入重试次数的失败（如被限流），返回首次失败时间（毫秒时间戳）
+     */
+    public long markFailure(ConsumerRecord<?, ?> record) {
+        try {
+            return retryStates.get(messageKey(record), RetryState::new).firstFailureAt;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
-        return count != null ? count.intValue() : 1;
     }
 
     /**
      * 获取当前重试次数
      */
-    public int getRetryCount(String messageKey) {
-        String key = RETRY_COUNT_KEY_PREFIX + messageKey;
-        String value = redisTemplate.opsForValue().get(key);
-        return value != null ? Integer.parseInt(value) : 0;
+    public int getRetryCount(ConsumerRecord<?, ?> record) {
+        RetryState state = retryStates.getIfPresent(messageKey(record));
+        return state != null ? state.count.get() : 0;
     }
 
     /**
-     * 清除重试计数（处理成功时调用）
+     * 获取首次失败时间（毫秒时间戳），没有失败记录时返回当前时间
      */
-    public void clearRetryCount(String messageKey) {
-        String key = RETRY_COUNT_KEY_PREFIX + messageKey;
-        redisTemplate.delete(key);
+    public long getFirstFailureAt(ConsumerRecord<?, ?> record) {
+        RetryState state = retryStates.getIfPresent(messageKey(record));
+        return state != null ? state.firstFailureAt : System.currentTimeMillis();
+    }
+
+    /**
+     * 清除重试状态（处理成功或进入死信队列时调用），只操作本地内存
+     */
+    public void clearRetryCount(ConsumerRecord<?, ?> record) {
+        retryStates.invalidate(messageKey(record));
     }
 
     /**
      * 检查是否超过最大重试次数
      */
-    public boolean isExceededMaxRetry(String messageKey) {
-        return getRetryCount(messageKey) >= maxRetryCount;
+    public boolean isExceededMaxRetry(ConsumerRecord<?, ?> record) {
+        return getRetryCount(record) >= maxRetryCount;
     }
 
     /**
-     * 发送消息到死信队列
+     * 发送消息到死信队列，不等待Kafka确认，调用方在确认后再提交源消息位点
      *
      * @param originalMessage 原始消息内容
      * @param traceId         链路追踪ID
      * @param errorMessage    错误信息
      * @param retryCount      重试次数
+     * @param firstFailureAt  首次失败时间（毫秒时间戳）
+     * @return 写入结果：true-已确认写入；false-写入失败或 send-timeout-ms 内未确认，不能提交源消息位点
      */
-    public void sendToDeadLetterQueue(String originalMessage, String traceId,
-                                       String errorMessage, int retryCount) {
+    public CompletableFuture<Boolean> sendToDeadLetterQueue(byte[] originalMessage, String traceId,
+                                                            String errorMessage, int retryCount, long firstFailureAt) {
+        CompletableFuture<SendResult<String, byte[]>> future;
         try {
             DeadLetterMessage dlqMessage = new DeadLetterMessage();
-            dlqMessage.setOriginalMessage(originalMessage);
+            dlqMessage.setOriginalMessage(originalMessage != null
+                    ? new String(originalMessage, StandardCharsets.UTF_8) : null);
             dlqMessage.setTraceId(traceId);
             dlqMessage.setErrorMessage(errorMessage);
             dlqMessage.setRetryCount(retryCount);
             dlqMessage.setFailedTime(LocalDateTime.now());
+            dlqMessage.setFirstFailedTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(firstFailureAt),
+                    ZoneId.systemDefault()));
 
-            String messageJson = objectMapper.writeValueAsString(dlqMessage);
-            kafkaTemplate.send(deadLetterTopic, traceId, messageJson);
-
-            log.warn("Message sent to dead letter queue, traceId={}, retryCount={}, error={}",
-                    traceId, retryCount, errorMessage);
-
-            // 清除重试计数
-            clearRetryCount(traceId);
-
+            byte[] messageJson = objectMapper.writeValueAsBytes(dlqMessage);
+            future = kafkaTemplate.send(deadLetterTopic, traceId, messageJson).completable();
         } catch (Exception e) {
             log.error("Failed to send message to dead letter queue, traceId={}", traceId, e);
+            return CompletableFuture.completedFuture(false);
         }
+
+        // 同一批消息的死信写入并发进行，由生产者按 linger-ms 合并批次
+        return future.orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).handle((result, ex) -> {
+            if (ex != null) {
+                log.error("Dead letter queue write failed, traceId={}, error={}", traceId, ex.toString());
+                return false;
+            }
+            log.warn("Message sent to dead letter queue, traceId={}, retryCount={}, offset={}, error={}",
+                    traceId, retryCount, result.getRecordMetadata().offset(), errorMessage);
+            return true;
+        });
     }
 
     public int getMaxRetryCount() {
         return maxRetryCount;
     }
+
+    private String messageKey(ConsumerRecord<?, ?> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset();
+    }
+
+    private static final class RetryState {
+
+        private final AtomicInteger count = new AtomicInteger();
+        private final long firstFailureAt = System.currentTimeMillis();
+    }
 }
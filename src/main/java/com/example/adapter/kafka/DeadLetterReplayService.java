@@ -0,0 +1,483 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.common.exception.RateLimitException;
+import com.example.adapter.dto.AdapterMessage;
+import com.example.adapter.dto.DeadLetterMessage;
+import com.example.adapter.dto.DeadLetterReplayRequest;
+import com.example.adapter.dto.DeadLetterReplayStatus;
+import com.example.adapter.dto.DeadLetterReplayStatus.State;
+import com.example.adapter.service.AdapterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 死信重放服务 - 按位点或时间范围读取死信队列，按租户、接口、错误信息过滤后，
+ * 以限定的速率和并发数重新交给 {@link AdapterService} 处理
+ *
+ * <p>使用单独的消费组（adapter.kafka.dead-letter.replay.group-id）手动分配全部分区，
+ * 每批消息处理完成后提交各分区连续完成的最大位点作为检查点，暂停后可从检查点继续。
+ * 重放仍失败的消息重新写入死信队列，写入失败的消息不越过检查点，下一批重新处理，
+ * 其后已经重放完成的消息不重复重放。
+ * 重放任务只在发起请求的节点上运行，同一时间只允许一个任务。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadLetterReplayService {
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final AdapterService adapterService;
+    private final DeadLetterQueueService deadLetterQueueService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${adapter.kafka.dead-letter-topic:http-adapter-request-dlq}")
+    private String deadLetterTopic;
+
+    @Value("${adapter.kafka.dead-letter.replay.group-id:http-adapter-dlq-replay}")
+    private String groupId;
+
+    @Value("${adapter.kafka.dead-letter.replay.rate:50}")
+    private int defaultRate;
+
+    @Value("${adapter.kafka.dead-letter.replay.concurrency:4}")
+    private int defaultConcurrency;
+
+    @Value("${adapter.kafka.dead-letter.replay.max-poll-records:100}")
+    private int maxPollRecords;
+
+    @Value("${adapter.kafka.dead-letter.replay.poll-timeout-ms:1000}")
+    private long pollTimeoutMs;
+
+    @Value("${adapter.rate-limit.throttle.default-wait-ms:100}")
+    private long throttleDefaultWaitMs;
+
+    private ReplayTask task;
+
+    /**
+     * 启动新的重放任务
+     *
+     * @throws BusinessException 已有任务正在运行
+     */
+    public synchronized DeadLetterReplayStatus start(DeadLetterReplayRequest request) {
+        if (task != null && task.isActive()) {
+            throw new BusinessException(ErrorCode.DLQ_REPLAY_STATE_ERROR, "死信重放任务正在运行");
+        }
+        task = new ReplayTask(request);
+        task.launch(false);
+        return task.status();
+    }
+
+    /**
+     * 暂停重放：不再派发新消息，正在处理的一批完成后提交检查点
+     */
+    public synchronized DeadLetterReplayStatus pause() {
+        if (task == null || task.state != State.RUNNING) {
+            throw new BusinessException(ErrorCode.DLQ_REPLAY_STATE_ERROR, "没有正在运行的死信重放任务");
+        }
+        task.state = State.PAUSING;
+        return task.status();
+    }
+
+    /**
+     * 从检查点继续已暂停（或异常中止）的任务，沿用原有的过滤条件和结束位置
+     */
+    public synchronized DeadLetterReplayStatus resume() {
+        if (task == null || (task.state != State.PAUSED && task.state != State.FAILED)) {
+            throw new BusinessException(ErrorCode.DLQ_REPLAY_STATE_ERROR, "没有已暂停的死信重放任务");
+        }
+        task.launch(true);
+        return task.status();
+    }
+
+    public synchronized DeadLetterReplayStatus getStatus() {
+        if (task == null) {
+            DeadLetterReplayStatus status = new DeadLetterReplayStatus();
+            status.setState(State.IDLE);
+            return status;
+        }
+        return task.status();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ReplayTask current;
+        synchronized (this) {
+            current = task;
+            if (current == null || current.state != State.RUNNING) {
+                return;
+            }
+            current.state = State.PAUSING;
+        }
+        current.thread.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private final class ReplayTask {
+
+        private final DeadLetterReplayRequest request;
+        private final int rate;
+        private final int concurrency;
+        private final LocalDateTime startTime = LocalDateTime.now();
+
+        private volatile State state;
+        private volatile LocalDateTime endTime;
+        private volatile String lastError;
+        private Thread thread;
+
+        /**
+         * 各分区的结束位点（不含），首次启动时确定，继续时沿用
+         */
+        private volatile Map<TopicPartition, Long> endOffsets;
+
+        private final Map<Integer, Long> checkpoints = new ConcurrentHashMap<>();
+
+        /**
+         * 检查点之后已经重放完成的位点，回退重新拉取时不重复重放；暂停后继续时沿用
+         */
+        private final CompletedAheadOffsets completedAhead = new CompletedAheadOffsets();
+
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        ReplayTask(DeadLetterReplayRequest request) {
+            this.request = request;
+            this.rate = request.getRate() != null ? request.getRate() : defaultRate;
+            this.concurrency = request.getConcurrency() != null ? request.getConcurrency() : defaultConcurrency;
+        }
+
+        boolean isActive() {
+            return state == State.RUNNING || state == State.PAUSING;
+        }
+
+        void launch(boolean resume) {
+            state = State.RUNNING;
+            endTime = null;
+            thread = new Thread(() -> run(resume), "dlq-replay");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run(boolean resume) {
+            log.info("Dead letter replay {}, request={}", resume ? "resumed" : "started", request);
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency,
+                    new CustomizableThreadFactory("dlq-replay-worker-"));
+            Properties overrides = new Properties();
+            overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+            overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+            overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+            try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(groupId, null, "-dlq-replay", overrides)) {
+                List<TopicPartition> partitions = consumer.partitionsFor(deadLetterTopic).stream()
+                        .map(info -> new TopicPartition(info.topic(), info.partition()))
+                        .collect(Collectors.toList());
+                consumer.assign(partitions);
+                if (endOffsets == null) {
+                    endOffsets = resolveEndOffsets(consumer, partitions);
+                }
+                if (resume) {
+                    seekToCheckpoint(consumer, partitions);
+                } else {
+                    seekToStart(consumer, partitions);
+                }
+
+                RateLimiter rateLimiter = RateLimiter.create(rate);
+                Semaphore slots = new Semaphore(concurrency);
+                while (state == State.RUNNING) {
+                    List<TopicPartition> remaining = new ArrayList<>();
+                    for (TopicPartition partition : partitions) {
+                        long position = consumer.position(partition);
+                        checkpoints.put(partition.partition(), position);
+                        if (position < endOffsets.get(partition)) {
+                            remaining.add(partition);
+                        }
+                    }
+                    if (remaining.isEmpty()) {
+                        state = State.COMPLETED;
+                        break;
+                    }
+                    consumer.pause(partitions.stream().filter(p -> !remaining.contains(p)).collect(Collectors.toList()));
+
+                    ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofMillis(pollTimeoutMs));
+                    List<ConsumerRecord<String, byte[]>> batch = new ArrayList<>(records.count());
+                    for (ConsumerRecord<String, byte[]> record : records) {
+                        if (record.offset() < endOffsets.get(new TopicPartition(record.topic(), record.partition()))) {
+                            batch.add(record);
+                        }
+                    }
+                    if (batch.isEmpty()) {
+                        continue;
+                    }
+                    replayBatch(consumer, batch, rateLimiter, slots, workers);
+                }
+            } catch (Exception e) {
+                log.error("Dead letter replay aborted", e);
+                lastError = e.getMessage();
+                state = State.FAILED;
+            } finally {
+                workers.shutdown();
+                if (state == State.PAUSING) {
+                    state = State.PAUSED;
+                }
+                endTime = LocalDateTime.now();
+                log.info("Dead letter replay {}, scanned={}, skipped={}, succeeded={}, failed={}, checkpoints={}",
+                        state, scanned.get(), skipped.get(), succeeded.get(), failed.get(), checkpoints);
+            }
+        }
+
+        /**
+         * 重放一批消息，全部结束后提交检查点；暂停时未派发的消息不越过检查点
+         */
+        private void replayBatch(Consumer<String, byte[]> consumer, List<ConsumerRecord<String, byte[]>> batch,
+                                 RateLimiter rateLimiter, Semaphore slots, ExecutorService workers)
+                throws InterruptedException {
+            PartitionOffsetTracker tracker = new PartitionOffsetTracker(batch);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+            for (ConsumerRecord<String, byte[]> record : batch) {
+                if (state != State.RUNNING) {
+                    break;
+                }
+                if (completedAhead.contains(record)) {
+                    tracker.complete(record);
+                    continue;
+                }
+                scanned.incrementAndGet();
+                DeadLetterMessage deadLetter = parse(record);
+                AdapterMessage message = deadLetter != null ? toAdapterMessage(deadLetter) : null;
+                if (message == null || !matches(deadLetter, message)) {
+                    skipped.incrementAndGet();
+                    tracker.complete(record);
+                    continue;
+                }
+
+                slots.acquire();
+                rateLimiter.acquire();
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return replay(deadLetter, message);
+                    } finally {
+                        slots.release();
+                    }
+                }, workers).thenCompose(Function.identity()).thenAccept(done -> {
+                    if (done) {
+                        tracker.complete(record);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+            tracker.commit(consumer);
+            completedAhead.remember(tracker);
+            for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : tracker.committableOffsets().entrySet()) {
+                checkpoints.put(entry.getKey().partition(), entry.getValue().offset());
+            }
+        }
+
+        /**
+         * 重放单条消息，被限流时等待后重试，不计为失败
+         *
+         * @return 是否处理结束（成功，或失败后已重新写入死信队列），重新写入死信队列时在写入确认后完成
+         */
+        private CompletableFuture<Boolean> replay(DeadLetterMessage deadLetter, AdapterMessage message) {
+            MDC.put("traceId", message.getTraceId());
+            try {
+                while (true) {
+                    try {
+                        adapterService.process(message);
+                        succeeded.incrementAndGet();
+                        log.info("Dead letter message replayed, traceId={}", message.getTraceId());
+                        return CompletableFuture.completedFuture(true);
+                    } catch (RateLimitException e) {
+                        if (state != State.RUNNING) {
+                            return CompletableFuture.completedFuture(false);
+                        }
+                        long waitMillis = e.getRetryAfterMillis() > 0 ? e.getRetryAfterMillis() : throttleDefaultWaitMs;
+                        TimeUnit.MILLISECONDS.sleep(waitMillis);
+                    } catch (Exception e) {
+                        lastError = e.getMessage();
+                        log.warn("Dead letter message replay failed, traceId={}, error={}",
+                                message.getTraceId(), e.getMessage());
+                        return deadLetterQueueService.sendToDeadLetterQueue(
+                                deadLetter.getOriginalMessage().getBytes(StandardCharsets.UTF_8),
+                                message.getTraceId(), e.getMessage(), deadLetter.getRetryCount() + 1,
+                                firstFailureAt(deadLetter)).thenApply(sent -> {
+                                    if (sent) {
+                                        failed.incrementAndGet();
+                                    }
+                                    return sent;
+                                });
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.completedFuture(false);
+            } finally {
+                MDC.remove("traceId");
+            }
+        }
+
+        private boolean matches(DeadLetterMessage deadLetter, AdapterMessage message) {
+            if (StringUtils.hasText(request.getTenantCode()) && !request.getTenantCode().equals(message.getTenantCode())) {
+                return false;
+            }
+            if (StringUtils.hasText(request.getApiCode()) && !request.getApiCode().equals(message.getApiCode())) {
+                return false;
+            }
+            return !StringUtils.hasText(request.getErrorKeyword())
+                    || (deadLetter.getErrorMessage() != null && deadLetter.getErrorMessage().contains(request.getErrorKeyword()));
+        }
+
+        private void seekToStart(Consumer<String, byte[]> consumer, List<TopicPartition> partitions) {
+            if (request.getFromOffset() != null) {
+                for (TopicPartition partition : partitions) {
+                    consumer.seek(partition, request.getFromOffset());
+                }
+            } else if (request.getFromTime() != null) {
+                Map<TopicPartition, Long> offsets = offsetsForTime(consumer, partitions, request.getFromTime());
+                offsets.forEach(consumer::seek);
+            } else {
+                seekToCheckpoint(consumer, partitions);
+            }
+        }
+
+        /**
+         * 从消费组已提交的检查点继续，没有检查点的分区从最早的消息开始
+         */
+        private void seekToCheckpoint(Consumer<String, byte[]> consumer, List<TopicPartition> partitions) {
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+            List<TopicPartition> uncommitted = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndMetadata offset = committed.get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset.offset());
+                } else {
+                    uncommitted.add(partition);
+                }
+            }
+            if (!uncommitted.isEmpty()) {
+                consumer.seekToBeginning(uncommitted);
+            }
+        }
+
+        private Map<TopicPartition, Long> resolveEndOffsets(Consumer<String, byte[]> consumer,
+                                                            List<TopicPartition> partitions) {
+            Map<TopicPartition, Long> ends = new HashMap<>(consumer.endOffsets(partitions));
+            if (request.getToOffset() != null) {
+                ends.replaceAll((partition, end) -> Math.min(end, request.getToOffset()));
+            }
+            if (request.getToTime() != null) {
+                Map<TopicPartition, Long> timeEnds = offsetsForTime(consumer, partitions, request.getToTime());
+                ends.replaceAll((partition, end) -> Math.min(end, timeEnds.get(partition)));
+            }
+            return ends;
+        }
+
+        /**
+         * 各分区中时间不早于 time 的第一条消息的位点，没有时为分区末尾
+         */
+        private Map<TopicPartition, Long> offsetsForTime(Consumer<String, byte[]> consumer,
+                                                         Collection<TopicPartition> partitions, LocalDateTime time) {
+            long timestamp = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            Map<TopicPartition, Long> query = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                query.put(partition, timestamp);
+            }
+            Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+            Map<TopicPartition, Long> ends = consumer.endOffsets(partitions);
+            Map<TopicPartition, Long> offsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp offset = found.get(partition);
+                offsets.put(partition, offset != null ? offset.offset() : ends.get(partition));
+            }
+            return offsets;
+        }
+
+        DeadLetterReplayStatus status() {
+            DeadLetterReplayStatus status = new DeadLetterReplayStatus();
+            status.setState(state);
+            status.setRequest(request);
+            status.setStartTime(startTime);
+            status.setEndTime(endTime);
+            status.setScanned(scanned.get());
+            status.setSkipped(skipped.get());
+            status.setSucceeded(succeeded.get());
+            status.setFailed(failed.get());
+            status.setCheckpoints(new TreeMap<>(checkpoints));
+            status.setLastError(lastError);
+            return status;
+        }
+    }
+
+    private DeadLetterMessage parse(ConsumerRecord<String, byte[]> record) {
+        try {
+            return objectMapper.readValue(record.value(), DeadLetterMessage.class);
+        } catch (Exception e) {
+            log.warn("Skip unparseable dead letter message, partition={}, offset={}, error={}",
+                    record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    private AdapterMessage toAdapterMessage(DeadLetterMessage deadLetter) {
+        if (!StringUtils.hasText(deadLetter.getOriginalMessage())) {
+            return null;
+        }
+        try {
+            AdapterMessage message = objectMapper.readValue(deadLetter.getOriginalMessage(), AdapterMessage.class);
+            if (!StringUtils.hasText(message.getTraceId())) {
+                message.setTraceId(deadLetter.getTraceId());
+            }
+            return message;
+        } catch (Exception e) {
+            log.warn("Skip dead letter message with unparseable original message, traceId={}, error={}",
+                    deadLetter.getTraceId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private long firstFailureAt(DeadLetterMessage deadLetter) {
+        LocalDateTime time = deadLetter.getFirstFailedTime() != null
+                ? deadLetter.getFirstFailedTime() : deadLetter.getFailedTime();
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+    }
+}
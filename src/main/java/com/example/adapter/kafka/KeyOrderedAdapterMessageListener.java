@@ -0,0 +1,132 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.constant.ConsumeMode;
+import com.example.adapter.dto.AdapterMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 按键有序消费监听器（adapter.kafka.consume-mode=KEY_ORDERED）
+ *
+ * <p>一次poll的消息按 tenantCode + apiCode 划分为多条通道，每条通道内的消息按位点顺序串行处理，
+ * 不同通道共享工作线程池并发处理。某租户的下游变慢只会阻塞自己的通道。</p>
+ *
+ * <p>失败或被限流的消息不投递重试主题（否则同键的后续消息会先于它处理），而是在通道内等待后重新投递，
+ * 该通道后续的消息不再处理，以保证同键有序；位点按分区只提交所有通道都已完成的连续部分。</p>
+ *
+ * <p>回退位点重新拉取时，其他通道在被阻塞消息之后已经完成的消息会一并拉回，
+ * 这些消息直接标记完成，不重复处理（见 {@link CompletedAheadOffsets}）。</p>
+ *
+ * <p>限制：一次poll的所有通道都结束后才提交并进行下一次poll，最慢的通道决定本批次耗时。
+ * 单条消息最长耗时为HTTP超时加通道内等待（限流 max-wait-ms、重试 retry-backoff-ms × 重试次数），
+ * 需保证 max-poll-records × 单条最长耗时 小于 max.poll.interval.ms，否则消费者会被踢出消费组；
+ * 同键消息集中时应调小 spring.kafka.consumer.max-poll-records。</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "adapter.kafka.consume-mode", havingValue = ConsumeMode.KEY_ORDERED)
+public class KeyOrderedAdapterMessageListener {
+
+    /**
+     * 无法解析的消息统一放入该通道，由处理器按解析失败处理
+     */
+    private static final String UNPARSEABLE_LANE = "";
+
+    private final AdapterMessageHandler messageHandler;
+    private final Executor workerExecutor;
+
+    private final CompletedAheadOffsets completedAhead = new CompletedAheadOffsets();
+
+    public KeyOrderedAdapterMessageListener(AdapterMessageHandler messageHandler,
+                                            @Qualifier("adapterWorkerExecutor") Executor workerExecutor) {
+        this.messageHandler = messageHandler;
+        this.workerExecutor = workerExecutor;
+    }
+
+    @KafkaListener(topics = "${adapter.kafka.topic}", groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void onMessages(List<ConsumerRecord<String, byte[]>> records, Consumer<?, ?> consumer) {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+
+        Map<String, List<LaneRecord>> lanes = new LinkedHashMap<>();
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (completedAhead.contains(record)) {
+                tracker.complete(record);
+                continue;
+            }
+            AdapterMessage message = tryParse(record);
+            String laneKey = message != null ? message.getTenantCode() + ":" + message.getApiCode() : UNPARSEABLE_LANE;
+            lanes.computeIfAbsent(laneKey, k -> new ArrayList<>()).add(new LaneRecord(record, message));
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(lanes.size());
+        for (Map.Entry<String, List<LaneRecord>> lane : lanes.entrySet()) {
+            futures.add(CompletableFuture.supplyAsync(() -> runLane(lane.getKey(), lane.getValue(), tracker),
+                    workerExecutor).thenCompose(Function.identity()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        tracker.commit(consumer);
+        completedAhead.remember(tracker);
+    }
+
+    /**
+     * 按位点顺序处理一条通道的消息
+     *
+     * @return 通道内正在写入死信队列的消息，写入确认后标记完成
+     */
+    private CompletableFuture<Void> runLane(String laneKey, List<LaneRecord> lane, PartitionOffsetTracker tracker) {
+        List<CompletableFuture<Void>> deadLetterWrites = new ArrayList<>();
+        for (int i = 0; i < lane.size(); i++) {
+            LaneRecord laneRecord = lane.get(i);
+            CompletableFuture<Boolean> result = messageHandler.handleOrdered(laneRecord.record, laneRecord.message);
+            if (!result.isDone()) {
+                // 进入死信队列的消息不再参与排序，不等待写入确认，继续处理同键的后续消息
+                deadLetterWrites.add(result.thenAccept(commit -> {
+                    if (commit) {
+                        tracker.complete(laneRecord.record);
+                    }
+                }));
+                continue;
+            }
+            if (!result.join()) {
+                log.warn("Lane blocked by record pending redelivery, skipping remaining records. lane={}, skipped={}",
+                        laneKey, lane.size() - i - 1);
+                break;
+            }
+            tracker.complete(laneRecord.record);
+        }
+        return CompletableFuture.allOf(deadLetterWrites.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private AdapterMessage tryParse(ConsumerRecord<String, byte[]> record) {
+        try {
+            return messageHandler.parse(record.value());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static class LaneRecord {
+        private final ConsumerRecord<String, byte[]> record;
+        private final AdapterMessage message;
+
+        LaneRecord(ConsumerRecord<String, byte[]> record, AdapterMessage message) {
+            this.record = record;
+            this.message = message;
+        }
+    }
+}
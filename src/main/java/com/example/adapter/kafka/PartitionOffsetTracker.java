@@ -0,0 +1,127 @@
+package com.example.adapter.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 分区位点跟踪器 - 记录一批消息中每条消息的完成情况，
+ * 只允许提交每个分区中从起始位点开始连续完成的最大位点
+ */
+@Slf4j
+public class PartitionOffsetTracker {
+
+    /**
+     * 每个分区本批次的全部位点（有序）
+     */
+    private final Map<TopicPartition, TreeSet<Long>> pending = new HashMap<>();
+
+    private final Map<TopicPartition, ConcurrentSkipListSet<Long>> completed = new ConcurrentHashMap<>();
+
+    public PartitionOffsetTracker(List<? extends ConsumerRecord<?, ?>> records) {
+        for (ConsumerRecord<?, ?> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            pending.computeIfAbsent(partition, p -> new TreeSet<>()).add(record.offset());
+            completed.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * 标记消息处理完成（线程安全）
+     */
+    public void complete(ConsumerRecord<?, ?> record) {
+        completed.get(new TopicPartition(record.topic(), record.partition())).add(record.offset());
+    }
+
+    /**
+     * 计算每个分区可提交的位点（连续完成的最大位点 + 1）
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, TreeSet<Long>> entry : pending.entrySet()) {
+            Long contiguous = highestContiguous(entry.getKey(), entry.getValue());
+            if (contiguous != null) {
+                offsets.put(entry.getKey(), new OffsetAndMetadata(contiguous + 1));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * 计算存在未完成消息的分区及其第一个未完成的位点，需要回退到该位点重新消费
+     */
+    public Map<TopicPartition, Long> firstIncompleteOffsets() {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, TreeSet<Long>> entry : pending.entrySet()) {
+            ConcurrentSkipListSet<Long> done = completed.get(entry.getKey());
+            for (Long offset : entry.getValue()) {
+                if (!done.contains(offset)) {
+                    offsets.put(entry.getKey(), offset);
+                    break;
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * 计算每个分区下次拉取的起始位点：第一个未完成的位点，全部完成时为本批次最大位点 + 1
+     */
+    public Map<TopicPartition, Long> nextOffsets() {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, TreeSet<Long>> entry : pending.entrySet()) {
+            offsets.put(entry.getKey(), entry.getValue().last() + 1);
+        }
+        offsets.putAll(firstIncompleteOffsets());
+        return offsets;
+    }
+
+    /**
+     * 分区内不小于 fromOffset 的已完成位点
+     */
+    public NavigableSet<Long> completedFrom(TopicPartition partition, long fromOffset) {
+        ConcurrentSkipListSet<Long> done = completed.get(partition);
+        return done != null ? done.tailSet(fromOffset, true) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * 提交各分区连续完成的最大位点，存在未完成消息的分区回退到第一个未完成的位点重新消费
+     *
+     * <p>必须在消费线程中调用</p>
+     */
+    public void commit(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets();
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+
+        for (Map.Entry<TopicPartition, Long> entry : firstIncompleteOffsets().entrySet()) {
+            log.warn("Batch has incomplete records, seeking back for redelivery. partition={}, offset={}",
+                    entry.getKey(), entry.getValue());
+            consumer.seek(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private Long highestContiguous(TopicPartition partition, TreeSet<Long> offsets) {
+        ConcurrentSkipListSet<Long> done = completed.get(partition);
+        Long highest = null;
+        for (Long offset : offsets) {
+            if (!done.contains(offset)) {
+                break;
+            }
+            highest = offset;
+        }
+        return highest;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.adapter.kafka;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 重试主题层级，主题名为 主Topic + 后缀，第N次重试投递到第N个层级（超出时使用最后一个层级）；
+ * 被限流延后处理的消息按需要等待的时间选择层级
+ */
+@Getter
+public enum RetryTier {
+
+    RETRY_5S("-retry-5s", Duration.ofSeconds(5)),
+    RETRY_30S("-retry-30s", Duration.ofSeconds(30)),
+    RETRY_5M("-retry-5m", Duration.ofMinutes(5));
+
+    private final String topicSuffix;
+    private final Duration delay;
+
+    RetryTier(String topicSuffix, Duration delay) {
+        this.topicSuffix = topicSuffix;
+        this.delay = delay;
+    }
+
+    /**
+     * 根据重试次数获取层级
+     *
+     * @param retryAttempt 第几次重试（从1开始）
+     */
+    public static RetryTier forAttempt(int retryAttempt) {
+        RetryTier[] tiers = values();
+        int index = Math.max(0, Math.min(retryAttempt - 1, tiers.length - 1));
+        return tiers[index];
+    }
+
+    /**
+     * 根据需要等待的时间获取层级：延迟不小于等待时间的最小层级，都小于等待时间时使用最后一个层级。
+     * 同一层级内到期时间不超过层级延迟，队首消息最多阻塞该层级一个层级延迟
+     *
+     * @param delayMillis 需要等待的毫秒数
+     */
+    public static RetryTier forDelay(long delayMillis) {
+        RetryTier[] tiers = values();
+        for (RetryTier tier : tiers) {
+            if (tier.delay.toMillis() >= delayMillis) {
+                return tier;
+            }
+        }
+        return tiers[tiers.length - 1];
+    }
+}
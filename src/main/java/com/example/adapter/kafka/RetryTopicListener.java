@@ -0,0 +1,58 @@
+package com.example.adapter.kafka;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 重试主题监听器 - 每个层级独立的监听容器，互不阻塞
+ *
+ * <p>同一层级的消息到期时间不晚于写入时间加层级延迟（被限流延后的消息可能更早到期），
+ * 队首消息最多等待一个层级延迟。队首消息未到期时，
+ * 通过 nack 回退位点并暂停该容器直到到期（暂停期间容器持续poll，不会触发rebalance）。</p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "adapter.kafka.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class RetryTopicListener {
+
+    private final AdapterMessageHandler messageHandler;
+    private final RetryTopicService retryTopicService;
+
+    @KafkaListener(id = "adapter-retry-5s", topics = "${adapter.kafka.topic}-retry-5s",
+            groupId = "${spring.kafka.consumer.group-id}", concurrency = "${adapter.kafka.retry.concurrency:1}")
+    public void onRetry5s(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        onRetry(record, ack);
+    }
+
+    @KafkaListener(id = "adapter-retry-30s", topics = "${adapter.kafka.topic}-retry-30s",
+            groupId = "${spring.kafka.consumer.group-id}", concurrency = "${adapter.kafka.retry.concurrency:1}")
+    public void onRetry30s(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        onRetry(record, ack);
+    }
+
+    @KafkaListener(id = "adapter-retry-5m", topics = "${adapter.kafka.topic}-retry-5m",
+            groupId = "${spring.kafka.consumer.group-id}", concurrency = "${adapter.kafka.retry.concurrency:1}")
+    public void onRetry5m(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        onRetry(record, ack);
+    }
+
+    private void onRetry(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
+        long waitMillis = retryTopicService.getDueAt(record) - System.currentTimeMillis();
+        if (waitMillis > 0) {
+            ack.nack(Duration.ofMillis(waitMillis));
+            return;
+        }
+        if (messageHandler.handle(record).join()) {
+            ack.acknowledge();
+        } else {
+            // 投递下一层级或死信失败，回退位点重新投递，不能跳过本条消息
+            ack.nack(Duration.ZERO);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.adapter.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 重试主题服务 - 将可重试的失败消息投递到延迟层级主题，重试次数和到期时间放在消息头中
+ *
+ * <p>主Topic上的消息失败后立即ack，不再阻塞分区；重试主题只在消息到期后才消费。</p>
+ */
+@Slf4j
+@Service
+public class RetryTopicService {
+
+    /**
+     * 消息头：已重试次数
+     */
+    public static final String HEADER_RETRY_ATTEMPT = "adapter-retry-attempt";
+
+    /**
+     * 消息头：到期时间（毫秒时间戳），到期前不消费
+     */
+    public static final String HEADER_RETRY_DUE_AT = "adapter-retry-due-at";
+
+    /**
+     * 消息头：最近一次失败原因
+     */
+    public static final String HEADER_RETRY_ERROR = "adapter-retry-error";
+
+    /**
+     * 消息头：首次失败时间（毫秒时间戳），各层级重试间保持不变
+     */
+    public static final String HEADER_FIRST_FAILURE_AT = "adapter-first-failure-at";
+
+    private static final String[] RETRY_HEADERS = {
+            HEADER_RETRY_ATTEMPT, HEADER_RETRY_DUE_AT, HEADER_RETRY_ERROR, HEADER_FIRST_FAILURE_AT
+    };
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Value("${adapter.kafka.topic}")
+    private String topic;
+
+    @Value("${adapter.kafka.retry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.kafka.retry.send-timeout-ms:5000}")
+    private long sendTimeoutMs;
+
+    /**
+     * 使用默认生产者：按泛型匹配时死信队列的生产者类型更精确，会优先于首选的默认生产者被注入
+     */
+    public RetryTopicService(@Qualifier("kafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getTopic(RetryTier tier) {
+        return topic + tier.getTopicSuffix();
+    }
+
+    /**
+     * 获取消息已重试次数，主Topic上的消息为0
+     */
+    public int getRetryAttempt(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, HEADER_RETRY_ATTEMPT);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    /**
+     * 获取消息到期时间，没有该消息头时视为已到期
+     */
+    public long getDueAt(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, HEADER_RETRY_DUE_AT);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * 获取首次失败时间，主Topic上的消息（本次即首次失败）返回当前时间
+     */
+    public long getFirstFailureAt(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, HEADER_FIRST_FAILURE_AT);
+        return value != null ? Long.parseLong(value) : System.currentTimeMillis();
+    }
+
+    /**
+     * 投递到重试主题，等待broker确认后返回
+     *
+     * @param record       当前消费的消息
+     * @param retryAttempt 本次是第几次重试（从1开始）
+     * @param errorMessage 失败原因
+     * @return 投递的层级
+     */
+    public RetryTier sendToRetryTopic(ConsumerRecord<String, byte[]> record, int retryAttempt,
+                                      String errorMessage) throws Exception {
+        RetryTier tier = RetryTier.forAttempt(retryAttempt);
+        send(record, tier, retryAttempt, System.currentTimeMillis() + tier.getDelay().toMillis(), errorMessage);
+        return tier;
+    }
+
+    /**
+     * 被限流的消息延后处理：按需要等待的时间选择层级，重试次数保持不变，不占用重试次数
+     *
+     * @param record       当前消费的消息
+     * @param errorMessage 限流原因
+     * @param delayMillis  需要等待的毫秒数（如下游要求的暂停时间）
+     * @return 投递的层级
+     */
+    public RetryTier deferToRetryTopic(ConsumerRecord<String, byte[]> record, String errorMessage,
+                                       long delayMillis) throws Exception {
+        RetryTier tier = RetryTier.forDelay(delayMillis);
+        send(record, tier, getRetryAttempt(record), System.currentTimeMillis() + delayMillis, errorMessage);
+        return tier;
+    }
+
+    private void send(ConsumerRecord<String, byte[]> record, RetryTier tier, int retryAttempt, long dueAt,
+                      String errorMessage) throws Exception {
+        // 保留原消息头（业务方传入的头等），替换上一次重试写入的重试头
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        for (String key : RETRY_HEADERS) {
+            headers.remove(key);
+        }
+        ProducerRecord<String, byte[]> retryRecord = new ProducerRecord<>(getTopic(tier), null, record.key(),
+                record.value(), headers);
+        retryRecord.headers().add(HEADER_RETRY_ATTEMPT, bytes(String.valueOf(retryAttempt)));
+        retryRecord.headers().add(HEADER_RETRY_DUE_AT, bytes(String.valueOf(dueAt)));
+        retryRecord.headers().add(HEADER_FIRST_FAILURE_AT, bytes(String.valueOf(getFirstFailureAt(record))));
+        if (errorMessage != null) {
+            retryRecord.headers().add(HEADER_RETRY_ERROR, bytes(errorMessage));
+        }
+
+        kafkaTemplate.send(retryRecord).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private String headerValue(ConsumerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
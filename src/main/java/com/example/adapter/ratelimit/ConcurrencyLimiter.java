@@ -0,0 +1,240 @@
+package com.example.adapter.ratelimit;
+
+import com.example.adapter.common.breaker.RedisCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 分布式并发限流 - Redis有序集合实现的信号量，成员为许可编号，分数为租约到期时间
+ *
+ * <p>节点定时续约持有的许可，节点宕机后其许可到期自动失效，不会泄漏。
+ * 释放的许可在本地保留少量（限流值 × spare-ratio）供下次直接复用，本地有空闲许可时不访问Redis；
+ * 空闲超过一个租约周期的许可归还Redis，避免长期占用其他节点的额度。
+ * Redis不可用时按 限流值 / 节点数 在本地限制并发。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimiter {
+
+    private static final String CONCURRENCY_KEY_PREFIX = "adapter:concurrency:";
+
+    /**
+     * 获取许可：先清理已到期的许可，未达上限时加入，返回1表示成功
+     */
+    private static final String ACQUIRE_SCRIPT_TEXT =
+            "redis.replicate_commands() " +
+            "local key = KEYS[1] " +
+            "local limit = tonumber(ARGV[1]) " +
+            "local lease = tonumber(ARGV[2]) " +
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "redis.call('zremrangebyscore', key, '-inf', now) " +
+            "if redis.call('zcard', key) >= limit then " +
+            "    return 0 " +
+            "end " +
+            "redis.call('zadd', key, now + lease, ARGV[3]) " +
+            "redis.call('pexpire', key, lease) " +
+            "return 1";
+
+    private static final DefaultRedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(ACQUIRE_SCRIPT_TEXT, Long.class);
+
+    /**
+     * 续约：只更新仍存在的许可（已被清理的不再加回），返回已失效的许可
+     */
+    private static final String RENEW_SCRIPT_TEXT =
+            "redis.replicate_commands() " +
+            "local key = KEYS[1] " +
+            "local lease = tonumber(ARGV[1]) " +
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local expired = {} " +
+            "for i = 2, #ARGV do " +
+            "    local score = redis.call('zscore', key, ARGV[i]) " +
+            "    if score and tonumber(score) > now then " +
+            "        redis.call('zadd', key, now + lease, ARGV[i]) " +
+            "    else " +
+            "        table.insert(expired, ARGV[i]) " +
+            "    end " +
+            "end " +
+            "redis.call('pexpire', key, lease) " +
+            "return expired";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> RENEW_SCRIPT = new DefaultRedisScript<>(RENEW_SCRIPT_TEXT, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final NodeRegistry nodeRegistry;
+    private final LocalFallbackLimiter fallbackLimiter;
+
+    @Value("${adapter.rate-limit.concurrent.lease-ms:30000}")
+    private long leaseMillis;
+
+    @Value("${adapter.rate-limit.concurrent.spare-ratio:0.1}")
+    private double spareRatio;
+
+    private final AtomicLong slotSequence = new AtomicLong();
+
+    /**
+     * 限流键 -> 本节点持有的许可
+     */
+    private final Map<String, SlotPool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 获取并发许可
+     *
+     * @return 许可，已达上限时返回null；Redis不可用时按本节点分得的额度在本地限流
+     */
+    public ConcurrencyPermit tryAcquire(Long tenantId, String apiCode, int limit) {
+        String key = CONCURRENCY_KEY_PREFIX + tenantId + ":" + (apiCode != null ? apiCode : "default");
+        return pools.computeIfAbsent(key, SlotPool::new).acquire(limit);
+    }
+
+    /**
+     * 续约本节点持有的许可，并归还长时间空闲的许可
+     */
+    @Scheduled(fixedDelayString = "${adapter.rate-limit.concurrent.renew-interval-ms:10000}")
+    public void renew() {
+        for (SlotPool pool : pools.values()) {
+            try {
+                pool.renew();
+            } catch (Exception e) {
+                log.warn("Failed to renew concurrency permits, key={}, error={}", pool.key, e.getMessage());
+            }
+        }
+    }
+
+    final class SlotPool {
+
+        private final String key;
+
+        /**
+         * 本节点在Redis中持有的全部许可（使用中 + 空闲）
+         */
+        private final Set<String> held = new HashSet<>();
+        private final Deque<String> idle = new ArrayDeque<>();
+        private int spare;
+        private long lastUsed;
+
+        SlotPool(String key) {
+            this.key = key;
+        }
+
+        ConcurrencyPermit acquire(int limit) {
+            List<String> surplus;
+            synchronized (this) {
+                lastUsed = System.currentTimeMillis();
+                spare = (int) (limit * spareRatio);
+                if (held.size() <= limit && !idle.isEmpty()) {
+                    return permit(idle.pop());
+                }
+                // 限流值调小后本地持有的许可可能超过上限，空闲的先归还
+                surplus = held.size() > limit ? trimIdle(0) : Collections.emptyList();
+            }
+            remove(surplus);
+
+            String slot = nodeRegistry.getNodeId() + ":" + slotSequence.incrementAndGet();
+            Long acquired = redisCircuitBreaker.execute(() -> redisTemplate.execute(ACQUIRE_SCRIPT,
+                    Collections.singletonList(key), String.valueOf(limit), String.valueOf(leaseMillis), slot),
+                    () -> null);
+            if (acquired == null) {
+                return fallbackLimiter.tryAcquirePermit(key, limit);
+            }
+            if (acquired != 1) {
+                return null;
+            }
+
+            synchronized (this) {
+                held.add(slot);
+            }
+            return permit(slot);
+        }
+
+        private ConcurrencyPermit permit(String slot) {
+            return new ConcurrencyPermit(() -> release(slot));
+        }
+
+        void release(String slot) {
+            List<String> surplus;
+            synchronized (this) {
+                lastUsed = System.currentTimeMillis();
+                if (!held.contains(slot)) {
+                    return;
+                }
+                idle.push(slot);
+                surplus = trimIdle(spare);
+            }
+            remove(surplus);
+        }
+
+        void renew() {
+            List<String> surplus;
+            List<String> slots;
+            synchronized (this) {
+                surplus = System.currentTimeMillis() - lastUsed > leaseMillis ? trimIdle(0) : Collections.emptyList();
+                slots = new ArrayList<>(held);
+            }
+            remove(surplus);
+            if (slots.isEmpty()) {
+                return;
+            }
+
+            List<String> args = new ArrayList<>(slots.size() + 1);
+            args.add(String.valueOf(leaseMillis));
+            args.addAll(slots);
+            List<?> expired = redisCircuitBreaker.execute(
+                    () -> redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key), args.toArray()),
+                    () -> null);
+            if (expired != null && !expired.isEmpty()) {
+                // 已失效的许可可能被其他节点占用，不再复用
+                log.warn("Concurrency permits expired before renewal, key={}, held={}, expired={}",
+                        key, slots.size(), expired.size());
+                synchronized (this) {
+                    held.removeAll(expired);
+                    idle.removeAll(expired);
+                }
+            }
+        }
+
+        /**
+         * 空闲许可只保留 keep 个，返回需要归还的部分，调用方持有锁
+         */
+        private List<String> trimIdle(int keep) {
+            if (idle.size() <= keep) {
+                return Collections.emptyList();
+            }
+            List<String> surplus = new ArrayList<>();
+            while (idle.size() > keep) {
+                String slot = idle.pollLast();
+                held.remove(slot);
+                surplus.add(slot);
+            }
+            return surplus;
+        }
+
+        private void remove(List<String> slots) {
+            if (slots.isEmpty()) {
+                return;
+            }
+            // 归还失败的许可到期后自动失效
+            redisCircuitBreaker.execute(() -> redisTemplate.opsForZSet().remove(key, slots.toArray()), () -> null);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.adapter.ratelimit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 并发许可 - HTTP请求结束后必须释放，重复释放无副作用
+ */
+public class ConcurrencyPermit {
+
+    /**
+     * 无需释放的许可（非并发限流或限流关闭）
+     */
+    public static final ConcurrencyPermit NONE = new ConcurrencyPermit(null);
+
+    private final Runnable releaser;
+    private final ConcurrencyPermit next;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ConcurrencyPermit(Runnable releaser) {
+        this(releaser, null);
+    }
+
+    private ConcurrencyPermit(Runnable releaser, ConcurrencyPermit next) {
+        this.releaser = releaser;
+        this.next = next;
+    }
+
+    /**
+     * 合并两个许可，释放时一并释放
+     */
+    ConcurrencyPermit and(ConcurrencyPermit other) {
+        if (other == NONE) {
+            return this;
+        }
+        if (this == NONE) {
+            return other;
+        }
+        return new ConcurrencyPermit(releaser, next != null ? next.and(other) : other);
+    }
+
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            if (releaser != null) {
+                releaser.run();
+            }
+            if (next != null) {
+                next.release();
+            }
+        }
+    }
+}
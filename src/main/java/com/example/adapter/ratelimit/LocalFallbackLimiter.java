@@ -0,0 +1,84 @@
+package com.example.adapter.ratelimit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地降级限流 - Redis不可用时使用，每个节点按 全局限流值 / 节点数 在本地限流
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalFallbackLimiter {
+
+    private final NodeRegistry nodeRegistry;
+
+    private final Cache<String, RateLimiter> rateLimiters = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    private final Cache<String, LocalSemaphore> semaphores = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+
+    /**
+     * 本地令牌桶限流
+     *
+     * @return 0-放行；大于0-被限流，为预计需等待的毫秒数
+     */
+    public long tryAcquire(String key, int limit, int window) {
+        double rate = Math.max(limit, 1) / (double) Math.max(window, 1) / nodeRegistry.getNodeCount();
+        RateLimiter limiter = get(rateLimiters, key, () -> RateLimiter.create(rate));
+        if (Math.abs(limiter.getRate() - rate) > 1e-9) {
+            limiter.setRate(rate);
+        }
+        if (limit > 0 && limiter.tryAcquire()) {
+            return 0;
+        }
+        return Math.max(1, (long) (1000 / rate));
+    }
+
+    /**
+     * 本地并发限流
+     *
+     * @return 许可，已达本节点上限时返回null
+     */
+    public ConcurrencyPermit tryAcquirePermit(String key, int limit) {
+        int permits = Math.max(1, limit / nodeRegistry.getNodeCount());
+        LocalSemaphore semaphore = get(semaphores, key, () -> new LocalSemaphore(permits));
+        if (semaphore.permits != permits) {
+            // 节点数或限流值变化后重建，已发出的许可仍归还给原信号量
+            semaphore = new LocalSemaphore(permits);
+            semaphores.put(key, semaphore);
+        }
+        LocalSemaphore acquired = semaphore;
+        return acquired.tryAcquire() ? new ConcurrencyPermit(acquired::release) : null;
+    }
+
+    private <V> V get(Cache<String, V> cache, String key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class LocalSemaphore extends Semaphore {
+
+        private final int permits;
+
+        LocalSemaphore(int permits) {
+            super(permits);
+            this.permits = permits;
+        }
+    }
+}
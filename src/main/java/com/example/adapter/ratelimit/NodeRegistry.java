@@ -0,0 +1,65 @@
+package com.example.adapter.ratelimit;
+
+import com.example.adapter.common.breaker.RedisCircuitBreaker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 节点注册 - 各节点定时在Redis中登记心跳，记录当前存活的节点数
+ *
+ * <p>Redis不可用时保留最近一次得到的节点数，供本地降级限流按节点数均分全局限流值。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NodeRegistry {
+
+    private static final String NODES_KEY = "adapter:nodes";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+
+    /**
+     * 从未成功登记时使用的节点数
+     */
+    @Value("${adapter.rate-limit.fallback.node-count:1}")
+    private int defaultNodeCount;
+
+    @Value("${adapter.rate-limit.fallback.heartbeat-interval-ms:10000}")
+    private long heartbeatIntervalMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile int nodeCount;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getNodeCount() {
+        int count = nodeCount;
+        return count > 0 ? count : Math.max(1, defaultNodeCount);
+    }
+
+    @Scheduled(fixedDelayString = "${adapter.rate-limit.fallback.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        Long count = redisCircuitBreaker.execute(() -> {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            // 连续3个心跳周期未登记的节点视为下线
+            redisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - heartbeatIntervalMs * 3);
+            return redisTemplate.opsForZSet().zCard(NODES_KEY);
+        }, () -> null);
+
+        if (count != null && count > 0 && count != nodeCount) {
+            log.info("Adapter node count changed: {} -> {}", nodeCount, count);
+            nodeCount = count.intValue();
+        }
+    }
+}
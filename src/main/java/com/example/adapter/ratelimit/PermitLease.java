@@ -0,0 +1,60 @@
+package com.example.adapter.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地许可租约 - 节点从Redis一次预取的一批许可，在租约所属的时间窗口内从本地扣减
+ *
+ * <p>租约随Redis窗口一同过期，未用完的许可直接作废，不归还。</p>
+ */
+final class PermitLease {
+
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    private volatile long expireAt;
+
+    /**
+     * 预取时Redis窗口剩余许可不足，本地用完后窗口过期前无需再访问Redis
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * 从本地扣减一个许可
+     */
+    boolean tryTake() {
+        if (System.currentTimeMillis() >= expireAt) {
+            return false;
+        }
+        int current;
+        do {
+            current = remaining.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!remaining.compareAndSet(current, current - 1));
+        return true;
+    }
+
+    boolean isExhausted() {
+        return exhausted && System.currentTimeMillis() < expireAt;
+    }
+
+    long remainingMillis() {
+        return expireAt - System.currentTimeMillis();
+    }
+
+    /**
+     * 用新预取的许可替换当前租约
+     *
+     * @param permits   可在本地使用的许可数
+     * @param ttlMillis Redis窗口剩余时间
+     * @param exhausted Redis窗口是否已无剩余许可
+     */
+    void refill(int permits, long ttlMillis, boolean exhausted) {
+        // 先清空旧租约再切换过期时间，避免旧租约的剩余许可被算入新窗口
+        remaining.set(0);
+        this.exhausted = exhausted;
+        this.expireAt = System.currentTimeMillis() + ttlMillis;
+        remaining.set(permits);
+    }
+}
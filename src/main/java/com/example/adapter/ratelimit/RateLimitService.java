@@ -1,6 +1,8 @@
 package com.example.adapter.ratelimit;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.adapter.common.breaker.RedisCircuitBreaker;
+import com.example.adapter.common.constant.RateLimitType;
 import com.example.adapter.common.constant.StatusConstant;
 import com.example.adapter.common.exception.RateLimitException;
 import com.example.adapter.entity.RateLimitConfig;
@@ -11,10 +13,30 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 
+/**
+ * 限流服务 - 按 limit_type 选择固定窗口（QPS）、GCRA 或滑动窗口计数，每种算法一次Redis调用；
+ * CONCURRENT 类型由 {@link ConcurrencyLimiter} 限制进行中的请求数
+ *
+ * <p>固定窗口按全局、下游主机、租户、接口分层，一次Redis调用在所有层级上原子扣减；
+ * 租户、接口的 GCRA / 滑动窗口层级在另一次Redis调用中原子扣减，固定窗口层级被拒绝时退还。</p>
+ *
+ * <p>Redis调用经过 {@link RedisCircuitBreaker}，Redis不可用时由 {@link LocalFallbackLimiter} 按节点数均分限流值在本地限流，
+ * 不再直接放行。</p>
+ *
+ * <p>开启本地租约（adapter.rate-limit.lease.enabled）时每个节点一次从Redis预取一批许可，
+ * 大部分消息在本地原子扣减，租约用完才访问Redis；租约只用于固定窗口，GCRA和滑动窗口需要匀速放行，每条消息都访问Redis。</p>
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -22,6 +44,9 @@ public class RateLimitService {
 
     private final RateLimitConfigMapper rateLimitConfigMapper;
     private final StringRedisTemplate redisTemplate;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final RedisCircuitBreaker redisCircuitBreaker;
+    private final LocalFallbackLimiter fallbackLimiter;
 
     @Value("${adapter.rate-limit.enabled:true}")
     private boolean enabled;
@@ -29,48 +54,352 @@ public class RateLimitService {
     @Value("${adapter.rate-limit.default-qps:100}")
     private int defaultQps;
 
+    @Value("${adapter.rate-limit.lease.enabled:true}")
+    private boolean leaseEnabled;
+
+    /**
+     * 每次预取的许可占限流值的比例，即每个节点最多可闲置的许可比例
+     */
+    @Value("${adapter.rate-limit.lease.ratio:0.1}")
+    private double leaseRatio;
+
+    /**
+     * GCRA允许的突发量占限流值的比例，至少为1
+     */
+    @Value("${adapter.rate-limit.gcra.burst-ratio:0.1}")
+    private double gcraBurstRatio;
+
+    /**
+     * 全局QPS上限（所有租户、接口共用），0表示不限制
+     */
+    @Value("${adapter.rate-limit.quota.global-qps:0}")
+    private int globalQps;
+
+    /**
+     * 每个下游主机的默认QPS上限（该主机上所有租户、接口共用），0表示不限制
+     */
+    @Value("${adapter.rate-limit.quota.host-qps:0}")
+    private int hostQps;
+
+    /**
+     * 单独指定的主机QPS上限，格式 host=qps，逗号分隔
+     */
+    @Value("${adapter.rate-limit.quota.hosts:}")
+    private String hostQpsOverrides;
+
+    private final Map<String, Integer> hostQpsLimits = new HashMap<>();
+
     private static final String RATE_LIMIT_KEY_PREFIX = "adapter:ratelimit:";
 
-    private static final String RATE_LIMIT_SCRIPT =
-            "local key = KEYS[1] " +
-            "local limit = tonumber(ARGV[1]) " +
-            "local window = tonumber(ARGV[2]) " +
-            "local current = tonumber(redis.call('get', key) or '0') " +
-            "if current >= limit then " +
-            "    return 0 " +
-            "else " +
-            "    redis.call('incr', key) " +
-            "    if current == 0 then " +
-            "        redis.call('expire', key, window) " +
+    /**
+     * 分层固定窗口预取脚本：KEYS 为各层级的计数键，ARGV[1] 为申请数量，其后每个层级依次为 限流值、窗口秒数。
+     * 领取数取各层级剩余额度的最小值，所有层级同时扣减；任一层级没有剩余时都不扣减。
+     * 返回 {领取数, 剩余毫秒}：领取成功时为各层级窗口剩余时间的最小值，被拒绝时为拒绝层级的窗口剩余时间
+     */
+    private static final String LEASE_SCRIPT_TEXT =
+            "local granted = tonumber(ARGV[1]) " +
+            "for i = 1, #KEYS do " +
+            "    local limit = tonumber(ARGV[i * 2]) " +
+            "    local current = tonumber(redis.call('get', KEYS[i]) or '0') " +
+            "    granted = math.min(granted, limit - current) " +
+            "    if granted <= 0 then " +
+            "        local ttl = redis.call('pttl', KEYS[i]) " +
+            "        if ttl < 0 then " +
+            "            ttl = tonumber(ARGV[i * 2 + 1]) * 1000 " +
+            "        end " +
+            "        return {0, ttl} " +
+            "    end " +
+            "end " +
+            "local minTtl = -1 " +
+            "for i = 1, #KEYS do " +
+            "    redis.call('incrby', KEYS[i], granted) " +
+            "    local ttl = redis.call('pttl', KEYS[i]) " +
+            "    if ttl < 0 then " +
+            "        local window = tonumber(ARGV[i * 2 + 1]) " +
+            "        redis.call('expire', KEYS[i], window) " +
+            "        ttl = window * 1000 " +
+            "    end " +
+            "    if minTtl < 0 or ttl < minTtl then " +
+            "        minTtl = ttl " +
             "    end " +
-            "    return 1 " +
-            "end";
+            "end " +
+            "return {granted, minTtl}";
+
+    /**
+     * 脚本只创建一次，执行时通过 EVALSHA 复用服务端缓存的脚本
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>(LEASE_SCRIPT_TEXT, List.class);
+
+    /**
+     * 匀速限流层级的算法编号（脚本参数）
+     */
+    private static final int PACED_GCRA = 1;
+    private static final int PACED_SLIDING_WINDOW = 2;
+
+    /**
+     * 匀速限流脚本：一次调用检查租户、接口两个层级的 GCRA / 滑动窗口配置，全部放行才同时扣减，任一层级超限都不扣减。
+     * ARGV 每个层级依次为 算法编号、限流值、窗口秒数、突发量（仅GCRA使用），时间取Redis服务端时间。
+     * GCRA 键中保存理论到达时间（TAT，毫秒）；滑动窗口的哈希中保存当前窗口编号(w)、当前窗口计数(c)、上一窗口计数(p)。
+     * 返回 {是否放行, 需等待毫秒}，被拒绝时为各超限层级等待时间的最大值
+     */
+    private static final String PACED_SCRIPT_TEXT =
+            "redis.replicate_commands() " +
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local wait = 0 " +
+            "local tats = {} " +
+            "local windows = {} " +
+            "for i = 1, #KEYS do " +
+            "    local kind = tonumber(ARGV[i * 4 - 3]) " +
+            "    local limit = tonumber(ARGV[i * 4 - 2]) " +
+            "    local window = tonumber(ARGV[i * 4 - 1]) " +
+            "    if kind == 1 then " +
+            "        local burst = tonumber(ARGV[i * 4]) " +
+            "        local interval = window * 1000 / limit " +
+            "        local tat = tonumber(redis.call('get', KEYS[i]) or '0') " +
+            "        if tat < now then " +
+            "            tat = now " +
+            "        end " +
+            "        local allowAt = tat - (burst - 1) * interval " +
+            "        if allowAt > now then " +
+            "            wait = math.max(wait, math.ceil(allowAt - now)) " +
+            "        end " +
+            "        tats[i] = tat + interval " +
+            "    else " +
+            "        local windowMs = window * 1000 " +
+            "        local current = math.floor(now / windowMs) " +
+            "        local state = redis.call('hmget', KEYS[i], 'w', 'c', 'p') " +
+            "        local w = tonumber(state[1] or '-1') " +
+            "        local c = tonumber(state[2] or '0') " +
+            "        local p = tonumber(state[3] or '0') " +
+            "        if w == current - 1 then " +
+            "            p = c " +
+            "            c = 0 " +
+            "        elseif w ~= current then " +
+            "            p = 0 " +
+            "            c = 0 " +
+            "        end " +
+            "        local elapsed = now - current * windowMs " +
+            "        local weight = (windowMs - elapsed) / windowMs " +
+            "        if p * weight + c + 1 > limit then " +
+            "            local levelWait = windowMs - elapsed " +
+            "            if p > 0 and c + 1 <= limit then " +
+            "                levelWait = math.ceil((1 - (limit - c - 1) / p) * windowMs) - elapsed " +
+            "            end " +
+            "            wait = math.max(wait, levelWait, 1) " +
+            "        end " +
+            "        windows[i] = {current, c + 1, p, windowMs} " +
+            "    end " +
+            "end " +
+            "if wait > 0 then " +
+            "    return {0, wait} " +
+            "end " +
+            "for i = 1, #KEYS do " +
+            "    if tats[i] then " +
+            "        redis.call('set', KEYS[i], tostring(tats[i]), 'PX', math.ceil(tats[i] - now)) " +
+            "    else " +
+            "        local state = windows[i] " +
+            "        redis.call('hset', KEYS[i], 'w', state[1], 'c', state[2], 'p', state[3]) " +
+            "        redis.call('pexpire', KEYS[i], state[4] * 2) " +
+            "    end " +
+            "end " +
+            "return {1, 0}";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> PACED_SCRIPT = new DefaultRedisScript<>(PACED_SCRIPT_TEXT, List.class);
+
+    /**
+     * 匀速限流退还脚本：匀速层级已扣减但固定窗口层级被拒绝时退还，参数同 {@link #PACED_SCRIPT_TEXT}。
+     * GCRA 的TAT回退一个间隔；滑动窗口只退还仍在同一窗口内的计数，窗口已切换时不再退还
+     */
+    private static final String PACED_REFUND_SCRIPT_TEXT =
+            "redis.replicate_commands() " +
+            "local time = redis.call('time') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "for i = 1, #KEYS do " +
+            "    local kind = tonumber(ARGV[i * 4 - 3]) " +
+            "    local limit = tonumber(ARGV[i * 4 - 2]) " +
+            "    local window = tonumber(ARGV[i * 4 - 1]) " +
+            "    if kind == 1 then " +
+            "        local tat = tonumber(redis.call('get', KEYS[i]) or '0') " +
+            "        local newTat = tat - window * 1000 / limit " +
+            "        if newTat > now then " +
+            "            redis.call('set', KEYS[i], tostring(newTat), 'PX', math.ceil(newTat - now)) " +
+            "        else " +
+            "            redis.call('del', KEYS[i]) " +
+            "        end " +
+            "    else " +
+            "        local current = math.floor(now / (window * 1000)) " +
+            "        local state = redis.call('hmget', KEYS[i], 'w', 'c') " +
+            "        if tonumber(state[1] or '-1') == current and tonumber(state[2] or '0') > 0 then " +
+            "            redis.call('hincrby', KEYS[i], 'c', -1) " +
+            "        end " +
+            "    end " +
+            "end " +
+            "return {1, 0}";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> PACED_REFUND_SCRIPT =
+            new DefaultRedisScript<>(PACED_REFUND_SCRIPT_TEXT, List.class);
+
+    /**
+     * 限流键 -> 本节点持有的许可租约
+     */
+    private final Map<String, PermitLease> leases = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String entry : StringUtils.commaDelimitedListToStringArray(hostQpsOverrides)) {
+            if (!StringUtils.hasText(entry)) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                log.warn("Ignored invalid host quota: {}", entry);
+                continue;
+            }
+            hostQpsLimits.put(entry.substring(0, separator).trim().toLowerCase(),
+                    Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+    }
 
     public void checkRateLimit(Long tenantId, String apiCode) {
         if (!enabled) {
             return;
         }
+        checkRateLimit(tenantId, apiCode, null, getConfig(tenantId, apiCode), getConfig(tenantId, null));
+    }
 
-        RateLimitConfig config = getConfig(tenantId, apiCode);
-        if (config == null) {
-            config = getConfig(tenantId, null);
+    /**
+     * 分层限流检查：全局、下游主机、租户、接口
+     *
+     * <p>固定窗口（QPS）的各层级在一次Redis调用中同时扣减，任一层级超限都不扣减；
+     * GCRA、滑动窗口类型的租户/接口配置先在一次Redis调用中同时扣减，固定窗口层级被拒绝时退还，
+     * CONCURRENT 类型在发送请求前通过 {@link #acquirePermit} 获取许可。
+     * 租户、接口都没有生效的配置时，接口按默认QPS限流。</p>
+     *
+     * @param apiUrl       接口地址，用于确定下游主机，为null时不做主机级限流
+     * @param apiLimit     接口级限流配置
+     * @param tenantLimit  租户级限流配置（租户下所有接口共用）
+     */
+    public void checkRateLimit(Long tenantId, String apiCode, String apiUrl,
+                               RateLimitConfig apiLimit, RateLimitConfig tenantLimit) {
+        if (!enabled) {
+            return;
         }
 
-        int limit = defaultQps;
-        int window = 1;
-        if (config != null && config.getStatus() == StatusConstant.ENABLED) {
-            limit = config.getLimitValue();
-            window = config.getTimeWindow();
+        List<QuotaLevel> levels = new ArrayList<>(4);
+        List<QuotaLevel> pacedLevels = new ArrayList<>(2);
+        if (globalQps > 0) {
+            levels.add(new QuotaLevel(RATE_LIMIT_KEY_PREFIX + "global", globalQps, 1));
+        }
+        String host = hostQpsLimits.isEmpty() && hostQps <= 0 ? null : hostOf(apiUrl);
+        if (host != null) {
+            int limit = hostQpsLimits.getOrDefault(host, hostQps);
+            if (limit > 0) {
+                levels.add(new QuotaLevel(RATE_LIMIT_KEY_PREFIX + "host:" + host, limit, 1));
+            }
+        }
+
+        boolean tenantActive = isActive(tenantLimit);
+        boolean apiActive = isActive(apiLimit);
+        if (tenantActive) {
+            addLevel(levels, pacedLevels, buildKey(tenantId, null), tenantLimit);
+        }
+        if (apiActive) {
+            addLevel(levels, pacedLevels, buildKey(tenantId, apiCode), apiLimit);
+        } else if (!tenantActive) {
+            levels.add(new QuotaLevel(buildKey(tenantId, apiCode), defaultQps, 1));
+        }
+
+        // 匀速层级先在一次调用中原子扣减，固定窗口层级被拒绝时退还，任一层级超限都不占用其他层级的额度
+        long[] pacedResult = null;
+        long waitMillis = 0;
+        if (!pacedLevels.isEmpty()) {
+            pacedResult = execute(PACED_SCRIPT, keys(pacedLevels), pacedArgs(pacedLevels));
+            waitMillis = waitMillis(pacedResult, () -> acquireLocal(pacedLevels));
+        }
+        if (waitMillis == 0 && !levels.isEmpty()) {
+            String leaseKey = buildKey(tenantId, apiCode);
+            waitMillis = leaseEnabled
+                    ? acquireLeased(leaseKey, levels)
+                    : waitMillis(reserve(levels, 1), () -> acquireLocal(levels));
+            if (waitMillis > 0 && pacedResult != null) {
+                execute(PACED_REFUND_SCRIPT, keys(pacedLevels), pacedArgs(pacedLevels));
+            }
+        }
+        if (waitMillis > 0) {
+            levels.addAll(pacedLevels);
+            log.warn("Rate limit exceeded, tenantId={}, apiCode={}, levels={}, retryAfter={}ms",
+                    tenantId, apiCode, levels, waitMillis);
+            throw new RateLimitException("Rate limit exceeded: " + levels, waitMillis);
+        }
+    }
+
+    /**
+     * 按算法加入分层检查：固定窗口层级在一次调用中原子领取，GCRA、滑动窗口层级在另一次调用中原子扣减
+     */
+    private void addLevel(List<QuotaLevel> levels, List<QuotaLevel> pacedLevels, String key, RateLimitConfig config) {
+        int limit = config.getLimitValue();
+        int window = config.getTimeWindow();
+        String limitType = config.getLimitType() != null ? config.getLimitType() : RateLimitType.QPS;
+        switch (limitType) {
+            case RateLimitType.CONCURRENT:
+                // 并发限流在发送HTTP请求前通过 acquirePermit 获取许可
+                return;
+            case RateLimitType.GCRA:
+                int burst = Math.max(1, (int) (limit * gcraBurstRatio));
+                pacedLevels.add(new QuotaLevel(key + ":gcra", limit, window, PACED_GCRA, burst));
+                return;
+            case RateLimitType.SLIDING_WINDOW:
+                pacedLevels.add(new QuotaLevel(key + ":sliding", limit, window, PACED_SLIDING_WINDOW, 0));
+                return;
+            default:
+                levels.add(new QuotaLevel(key, limit, window));
+        }
+    }
+
+    /**
+     * 获取并发许可，HTTP请求结束后必须调用 {@link ConcurrencyPermit#release()}
+     *
+     * <p>接口级、租户级配置为 CONCURRENT 时分别获取许可（租户级许可由租户下所有接口共用），
+     * 非并发限流时返回 {@link ConcurrencyPermit#NONE}。</p>
+     *
+     * @throws RateLimitException 并发数已达上限
+     */
+    public ConcurrencyPermit acquirePermit(Long tenantId, String apiCode,
+                                           RateLimitConfig apiLimit, RateLimitConfig tenantLimit) {
+        if (!enabled) {
+            return ConcurrencyPermit.NONE;
+        }
+        ConcurrencyPermit apiPermit = acquirePermit(tenantId, apiCode, apiLimit);
+        ConcurrencyPermit tenantPermit;
+        try {
+            tenantPermit = acquirePermit(tenantId, null, tenantLimit);
+        } catch (RateLimitException e) {
+            apiPermit.release();
+            throw e;
         }
+        return apiPermit.and(tenantPermit);
+    }
 
-        String key = buildKey(tenantId, apiCode);
-        boolean allowed = tryAcquire(key, limit, window);
+    private ConcurrencyPermit acquirePermit(Long tenantId, String apiCode, RateLimitConfig config) {
+        if (!isActive(config) || !RateLimitType.CONCURRENT.equals(config.getLimitType())) {
+            return ConcurrencyPermit.NONE;
+        }
 
-        if (!allowed) {
-            log.warn("Rate limit exceeded, tenantId={}, apiCode={}, limit={}/{}s",
-                    tenantId, apiCode, limit, window);
-            throw new RateLimitException("Rate limit exceeded: " + limit + " requests per " + window + " seconds");
+        int limit = config.getLimitValue();
+        ConcurrencyPermit permit = concurrencyLimiter.tryAcquire(tenantId, apiCode, limit);
+        if (permit == null) {
+            log.warn("Concurrency limit exceeded, tenantId={}, apiCode={}, limit={}", tenantId, apiCode, limit);
+            throw new RateLimitException("Concurrency limit exceeded: " + limit + " requests in flight", 0);
         }
+        return permit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
     }
 
     private RateLimitConfig getConfig(Long tenantId, String apiCode) {
@@ -84,21 +413,189 @@ public class RateLimitService {
         return rateLimitConfigMapper.selectOne(wrapper);
     }
 
+    private boolean isActive(RateLimitConfig config) {
+        return config != null && config.getStatus() == StatusConstant.ENABLED;
+    }
+
     private String buildKey(Long tenantId, String apiCode) {
         return RATE_LIMIT_KEY_PREFIX + tenantId + ":" + (apiCode != null ? apiCode : "default");
     }
 
-    private boolean tryAcquire(String key, int limit, int window) {
-        try {
-            DefaultRedisScript<Long> script = new DefaultRedisScript<>(RATE_LIMIT_SCRIPT, Long.class);
-            Long result = redisTemplate.execute(script,
-                    Collections.singletonList(key),
-                    String.valueOf(limit),
-                    String.valueOf(window));
-            return result != null && result == 1;
-        } catch (Exception e) {
-            log.error("Failed to check rate limit, key={}", key, e);
-            return true;
+    /**
+     * 从接口地址中取出主机名（小写），地址中可能含有路径变量占位符，不使用URI解析
+     */
+    static String hostOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < url.length() && "/:?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return end > start ? url.substring(start, end).toLowerCase() : null;
+    }
+
+    /**
+     * 优先从本地租约扣减，租约用完后从Redis预取下一批
+     *
+     * <p>预取的许可已计入Redis各层级的窗口计数，全局不会超过限流值；误差在于其他节点闲置的许可，
+     * 每个节点每个接口最多闲置 最小层级限流值 × lease.ratio 个，随窗口过期作废。</p>
+     *
+     * @return 0-放行；大于0-被限流，为窗口剩余毫秒
+     */
+    private long acquireLeased(String key, List<QuotaLevel> levels) {
+        PermitLease lease = leases.computeIfAbsent(key, k -> new PermitLease());
+        if (lease.tryTake()) {
+            return 0;
+        }
+        synchronized (lease) {
+            // 等待期间可能已被其他线程预取
+            if (lease.tryTake()) {
+                return 0;
+            }
+            if (lease.isExhausted()) {
+                return Math.max(1, lease.remainingMillis());
+            }
+            int minLimit = Integer.MAX_VALUE;
+            for (QuotaLevel level : levels) {
+                minLimit = Math.min(minLimit, level.limit);
+            }
+            int leaseSize = Math.max(1, (int) (minLimit * leaseRatio));
+            long[] result = reserve(levels, leaseSize);
+            if (result == null) {
+                return acquireLocal(levels);
+            }
+            int granted = (int) result[0];
+            if (granted == 0) {
+                lease.refill(0, result[1], true);
+                return Math.max(1, result[1]);
+            }
+            lease.refill(granted - 1, result[1], granted < leaseSize);
+            return 0;
+        }
+    }
+
+    private List<String> keys(List<QuotaLevel> levels) {
+        List<String> keys = new ArrayList<>(levels.size());
+        for (QuotaLevel level : levels) {
+            keys.add(level.key);
+        }
+        return keys;
+    }
+
+    /**
+     * 匀速限流脚本参数：每个层级依次为 算法编号、限流值、窗口秒数、突发量
+     */
+    private int[] pacedArgs(List<QuotaLevel> levels) {
+        int[] args = new int[levels.size() * 4];
+        for (int i = 0; i < levels.size(); i++) {
+            QuotaLevel level = levels.get(i);
+            args[i * 4] = level.pacing;
+            args[i * 4 + 1] = level.limit;
+            args[i * 4 + 2] = level.window;
+            args[i * 4 + 3] = level.burst;
+        }
+        return args;
+    }
+
+    /**
+     * 在所有固定窗口层级上同时领取许可
+     */
+    private long[] reserve(List<QuotaLevel> levels, int permits) {
+        List<String> keys = new ArrayList<>(levels.size());
+        int[] args = new int[levels.size() * 2 + 1];
+        args[0] = permits;
+        for (int i = 0; i < levels.size(); i++) {
+            QuotaLevel level = levels.get(i);
+            keys.add(level.key);
+            args[i * 2 + 1] = level.limit;
+            args[i * 2 + 2] = level.window;
+        }
+        return execute(LEASE_SCRIPT, keys, args);
+    }
+
+    /**
+     * Redis不可用时在本地逐层限流（各层级限流值按节点数均分）
+     */
+    private long acquireLocal(List<QuotaLevel> levels) {
+        for (QuotaLevel level : levels) {
+            long waitMillis = fallbackLimiter.tryAcquire(level.key, level.limit, level.window);
+            if (waitMillis > 0) {
+                return waitMillis;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 各限流脚本返回 {放行数, 需等待毫秒}，固定窗口被拒绝时第二项为窗口剩余毫秒
+     *
+     * @param fallback Redis不可用时的本地限流
+     * @return 0-放行；大于0-被限流，为预计需等待的毫秒数
+     */
+    private long waitMillis(long[] result, LongSupplier fallback) {
+        if (result == null) {
+            return fallback.getAsLong();
+        }
+        if (result[0] > 0) {
+            return 0;
+        }
+        return Math.max(1, result[1]);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private long[] execute(DefaultRedisScript<List> script, String key, int... args) {
+        return execute(script, Collections.singletonList(key), args);
+    }
+
+    /**
+     * 执行限流脚本
+     *
+     * @return 脚本返回的两个整数，Redis不可用（熔断或调用失败）时返回null
+     */
+    @SuppressWarnings("rawtypes")
+    private long[] execute(DefaultRedisScript<List> script, List<String> keys, int... args) {
+        String[] argv = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = String.valueOf(args[i]);
+        }
+        return redisCircuitBreaker.execute(() -> {
+            List<?> result = redisTemplate.execute(script, keys, (Object[]) argv);
+            if (result == null || result.size() < 2) {
+                return null;
+            }
+            return new long[]{((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue()};
+        }, () -> null);
+    }
+
+    /**
+     * 限流层级：固定窗口，或 GCRA / 滑动窗口（pacing 为算法编号）
+     */
+    private static final class QuotaLevel {
+
+        private final String key;
+        private final int limit;
+        private final int window;
+        private final int pacing;
+        private final int burst;
+
+        QuotaLevel(String key, int limit, int window) {
+            this(key, limit, window, 0, 0);
+        }
+
+        QuotaLevel(String key, int limit, int window, int pacing, int burst) {
+            this.key = key;
+            this.limit = limit;
+            this.window = window;
+            this.pacing = pacing;
+            this.burst = burst;
+        }
+
+        @Override
+        public String toString() {
+            return key.substring(RATE_LIMIT_KEY_PREFIX.length()) + "=" + limit + "/" + window + "s";
         }
     }
 }
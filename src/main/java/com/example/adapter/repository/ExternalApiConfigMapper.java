@@ -1,9 +1,24 @@
 package com.example.adapter.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.adapter.dto.ResolvedApiConfig;
 import com.example.adapter.entity.ExternalApiConfig;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface ExternalApiConfigMapper extends BaseMapper<ExternalApiConfig> {
+
+    /**
+     * 查询 update_time 不早于指定时间的接口配置，包含已逻辑删除的记录
+     */
+    List<ExternalApiConfig> selectUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 一次查询租户、接口配置、参数配置及生效的限流配置，租户不存在时返回null
+     */
+    ResolvedApiConfig selectResolved(@Param("tenantCode") String tenantCode, @Param("apiCode") String apiCode);
 }
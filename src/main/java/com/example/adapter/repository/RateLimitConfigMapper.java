@@ -3,7 +3,16 @@ package com.example.adapter.repository;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.adapter.entity.RateLimitConfig;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface RateLimitConfigMapper extends BaseMapper<RateLimitConfig> {
+
+    /**
+     * 查询 update_time 不早于指定时间的限流配置，包含已逻辑删除的记录
+     */
+    List<RateLimitConfig> selectUpdatedSince(@Param("since") LocalDateTime since);
 }
@@ -3,7 +3,16 @@ package com.example.adapter.repository;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.adapter.entity.Tenant;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface TenantMapper extends BaseMapper<Tenant> {
+
+    /**
+     * 查询 update_time 不早于指定时间的租户，包含已逻辑删除的记录
+     */
+    List<Tenant> selectUpdatedSince(@Param("since") LocalDateTime since);
 }
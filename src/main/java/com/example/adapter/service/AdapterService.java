@@ -1,47 +1,112 @@
 package com.example.adapter.service;
 
+import com.example.adapter.common.exception.DownstreamThrottledException;
 import com.example.adapter.common.exception.RetryableException;
 import com.example.adapter.dto.AdapterMessage;
 import com.example.adapter.dto.HttpRequestContext;
 import com.example.adapter.dto.HttpResponseResult;
-import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.dto.ResolvedApiConfig;
 import com.example.adapter.entity.ExternalApiConfig;
-import com.example.adapter.entity.Tenant;
+import com.example.adapter.http.DownstreamBackpressure;
 import com.example.adapter.http.HttpClientService;
 import com.example.adapter.http.RequestBuilder;
+import com.example.adapter.ratelimit.ConcurrencyPermit;
 import com.example.adapter.ratelimit.RateLimitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AdapterService {
 
-    private final TenantService tenantService;
-    private final ExternalApiConfigService apiConfigService;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private final ConfigCacheService configCacheService;
     private final RateLimitService rateLimitService;
     private final RequestBuilder requestBuilder;
     private final HttpClientService httpClientService;
     private final RequestLogService requestLogService;
+    private final DownstreamBackpressure backpressure;
+
+    /**
+     * 启用重试主题时，失败的消息由延迟层级重试，不在消费线程内退避重试
+     */
+    @Value("${adapter.kafka.retry.enabled:true}")
+    private boolean retryTopicEnabled;
 
     public void process(AdapterMessage message) {
-        Tenant tenant = tenantService.getActiveTenant(message.getTenantCode());
-        ExternalApiConfig apiConfig = apiConfigService.getActiveConfig(message.getTenantCode(), message.getApiCode());
+        ResolvedApiConfig resolved = resolveConfig(message);
+        HttpRequestContext context = buildContext(resolved, message);
+
+        HttpResponseResult result;
+        ConcurrencyPermit permit = acquirePermit(resolved, message);
+        try {
+            result = executeWithRetry(context, getMaxRetry(resolved.getApiConfig()));
+        } finally {
+            permit.release();
+        }
+
+        requestLogService.logRequest(context, result);
+        checkResult(context, message, result);
+    }
 
-        rateLimitService.checkRateLimit(tenant.getId(), message.getApiCode());
+    /**
+     * 异步处理消息：配置校验、限流、请求组装在调用线程完成，HTTP调用及重试退避均不阻塞线程
+     *
+     * @return 处理结果，失败时以 RetryableException / BusinessException 异常结束
+     */
+    public CompletableFuture<Void> processAsync(AdapterMessage message) {
+        HttpRequestContext context;
+        int maxRetry;
+        ConcurrencyPermit permit;
+        try {
+            ResolvedApiConfig resolved = resolveConfig(message);
+            context = buildContext(resolved, message);
+            maxRetry = getMaxRetry(resolved.getApiConfig());
+            permit = acquirePermit(resolved, message);
+        } catch (RuntimeException e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return executeWithRetryAsync(context, maxRetry, 0)
+                .whenComplete((result, e) -> permit.release())
+                .thenAccept(result -> {
+                    requestLogService.logRequest(context, result);
+                    checkResult(context, message, result);
+                });
+    }
 
-        List<ApiParamConfig> paramConfigs = apiConfigService.getParamConfigs(apiConfig.getId());
+    private ResolvedApiConfig resolveConfig(AdapterMessage message) {
+        ResolvedApiConfig resolved = configCacheService.resolve(message.getTenantCode(), message.getApiCode());
 
-        HttpRequestContext context = requestBuilder.build(apiConfig, paramConfigs, message);
+        rateLimitService.checkRateLimit(resolved.getTenant().getId(), message.getApiCode(),
+                resolved.getApiConfig().getApiUrl(), resolved.getRateLimitConfig(), resolved.getTenantRateLimitConfig());
+        return resolved;
+    }
 
-        HttpResponseResult result = executeWithRetry(context, apiConfig.getRetryCount());
+    private ConcurrencyPermit acquirePermit(ResolvedApiConfig resolved, AdapterMessage message) {
+        return rateLimitService.acquirePermit(resolved.getTenant().getId(), message.getApiCode(),
+                resolved.getRateLimitConfig(), resolved.getTenantRateLimitConfig());
+    }
 
-        requestLogService.logRequest(context, result);
+    private HttpRequestContext buildContext(ResolvedApiConfig resolved, AdapterMessage message) {
+        return requestBuilder.build(resolved.getApiConfig(), resolved.getParamConfigs(), message);
+    }
 
+    private int getMaxRetry(ExternalApiConfig apiConfig) {
+        return retryTopicEnabled ? 0 : apiConfig.getRetryCount();
+    }
+
+    private void checkResult(HttpRequestContext context, AdapterMessage message, HttpResponseResult result) {
         if (!result.isSuccess()) {
             log.error("HTTP request failed after retries, traceId={}, error={}",
                     message.getTraceId(), result.getErrorMessage());
@@ -55,19 +120,20 @@ public class AdapterService {
                     message.getTraceId(), result.getStatusCode());
             throw new RetryableException("HTTP request returned server error: " + result.getStatusCode());
         }
+
+        // 429为下游限流，按下游要求的暂停时间延后处理，不丢弃消息
+        if (result.getStatusCode() == 429) {
+            log.warn("HTTP request throttled by downstream, traceId={}", message.getTraceId());
+            throw new DownstreamThrottledException("HTTP request throttled by downstream: 429",
+                    backpressure.retryDelay(context));
+        }
     }
 
     private HttpResponseResult executeWithRetry(HttpRequestContext context, int maxRetry) {
         HttpResponseResult result = null;
         int retryCount = 0;
 
-        do {
-            if (retryCount > 0) {
-                log.info("Retrying HTTP request, traceId={}, retry={}/{}",
-                        context.getTraceId(), retryCount, maxRetry);
-                sleep(calculateBackoff(retryCount));
-            }
-
+        while (true) {
             result = httpClientService.execute(context);
 
             if (result.isSuccess() && isSuccessStatusCode(result.getStatusCode())) {
@@ -75,9 +141,40 @@ public class AdapterService {
             }
 
             retryCount++;
-        } while (retryCount <= maxRetry && shouldRetry(result));
+            long delay = retryCount <= maxRetry && shouldRetry(result) ? retryDelay(context, retryCount) : -1;
+            if (delay < 0) {
+                return result;
+            }
+            log.info("Retrying HTTP request, traceId={}, retry={}/{}, delay={}ms",
+                    context.getTraceId(), retryCount, maxRetry, delay);
+            sleep(delay);
+        }
+    }
+
+    /**
+     * 异步重试，退避等待通过延迟执行器完成，不占用线程
+     *
+     * @param retryCount 当前是第几次重试（首次请求为0）
+     */
+    private CompletableFuture<HttpResponseResult> executeWithRetryAsync(HttpRequestContext context,
+                                                                        int maxRetry, int retryCount) {
+        return httpClientService.executeAsync(context).thenCompose(result -> {
+            int nextRetry = retryCount + 1;
+            if ((result.isSuccess() && isSuccessStatusCode(result.getStatusCode()))
+                    || nextRetry > maxRetry || !shouldRetry(result)) {
+                return CompletableFuture.completedFuture(result);
+            }
+            long delay = retryDelay(context, nextRetry);
+            if (delay < 0) {
+                return CompletableFuture.completedFuture(result);
+            }
 
-        return result;
+            log.info("Retrying async HTTP request, traceId={}, retry={}/{}, delay={}ms",
+                    context.getTraceId(), nextRetry, maxRetry, delay);
+            Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+            return CompletableFuture.runAsync(() -> { }, delayed)
+                    .thenCompose(ignored -> executeWithRetryAsync(context, maxRetry, nextRetry));
+        });
     }
 
     private boolean shouldRetry(HttpResponseResult result) {
@@ -92,8 +189,22 @@ public class AdapterService {
         return statusCode >= 200 && statusCode < 300;
     }
 
+    /**
+     * 重试前的等待时间：下游要求暂停（Retry-After、X-RateLimit-Reset）时等到暂停结束，代替固定的指数退避；
+     * 暂停时间超过退避上限时不在本地重试
+     *
+     * @return 等待毫秒数，不在本地重试时返回-1
+     */
+    private long retryDelay(HttpRequestContext context, int retryCount) {
+        long pause = backpressure.retryDelay(context);
+        if (pause <= 0) {
+            return calculateBackoff(retryCount);
+        }
+        return pause <= MAX_BACKOFF_MS ? pause : -1;
+    }
+
     private long calculateBackoff(int retryCount) {
-        return (long) Math.min(1000 * Math.pow(2, retryCount - 1), 30000);
+        return (long) Math.min(1000 * Math.pow(2, retryCount - 1), MAX_BACKOFF_MS);
     }
 
     private void sleep(long millis) {
@@ -1,26 +1,45 @@
 package com.example.adapter.service;
 
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.ResolvedApiConfig;
 import com.example.adapter.entity.ApiParamConfig;
 import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.RateLimitConfig;
 import com.example.adapter.entity.Tenant;
+import com.example.adapter.http.RequestPlanCompiler;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * 配置缓存服务 - 缓存租户和接口配置，减少数据库查询
+ * 配置缓存服务 - 缓存租户、接口、参数及限流配置，消息处理时不再查询数据库
  *
- * <p><b>注意：当前未启用</b></p>
- * <p>由于系统当前请求量不确定，租户配置需要实时查询数据库获取，保证配置变更的实时性。</p>
- * <p>此服务保留作为后续性能优化方案，当请求量增大时可启用缓存。</p>
+ * <p>管理端修改配置后通过 {@link ConfigChangeNotifier} 发布变更，所有节点收到后立即清除相关缓存；
+ * 过期时间仅作为通知丢失时的兜底。</p>
  *
- * <p>启用方式：在 AdapterService 中注入 ConfigCacheService 替代直接调用 TenantService/ExternalApiConfigService</p>
+ * <p>不存在或已禁用的租户、接口会在短时间内缓存查询结果（负缓存），避免错误路由的消息集中涌入时击穿数据库；
+ * 新建或修改租户、接口配置时清空负缓存。</p>
+ *
+ * <p>每次清除缓存前递增缓存代数；从数据库加载期间代数发生变化时，加载结果可能早于这次清除，
+ * 回填后立即清除，避免变更前的数据在清除之后写回并保留到过期。</p>
+ *
+ * <p>快照模式（adapter.config-cache.mode=SNAPSHOT）下由 {@link ConfigSnapshotService} 提供全量快照，
+ * 快照加载成功前仍按键缓存。关闭缓存（adapter.config-cache.enabled=false）时每次直接查询数据库。</p>
  *
  * @see AdapterService
  */
@@ -31,58 +50,225 @@ public class ConfigCacheService {
 
     private final TenantService tenantService;
     private final ExternalApiConfigService apiConfigService;
+    private final RequestPlanCompiler requestPlanCompiler;
+    private final ObjectProvider<ConfigSnapshotService> snapshotServiceProvider;
+
+    @Value("${adapter.config-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${adapter.config-cache.expire-minutes:5}")
+    private long expireMinutes;
+
+    @Value("${adapter.config-cache.negative-expire-seconds:30}")
+    private long negativeExpireSeconds;
 
     private Cache<String, Tenant> tenantCache;
     private Cache<String, ExternalApiConfig> apiConfigCache;
     private Cache<Long, List<ApiParamConfig>> paramConfigCache;
+    private Cache<String, Optional<RateLimitConfig>> rateLimitConfigCache;
+
+    /**
+     * 负缓存：tenantCode -> 租户不存在/已禁用；tenantCode:apiCode -> 接口不存在/已禁用
+     */
+    private Cache<String, ErrorCode> missingTenantCache;
+    private Cache<String, ErrorCode> missingApiConfigCache;
+
+    /**
+     * 缓存代数，每次清除缓存前递增
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private ConfigSnapshotService snapshotService;
 
     @PostConstruct
     public void init() {
+        snapshotService = snapshotServiceProvider.getIfAvailable();
+
         tenantCache = CacheBuilder.newBuilder()
                 .maximumSize(1000)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
                 .build();
 
         apiConfigCache = CacheBuilder.newBuilder()
                 .maximumSize(5000)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
                 .build();
 
         paramConfigCache = CacheBuilder.newBuilder()
                 .maximumSize(10000)
-                .expireAfterWrite(5, TimeUnit.MINUTES)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .build();
+
+        rateLimitConfigCache = CacheBuilder.newBuilder()
+                .maximumSize(5000)
+                .expireAfterWrite(expireMinutes, TimeUnit.MINUTES)
+                .build();
+
+        missingTenantCache = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(negativeExpireSeconds, TimeUnit.SECONDS)
+                .build();
+
+        missingApiConfigCache = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(negativeExpireSeconds, TimeUnit.SECONDS)
                 .build();
     }
 
-    public Tenant getActiveTenant(String tenantCode) {
+    /**
+     * 解析消息对应的全部配置
+     *
+     * @throws com.example.adapter.common.exception.BusinessException 租户或接口不存在、已禁用
+     */
+    public ResolvedApiConfig resolve(String tenantCode, String apiCode) {
+        if (enabled && snapshotService != null && snapshotService.isLoaded()) {
+            return snapshotService.resolve(tenantCode, apiCode);
+        }
+
+        if (!enabled) {
+            return apiConfigService.resolve(tenantCode, apiCode);
+        }
+
+        String apiKey = tenantCode + ":" + apiCode;
+        Tenant tenant = tenantCache.getIfPresent(tenantCode);
+        ExternalApiConfig apiConfig = apiConfigCache.getIfPresent(apiKey);
+        List<ApiParamConfig> paramConfigs = apiConfig != null ? paramConfigCache.getIfPresent(apiConfig.getId()) : null;
+        Optional<RateLimitConfig> rateLimitConfig = tenant != null
+                ? rateLimitConfigCache.getIfPresent(rateLimitKey(tenant.getId(), apiCode)) : null;
+        Optional<RateLimitConfig> tenantRateLimitConfig = tenant != null
+                ? rateLimitConfigCache.getIfPresent(rateLimitKey(tenant.getId(), null)) : null;
+        if (tenant != null && apiConfig != null && paramConfigs != null
+                && rateLimitConfig != null && tenantRateLimitConfig != null) {
+            ResolvedApiConfig resolved = new ResolvedApiConfig();
+            resolved.setTenant(tenant);
+            resolved.setApiConfig(apiConfig);
+            resolved.setParamConfigs(paramConfigs);
+            resolved.setRateLimitConfig(rateLimitConfig.orElse(null));
+            resolved.setTenantRateLimitConfig(tenantRateLimitConfig.orElse(null));
+            return resolved;
+        }
+
+        ErrorCode missing = missingTenantCache.getIfPresent(tenantCode);
+        if (missing == null) {
+            missing = missingApiConfigCache.getIfPresent(apiKey);
+        }
+        if (missing != null) {
+            throw new BusinessException(missing);
+        }
+
+        // 任一缓存未命中时一次查询全部配置，并回填各缓存
+        long loadGeneration = generation.get();
+        ResolvedApiConfig resolved;
         try {
-            return tenantCache.get(tenantCode, () -> tenantService.getActiveTenant(tenantCode));
-        } catch (Exception e) {
+            resolved = apiConfigService.resolve(tenantCode, apiCode);
+        } catch (BusinessException e) {
+            cacheMissing(tenantCode, apiKey, e);
+            if (generation.get() != loadGeneration) {
+                missingTenantCache.invalidate(tenantCode);
+                missingApiConfigCache.invalidate(apiKey);
+            }
+            throw e;
+        }
+        String apiRateLimitKey = rateLimitKey(resolved.getTenant().getId(), apiCode);
+        String tenantRateLimitKey = rateLimitKey(resolved.getTenant().getId(), null);
+        tenantCache.put(tenantCode, resolved.getTenant());
+        apiConfigCache.put(apiKey, resolved.getApiConfig());
+        paramConfigCache.put(resolved.getApiConfig().getId(), resolved.getParamConfigs());
+        rateLimitConfigCache.put(apiRateLimitKey, Optional.ofNullable(resolved.getRateLimitConfig()));
+        rateLimitConfigCache.put(tenantRateLimitKey, Optional.ofNullable(resolved.getTenantRateLimitConfig()));
+
+        // 回填后再检查代数：加载期间发生的清除可能早于回填，回填的数据不再保留
+        if (generation.get() != loadGeneration) {
+            tenantCache.invalidate(tenantCode);
+            apiConfigCache.invalidate(apiKey);
+            paramConfigCache.invalidate(resolved.getApiConfig().getId());
+            rateLimitConfigCache.invalidate(apiRateLimitKey);
+            rateLimitConfigCache.invalidate(tenantRateLimitKey);
+            log.debug("Config changed while loading, cached entries dropped: {}", apiKey);
+        }
+        return resolved;
+    }
+
+    public Tenant getActiveTenant(String tenantCode) {
+        if (!enabled) {
             return tenantService.getActiveTenant(tenantCode);
         }
+        return load(tenantCache, tenantCode, () -> tenantService.getActiveTenant(tenantCode));
     }
 
     public ExternalApiConfig getActiveConfig(String tenantCode, String apiCode) {
-        String cacheKey = tenantCode + ":" + apiCode;
-        try {
-            return apiConfigCache.get(cacheKey, () -> apiConfigService.getActiveConfig(tenantCode, apiCode));
-        } catch (Exception e) {
+        if (!enabled) {
             return apiConfigService.getActiveConfig(tenantCode, apiCode);
         }
+        String cacheKey = tenantCode + ":" + apiCode;
+        return load(apiConfigCache, cacheKey, () -> apiConfigService.getActiveConfig(tenantCode, apiCode));
     }
 
     public List<ApiParamConfig> getParamConfigs(Long configId) {
-        try {
-            return paramConfigCache.get(configId, () -> apiConfigService.getParamConfigs(configId));
-        } catch (Exception e) {
+        if (!enabled) {
             return apiConfigService.getParamConfigs(configId);
         }
+        return load(paramConfigCache, configId, () -> apiConfigService.getParamConfigs(configId));
+    }
+
+    /**
+     * 限流配置缓存键：tenantId:apiCode 为接口级配置，tenantId: 为租户级配置
+     */
+    private String rateLimitKey(Long tenantId, String apiCode) {
+        return tenantId + ":" + (apiCode != null ? apiCode : "");
+    }
+
+    private void cacheMissing(String tenantCode, String apiKey, BusinessException e) {
+        int code = e.getCode();
+        if (code == ErrorCode.TENANT_NOT_FOUND.getCode()) {
+            missingTenantCache.put(tenantCode, ErrorCode.TENANT_NOT_FOUND);
+        } else if (code == ErrorCode.TENANT_DISABLED.getCode()) {
+            missingTenantCache.put(tenantCode, ErrorCode.TENANT_DISABLED);
+        } else if (code == ErrorCode.API_CONFIG_NOT_FOUND.getCode()) {
+            missingApiConfigCache.put(apiKey, ErrorCode.API_CONFIG_NOT_FOUND);
+        } else if (code == ErrorCode.API_CONFIG_DISABLED.getCode()) {
+            missingApiConfigCache.put(apiKey, ErrorCode.API_CONFIG_DISABLED);
+        }
+    }
+
+    /**
+     * 处理配置变更事件（本节点或其他节点发布）
+     */
+    @EventListener
+    public void onConfigChange(ConfigChangeEvent event) {
+        generation.incrementAndGet();
+        Long id = event.getId();
+        switch (event.getType()) {
+            case TENANT:
+                // 变更事件只带ID，无法定位负缓存中的编码，新建或启用后直接清空负缓存
+                missingTenantCache.invalidateAll();
+                missingApiConfigCache.invalidateAll();
+                tenantCache.asMap().values().removeIf(tenant -> id.equals(tenant.getId()));
+                apiConfigCache.asMap().values().removeIf(config -> id.equals(config.getTenantId()));
+                evictRateLimitConfig(id);
+                break;
+            case API_CONFIG:
+                missingApiConfigCache.invalidateAll();
+                apiConfigCache.asMap().values().removeIf(config -> id.equals(config.getId()));
+                evictParamConfig(id);
+                break;
+            case PARAM:
+                evictParamConfig(id);
+                break;
+            case RATE_LIMIT:
+                evictRateLimitConfig(id);
+                break;
+            default:
+                break;
+        }
+        log.info("Evicted config cache for change: {}", event);
     }
 
     /**
      * 清除指定租户的缓存（配置更新时调用）
      */
     public void evictTenant(String tenantCode) {
+        generation.incrementAndGet();
         tenantCache.invalidate(tenantCode);
         log.info("Evicted tenant cache: {}", tenantCode);
     }
@@ -91,25 +277,61 @@ public class ConfigCacheService {
      * 清除指定接口配置的缓存（配置更新时调用）
      */
     public void evictApiConfig(String tenantCode, String apiCode) {
+        generation.incrementAndGet();
         apiConfigCache.invalidate(tenantCode + ":" + apiCode);
         log.info("Evicted api config cache: {}:{}", tenantCode, apiCode);
     }
 
     /**
-     * 清除参数配置缓存
+     * 清除参数配置缓存及对应的请求计划
      */
     public void evictParamConfig(Long configId) {
+        generation.incrementAndGet();
         paramConfigCache.invalidate(configId);
+        requestPlanCompiler.evict(configId);
         log.info("Evicted param config cache: {}", configId);
     }
 
+    /**
+     * 清除租户下所有限流配置缓存（租户级默认配置影响该租户的所有接口）
+     */
+    public void evictRateLimitConfig(Long tenantId) {
+        generation.incrementAndGet();
+        String prefix = tenantId + ":";
+        rateLimitConfigCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        log.info("Evicted rate limit config cache: {}", tenantId);
+    }
+
     /**
      * 清除所有缓存
      */
     public void evictAll() {
+        generation.incrementAndGet();
         tenantCache.invalidateAll();
         apiConfigCache.invalidateAll();
         paramConfigCache.invalidateAll();
+        rateLimitConfigCache.invalidateAll();
+        missingTenantCache.invalidateAll();
+        missingApiConfigCache.invalidateAll();
         log.info("Evicted all config caches");
     }
+
+    /**
+     * 从缓存加载，加载时抛出的业务异常原样抛出；加载期间缓存被清除时不保留加载结果
+     */
+    private <K, V> V load(Cache<K, V> cache, K key, Callable<V> loader) {
+        long loadGeneration = generation.get();
+        try {
+            V value = cache.get(key, loader);
+            if (generation.get() != loadGeneration) {
+                cache.invalidate(key);
+            }
+            return value;
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
 }
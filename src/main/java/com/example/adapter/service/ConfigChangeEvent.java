@@ -0,0 +1,67 @@
+package com.example.adapter.service;
+
+import lombok.Getter;
+
+/**
+ * 配置变更事件 - 管理端修改配置后发布，各节点据此清除本地缓存
+ *
+ * <p>跨节点传输格式为 {@code TYPE:id}</p>
+ */
+@Getter
+public class ConfigChangeEvent {
+
+    public enum Type {
+        /**
+         * 租户变更，id为租户ID
+         */
+        TENANT,
+        /**
+         * 接口配置变更，id为接口配置ID
+         */
+        API_CONFIG,
+        /**
+         * 参数配置变更，id为所属接口配置ID
+         */
+        PARAM,
+        /**
+         * 限流配置变更，id为租户ID
+         */
+        RATE_LIMIT
+    }
+
+    private final Type type;
+    private final Long id;
+
+    public ConfigChangeEvent(Type type, Long id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public String encode() {
+        return type.name() + ":" + id;
+    }
+
+    /**
+     * 解析跨节点消息，格式不正确时返回null
+     */
+    public static ConfigChangeEvent decode(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        int index = payload.indexOf(':');
+        if (index <= 0) {
+            return null;
+        }
+        try {
+            return new ConfigChangeEvent(Type.valueOf(payload.substring(0, index)),
+                    Long.valueOf(payload.substring(index + 1)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
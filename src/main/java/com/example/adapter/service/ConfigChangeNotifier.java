@@ -0,0 +1,80 @@
+package com.example.adapter.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 配置变更通知 - 本节点通过Spring事件清除缓存，其他节点通过Redis发布订阅接收变更
+ *
+ * <p>在事务中发布时，等事务提交后再通知，避免其他节点在提交前重新加载到旧数据。</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfigChangeNotifier implements MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${adapter.config-cache.channel:adapter:config-change}")
+    private String channel;
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * 发布配置变更
+     */
+    public void publish(ConfigChangeEvent.Type type, Long id) {
+        if (id == null) {
+            return;
+        }
+        ConfigChangeEvent event = new ConfigChangeEvent(type, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublish(event);
+                }
+            });
+        } else {
+            doPublish(event);
+        }
+    }
+
+    private void doPublish(ConfigChangeEvent event) {
+        eventPublisher.publishEvent(event);
+        try {
+            redisTemplate.convertAndSend(channel, event.encode());
+            log.info("Published config change: {}", event);
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖缓存过期时间兜底
+            log.error("Failed to publish config change: {}", event, e);
+        }
+    }
+
+    /**
+     * 接收其他节点（包括本节点）发布的配置变更
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        ConfigChangeEvent event = ConfigChangeEvent.decode(payload);
+        if (event == null) {
+            log.warn("Ignored invalid config change message: {}", payload);
+            return;
+        }
+        eventPublisher.publishEvent(event);
+    }
+}
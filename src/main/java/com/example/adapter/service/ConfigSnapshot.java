@@ -0,0 +1,124 @@
+package com.example.adapter.service;
+
+import com.example.adapter.dto.ResolvedApiConfig;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.RateLimitConfig;
+import com.example.adapter.entity.Tenant;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 不可变的配置快照 - 保存全部未删除的配置行及按 tenantCode:apiCode 预组装的结果
+ *
+ * <p>快照创建后不再修改，刷新时基于当前快照生成新快照并整体替换，读取无需加锁。</p>
+ */
+final class ConfigSnapshot {
+
+    private static final Comparator<ApiParamConfig> PARAM_ORDER = Comparator
+            .comparing(ApiParamConfig::getSortOrder, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ApiParamConfig::getId);
+
+    final Map<Long, Tenant> tenants;
+    final Map<Long, ExternalApiConfig> apiConfigs;
+    final Map<Long, ApiParamConfig> paramConfigs;
+    final Map<Long, RateLimitConfig> rateLimitConfigs;
+
+    /**
+     * 已加载配置中最大的 update_time，作为下次增量查询的起点
+     */
+    final LocalDateTime lastSeen;
+
+    private final Map<String, Tenant> tenantsByCode;
+    private final Map<String, ResolvedApiConfig> resolved;
+
+    ConfigSnapshot(Map<Long, Tenant> tenants, Map<Long, ExternalApiConfig> apiConfigs,
+                   Map<Long, ApiParamConfig> paramConfigs, Map<Long, RateLimitConfig> rateLimitConfigs,
+                   LocalDateTime lastSeen) {
+        this.tenants = Collections.unmodifiableMap(tenants);
+        this.apiConfigs = Collections.unmodifiableMap(apiConfigs);
+        this.paramConfigs = Collections.unmodifiableMap(paramConfigs);
+        this.rateLimitConfigs = Collections.unmodifiableMap(rateLimitConfigs);
+        this.lastSeen = lastSeen;
+
+        Map<String, Tenant> byCode = new HashMap<>(tenants.size() * 2);
+        for (Tenant tenant : tenants.values()) {
+            byCode.put(tenant.getTenantCode(), tenant);
+        }
+        this.tenantsByCode = Collections.unmodifiableMap(byCode);
+
+        Map<Long, List<ApiParamConfig>> paramsByConfig = new HashMap<>();
+        for (ApiParamConfig param : paramConfigs.values()) {
+            paramsByConfig.computeIfAbsent(param.getConfigId(), id -> new ArrayList<>()).add(param);
+        }
+
+        Map<String, RateLimitConfig> rateLimitByKey = new HashMap<>();
+        for (RateLimitConfig rateLimit : rateLimitConfigs.values()) {
+            rateLimitByKey.put(rateLimit.getTenantId() + ":" + rateLimit.getApiCode(), rateLimit);
+        }
+
+        Map<String, ResolvedApiConfig> resolvedMap = new HashMap<>(apiConfigs.size() * 2);
+        for (ExternalApiConfig apiConfig : apiConfigs.values()) {
+            Tenant tenant = tenants.get(apiConfig.getTenantId());
+            if (tenant == null) {
+                continue;
+            }
+            List<ApiParamConfig> params = paramsByConfig.getOrDefault(apiConfig.getId(), new ArrayList<>());
+            params.sort(PARAM_ORDER);
+
+
+            ResolvedApiConfig entry = new ResolvedApiConfig();
+            entry.setTenant(tenant);
+            entry.setApiConfig(apiConfig);
+            entry.setParamConfigs(Collections.unmodifiableList(params));
+            entry.setRateLimitConfig(rateLimitByKey.get(tenant.getId() + ":" + apiConfig.getApiCode()));
+            entry.setTenantRateLimitConfig(rateLimitByKey.get(tenant.getId() + ":" + null));
+            resolvedMap.put(key(tenant.getTenantCode(), apiConfig.getApiCode()), entry);
+        }
+        this.resolved = Collections.unmodifiableMap(resolvedMap);
+    }
+
+    ResolvedApiConfig get(String tenantCode, String apiCode) {
+        return resolved.get(key(tenantCode, apiCode));
+    }
+
+    Tenant getTenant(String tenantCode) {
+        return tenantsByCode.get(tenantCode);
+    }
+
+    int size() {
+        return resolved.size();
+    }
+
+    static String key(String tenantCode, String apiCode) {
+        return tenantCode + ":" + apiCode;
+    }
+
+    /**
+     * 将增量行合并到副本中：deleted=1 的行移除，其余覆盖
+     *
+     * @return 是否有变化
+     */
+    static <T> boolean merge(Map<Long, T> target, List<T> changedRows,
+                             Function<T, Long> idGetter,
+                             Function<T, Integer> deletedGetter) {
+        boolean changed = false;
+        for (T row : changedRows) {
+            Long id = idGetter.apply(row);
+            if (Integer.valueOf(1).equals(deletedGetter.apply(row))) {
+                changed |= target.remove(id) != null;
+            } else {
+                changed |= !Objects.equals(target.put(id, row), row);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.adapter.service;
+
+import com.example.adapter.common.constant.ConfigCacheMode;
+import com.example.adapter.common.constant.StatusConstant;
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.ResolvedApiConfig;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.RateLimitConfig;
+import com.example.adapter.entity.Tenant;
+import com.example.adapter.repository.ApiParamConfigMapper;
+import com.example.adapter.repository.ExternalApiConfigMapper;
+import com.example.adapter.repository.RateLimitConfigMapper;
+import com.example.adapter.repository.TenantMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 配置快照服务 - 启动时全量加载配置，后台按 update_time 增量刷新
+ *
+ * <p>增量查询包含已逻辑删除的记录，据此从快照中移除；查询起点向前回退 overlap-seconds，
+ * 避免同一秒内的修改或各节点时钟偏差导致漏读。有变化时生成新快照原子替换，消息处理只做一次哈希查找。</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "adapter.config-cache.mode", havingValue = ConfigCacheMode.SNAPSHOT)
+public class ConfigSnapshotService {
+
+    private final TenantMapper tenantMapper;
+    private final ExternalApiConfigMapper apiConfigMapper;
+    private final ApiParamConfigMapper paramConfigMapper;
+    private final RateLimitConfigMapper rateLimitConfigMapper;
+
+    @Value("${adapter.config-cache.snapshot.overlap-seconds:5}")
+    private long overlapSeconds;
+
+    /**
+     * 当前快照，加载成功前为null
+     */
+    private volatile ConfigSnapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Failed to load config snapshot, will retry in background", e);
+        }
+    }
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * 解析消息对应的配置
+     *
+     * @throws BusinessException 租户或接口不存在、已禁用
+     */
+    public ResolvedApiConfig resolve(String tenantCode, String apiCode) {
+        ConfigSnapshot current = snapshot;
+        ResolvedApiConfig resolved = current.get(tenantCode, apiCode);
+        if (resolved != null
+                && resolved.getTenant().getStatus() == StatusConstant.ENABLED
+                && resolved.getApiConfig().getStatus() == StatusConstant.ENABLED) {
+            return resolved;
+        }
+
+        Tenant tenant = current.getTenant(tenantCode);
+        if (tenant == null) {
+            throw new BusinessException(ErrorCode.TENANT_NOT_FOUND);
+        }
+        if (tenant.getStatus() != StatusConstant.ENABLED) {
+            throw new BusinessException(ErrorCode.TENANT_DISABLED);
+        }
+        if (resolved == null) {
+            throw new BusinessException(ErrorCode.API_CONFIG_NOT_FOUND);
+        }
+        throw new BusinessException(ErrorCode.API_CONFIG_DISABLED);
+    }
+
+    @Scheduled(fixedDelayString = "${adapter.config-cache.snapshot.poll-interval-ms:1000}")
+    public void poll() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Failed to refresh config snapshot, error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到配置变更通知时立即刷新，不等待下一次轮询
+     */
+    @EventListener
+    public void onConfigChange(ConfigChangeEvent event) {
+        poll();
+    }
+
+    synchronized void refresh() {
+        ConfigSnapshot current = snapshot;
+        if (current == null) {
+            snapshot = loadAll();
+            log.info("Config snapshot loaded, apis={}, lastSeen={}", snapshot.size(), snapshot.lastSeen);
+            return;
+        }
+
+        LocalDateTime since = current.lastSeen != null
+                ? current.lastSeen.minusSeconds(overlapSeconds) : LocalDateTime.of(1970, 1, 1, 0, 0);
+        List<Tenant> tenants = tenantMapper.selectUpdatedSince(since);
+        List<ExternalApiConfig> apiConfigs = apiConfigMapper.selectUpdatedSince(since);
+        List<ApiParamConfig> paramConfigs = paramConfigMapper.selectUpdatedSince(since);
+        List<RateLimitConfig> rateLimitConfigs = rateLimitConfigMapper.selectUpdatedSince(since);
+
+        Map<Long, Tenant> tenantMap = new HashMap<>(current.tenants);
+        Map<Long, ExternalApiConfig> apiConfigMap = new HashMap<>(current.apiConfigs);
+        Map<Long, ApiParamConfig> paramConfigMap = new HashMap<>(current.paramConfigs);
+        Map<Long, RateLimitConfig> rateLimitConfigMap = new HashMap<>(current.rateLimitConfigs);
+
+        boolean changed = ConfigSnapshot.merge(tenantMap, tenants, Tenant::getId, Tenant::getDeleted);
+        changed |= ConfigSnapshot.merge(apiConfigMap, apiConfigs, ExternalApiConfig::getId, ExternalApiConfig::getDeleted);
+        changed |= ConfigSnapshot.merge(paramConfigMap, paramConfigs, ApiParamConfig::getId, ApiParamConfig::getDeleted);
+        changed |= ConfigSnapshot.merge(rateLimitConfigMap, rateLimitConfigs,
+                RateLimitConfig::getId, RateLimitConfig::getDeleted);
+        if (!changed) {
+            return;
+        }
+
+        LocalDateTime lastSeen = max(current.lastSeen, tenants, Tenant::getUpdateTime);
+        lastSeen = max(lastSeen, apiConfigs, ExternalApiConfig::getUpdateTime);
+        lastSeen = max(lastSeen, paramConfigs, ApiParamConfig::getUpdateTime);
+        lastSeen = max(lastSeen, rateLimitConfigs, RateLimitConfig::getUpdateTime);
+
+        snapshot = new ConfigSnapshot(tenantMap, apiConfigMap, paramConfigMap, rateLimitConfigMap, lastSeen);
+        log.info("Config snapshot refreshed, apis={}, lastSeen={}", snapshot.size(), lastSeen);
+    }
+
+    private ConfigSnapshot loadAll() {
+        List<Tenant> tenants = tenantMapper.selectList(null);
+        List<ExternalApiConfig> apiConfigs = apiConfigMapper.selectList(null);
+        List<ApiParamConfig> paramConfigs = paramConfigMapper.selectList(null);
+        List<RateLimitConfig> rateLimitConfigs = rateLimitConfigMapper.selectList(null);
+
+        Map<Long, Tenant> tenantMap = new HashMap<>();
+        Map<Long, ExternalApiConfig> apiConfigMap = new HashMap<>();
+        Map<Long, ApiParamConfig> paramConfigMap = new HashMap<>();
+        Map<Long, RateLimitConfig> rateLimitConfigMap = new HashMap<>();
+        ConfigSnapshot.merge(tenantMap, tenants, Tenant::getId, Tenant::getDeleted);
+        ConfigSnapshot.merge(apiConfigMap, apiConfigs, ExternalApiConfig::getId, ExternalApiConfig::getDeleted);
+        ConfigSnapshot.merge(paramConfigMap, paramConfigs, ApiParamConfig::getId, ApiParamConfig::getDeleted);
+        ConfigSnapshot.merge(rateLimitConfigMap, rateLimitConfigs, RateLimitConfig::getId, RateLimitConfig::getDeleted);
+
+        LocalDateTime lastSeen = max(null, tenants, Tenant::getUpdateTime);
+        lastSeen = max(lastSeen, apiConfigs, ExternalApiConfig::getUpdateTime);
+        lastSeen = max(lastSeen, paramConfigs, ApiParamConfig::getUpdateTime);
+        lastSeen = max(lastSeen, rateLimitConfigs, RateLimitConfig::getUpdateTime);
+
+        return new ConfigSnapshot(tenantMap, apiConfigMap, paramConfigMap, rateLimitConfigMap, lastSeen);
+    }
+
+    private <T> LocalDateTime max(LocalDateTime current, List<T> rows, Function<T, LocalDateTime> updateTimeGetter) {
+        LocalDateTime max = current;
+        for (T row : rows) {
+            LocalDateTime updateTime = updateTimeGetter.apply(row);
+            if (updateTime != null && (max == null || updateTime.isAfter(max))) {
+                max = updateTime;
+            }
+        }
+        return max;
+    }
+}
@@ -5,9 +5,12 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.adapter.common.constant.StatusConstant;
 import com.example.adapter.common.exception.BusinessException;
 import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.ResolvedApiConfig;
 import com.example.adapter.entity.ApiParamConfig;
 import com.example.adapter.entity.ExternalApiConfig;
 import com.example.adapter.entity.Tenant;
+import com.example.adapter.http.HedgingPolicy;
+import com.example.adapter.http.HttpClientService;
 import com.example.adapter.repository.ApiParamConfigMapper;
 import com.example.adapter.repository.ExternalApiConfigMapper;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +29,9 @@ public class ExternalApiConfigService {
     private final ExternalApiConfigMapper apiConfigMapper;
     private final ApiParamConfigMapper paramConfigMapper;
     private final TenantService tenantService;
+    private final ConfigChangeNotifier configChangeNotifier;
+    private final HttpClientService httpClientService;
+    private final HedgingPolicy hedgingPolicy;
 
     public ExternalApiConfig getByTenantAndApiCode(Long tenantId, String apiCode) {
         LambdaQueryWrapper<ExternalApiConfig> wrapper = new LambdaQueryWrapper<>();
@@ -46,6 +52,27 @@ public class ExternalApiConfigService {
         return config;
     }
 
+    /**
+     * 一次查询解析消息所需的全部配置（租户、接口配置、参数配置、生效的限流配置），校验规则与
+     * {@link TenantService#getActiveTenant(String)}、{@link #getActiveConfig(String, String)} 一致
+     */
+    public ResolvedApiConfig resolve(String tenantCode, String apiCode) {
+        ResolvedApiConfig resolved = apiConfigMapper.selectResolved(tenantCode, apiCode);
+        if (resolved == null || resolved.getTenant() == null) {
+            throw new BusinessException(ErrorCode.TENANT_NOT_FOUND);
+        }
+        if (resolved.getTenant().getStatus() != StatusConstant.ENABLED) {
+            throw new BusinessException(ErrorCode.TENANT_DISABLED);
+        }
+        if (resolved.getApiConfig() == null) {
+            throw new BusinessException(ErrorCode.API_CONFIG_NOT_FOUND);
+        }
+        if (resolved.getApiConfig().getStatus() != StatusConstant.ENABLED) {
+            throw new BusinessException(ErrorCode.API_CONFIG_DISABLED);
+        }
+        return resolved;
+    }
+
     public List<ApiParamConfig> getParamConfigs(Long configId) {
         LambdaQueryWrapper<ApiParamConfig> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(ApiParamConfig::getConfigId, configId)
@@ -60,8 +87,11 @@ public class ExternalApiConfigService {
         if (existing != null) {
             throw new BusinessException(ErrorCode.API_CODE_EXISTS);
         }
+        checkClientProfile(config.getClientProfile());
+        checkHedge(config);
         config.setStatus(StatusConstant.ENABLED);
         apiConfigMapper.insert(config);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.API_CONFIG, config.getId());
         return config;
     }
 
@@ -94,6 +124,18 @@ public class ExternalApiConfigService {
         if (config.getTimeout() != null) {
             existing.setTimeout(config.getTimeout());
         }
+        if (config.getClientProfile() != null) {
+            // 传空字符串表示改回默认客户端
+            checkClientProfile(config.getClientProfile());
+            existing.setClientProfile(config.getClientProfile());
+        }
+        if (config.getHedgeEnabled() != null) {
+            existing.setHedgeEnabled(config.getHedgeEnabled());
+        }
+        if (config.getHedgeDelayMs() != null) {
+            existing.setHedgeDelayMs(config.getHedgeDelayMs());
+        }
+        checkHedge(existing);
         if (config.getRetryCount() != null) {
             existing.setRetryCount(config.getRetryCount());
         }
@@ -104,6 +146,7 @@ public class ExternalApiConfigService {
             existing.setStatus(config.getStatus());
         }
         apiConfigMapper.updateById(existing);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.API_CONFIG, id);
         return existing;
     }
 
@@ -117,6 +160,7 @@ public class ExternalApiConfigService {
         LambdaQueryWrapper<ApiParamConfig> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(ApiParamConfig::getConfigId, id);
         paramConfigMapper.delete(wrapper);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.API_CONFIG, id);
     }
 
     public Page<ExternalApiConfig> list(int pageNum, int pageSize, Long tenantId, String apiCode, String apiName) {
@@ -146,6 +190,7 @@ public class ExternalApiConfigService {
     public ApiParamConfig createParam(ApiParamConfig param) {
         getById(param.getConfigId());
         paramConfigMapper.insert(param);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.PARAM, param.getConfigId());
         return param;
     }
 
@@ -179,6 +224,7 @@ public class ExternalApiConfigService {
             existing.setSortOrder(param.getSortOrder());
         }
         paramConfigMapper.updateById(existing);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.PARAM, existing.getConfigId());
         return existing;
     }
 
@@ -188,5 +234,28 @@ public class ExternalApiConfigService {
             throw new BusinessException(ErrorCode.PARAM_CONFIG_NOT_FOUND);
         }
         paramConfigMapper.deleteById(id);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.PARAM, existing.getConfigId());
+    }
+
+    private void checkClientProfile(String clientProfile) {
+        if (StringUtils.hasText(clientProfile) && !httpClientService.hasProfile(clientProfile)) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "HTTP客户端配置档不存在: " + clientProfile);
+        }
+    }
+
+    /**
+     * 对冲会重复发送请求，只允许幂等方法开启
+     */
+    private void checkHedge(ExternalApiConfig config) {
+        if (config.getHedgeEnabled() == null || config.getHedgeEnabled() != StatusConstant.ENABLED) {
+            return;
+        }
+        String method = StringUtils.hasText(config.getHttpMethod()) ? config.getHttpMethod() : "POST";
+        if (!hedgingPolicy.isIdempotent(method)) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "非幂等请求方法不允许开启对冲: " + method);
+        }
+        if (config.getHedgeDelayMs() != null && config.getHedgeDelayMs() < 0) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "对冲延迟不能小于0");
+        }
     }
 }
@@ -20,7 +20,7 @@ public class RequestLogService {
     private final RequestLogMapper requestLogMapper;
     private final ObjectMapper objectMapper;
 
-    @Async
+    @Async("asyncExecutor")
     public void logRequest(HttpRequestContext context, HttpResponseResult result) {
         try {
             RequestLog requestLog = new RequestLog();
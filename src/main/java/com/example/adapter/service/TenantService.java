@@ -18,6 +18,7 @@ import org.springframework.util.StringUtils;
 public class TenantService {
 
     private final TenantMapper tenantMapper;
+    private final ConfigChangeNotifier configChangeNotifier;
 
     public Tenant getByTenantCode(String tenantCode) {
         LambdaQueryWrapper<Tenant> wrapper = new LambdaQueryWrapper<>();
@@ -43,6 +44,7 @@ public class TenantService {
         }
         tenant.setStatus(StatusConstant.ENABLED);
         tenantMapper.insert(tenant);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.TENANT, tenant.getId());
         return tenant;
     }
 
@@ -69,6 +71,7 @@ public class TenantService {
             existing.setStatus(tenant.getStatus());
         }
         tenantMapper.updateById(existing);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.TENANT, id);
         return existing;
     }
 
@@ -78,6 +81,7 @@ public class TenantService {
             throw new BusinessException(ErrorCode.TENANT_NOT_FOUND);
         }
         tenantMapper.deleteById(id);
+        configChangeNotifier.publish(ConfigChangeEvent.Type.TENANT, id);
     }
 
     public Page<Tenant> list(int pageNum, int pageSize, String tenantCode, String tenantName) {
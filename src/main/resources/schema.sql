@@ -27,6 +27,9 @@ CREATE TABLE IF NOT EXISTS external_api_config (
     http_method VARCHAR(16) NOT NULL DEFAULT 'POST' COMMENT '请求方法：GET/POST/PUT/DELETE',
     content_type VARCHAR(64) DEFAULT 'application/json' COMMENT '内容类型',
     timeout INT NOT NULL DEFAULT 30000 COMMENT '超时时间（毫秒）',
+    client_profile VARCHAR(64) COMMENT 'HTTP客户端配置档，为空时使用默认客户端',
+    hedge_enabled TINYINT NOT NULL DEFAULT 0 COMMENT '是否发送对冲请求：0-否，1-是（仅幂等方法）',
+    hedge_delay_ms INT COMMENT '对冲延迟（毫秒），为空时按最近耗时的分位数',
     retry_count INT NOT NULL DEFAULT 3 COMMENT '重试次数',
     description VARCHAR(512) COMMENT '接口描述',
     status TINYINT NOT NULL DEFAULT 1 COMMENT '状态：0-禁用，1-启用',
@@ -62,7 +65,7 @@ CREATE TABLE IF NOT EXISTS rate_limit_config (
     id BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
     tenant_id BIGINT NOT NULL COMMENT '租户ID',
     api_code VARCHAR(64) COMMENT '接口编码（空表示租户级别限流）',
-    limit_type VARCHAR(32) NOT NULL DEFAULT 'QPS' COMMENT '限流类型：QPS/CONCURRENT',
+    limit_type VARCHAR(32) NOT NULL DEFAULT 'QPS' COMMENT '限流类型：QPS/GCRA/SLIDING_WINDOW/CONCURRENT',
     limit_value INT NOT NULL DEFAULT 100 COMMENT '限流值',
     time_window INT NOT NULL DEFAULT 1 COMMENT '时间窗口（秒）',
     status TINYINT NOT NULL DEFAULT 1 COMMENT '状态：0-禁用，1-启用',
@@ -0,0 +1,16 @@
+-- 已有库升级脚本：schema.sql 中的建表语句不会修改已存在的表，新增的列需在已有库上执行以下语句（每条只执行一次）
+
+USE http_adapter;
+
+-- HTTP客户端配置档
+ALTER TABLE external_api_config
+    ADD COLUMN client_profile VARCHAR(64) COMMENT 'HTTP客户端配置档，为空时使用默认客户端' AFTER timeout;
+
+-- 对冲请求
+ALTER TABLE external_api_config
+    ADD COLUMN hedge_enabled TINYINT NOT NULL DEFAULT 0 COMMENT '是否发送对冲请求：0-否，1-是（仅幂等方法）' AFTER client_profile,
+    ADD COLUMN hedge_delay_ms INT COMMENT '对冲延迟（毫秒），为空时按最近耗时的分位数' AFTER hedge_enabled;
+
+-- 限流类型增加 GCRA、SLIDING_WINDOW（只更新列注释）
+ALTER TABLE rate_limit_config
+    MODIFY COLUMN limit_type VARCHAR(32) NOT NULL DEFAULT 'QPS' COMMENT '限流类型：QPS/GCRA/SLIDING_WINDOW/CONCURRENT';
@@ -0,0 +1,207 @@
+package com.example.adapter.common.breaker;
+
+import com.example.adapter.common.breaker.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCircuitBreakerTest {
+
+    /**
+     * 窗口4次、至少2次调用、失败率50%、慢调用（≥100ms）率50%
+     */
+    private static SlidingWindowCircuitBreaker breaker(long openMillis, int halfOpenProbes) {
+        return new SlidingWindowCircuitBreaker("test", 4, 2, 50, 100, 50, openMillis, halfOpenProbes);
+    }
+
+    private static void call(SlidingWindowCircuitBreaker breaker, long durationMillis, boolean failure) {
+        SlidingWindowCircuitBreaker.Permit permit = breaker.tryAcquire();
+        assertThat(permit).isNotNull();
+        permit.onResult(durationMillis, failure);
+    }
+
+    private static void trip(SlidingWindowCircuitBreaker breaker) {
+        call(breaker, 1, true);
+        call(breaker, 1, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void opensWhenFailureRateReachedAndRejectsWhileOpen() {
+        SlidingWindowCircuitBreaker breaker = breaker(60_000, 1);
+
+        call(breaker, 1, true);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        call(breaker, 1, false);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+        assertThat(breaker.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void opensWhenSlowCallRateReached() {
+        SlidingWindowCircuitBreaker breaker = breaker(60_000, 1);
+
+        call(breaker, 1, false);
+        call(breaker, 1, false);
+        call(breaker, 200, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        call(breaker, 200, false);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        SlidingWindowCircuitBreaker breaker = breaker(60_000, 1);
+
+        call(breaker, 1, false);
+        call(breaker, 1, false);
+        call(breaker, 1, true);
+        assertThat(breaker.getFailureRate()).isGreaterThan(0);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, 1, false);
+        }
+
+        assertThat(breaker.getBufferedCalls()).isEqualTo(4);
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void halfOpenLimitsProbesAndClosesWhenProbesSucceed() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 2);
+        trip(breaker);
+
+        SlidingWindowCircuitBreaker.Permit first = breaker.tryAcquire();
+        SlidingWindowCircuitBreaker.Permit second = breaker.tryAcquire();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(breaker.tryAcquire()).isNull();
+
+        first.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        second.onResult(1, false);
+
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(breaker.getBufferedCalls()).isZero();
+    }
+
+    @Test
+    void reopensWhenProbesFail() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        trip(breaker);
+
+        breaker.tryAcquire().onResult(1, true);
+
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void callStartedWhileClosedIsNotCountedAsProbe() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        SlidingWindowCircuitBreaker.Permit stale = breaker.tryAcquire();
+        trip(breaker);
+
+        SlidingWindowCircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        // 关闭期间发出的调用在半开期间成功返回，不能关闭熔断
+        stale.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        probe.onResult(1, true);
+        assertThat(breaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void failedCallStartedWhileClosedDoesNotReopenHalfOpenBreaker() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        SlidingWindowCircuitBreaker.Permit stale = breaker.tryAcquire();
+        trip(breaker);
+
+        SlidingWindowCircuitBreaker.Permit probe = breaker.tryAcquire();
+        stale.onResult(1, true);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+
+        probe.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void probeFromPreviousHalfOpenRoundIsIgnored() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        trip(breaker);
+        SlidingWindowCircuitBreaker.Permit previous = breaker.tryAcquire();
+
+        breaker.reset();
+        trip(breaker);
+        SlidingWindowCircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertThat(probe).isNotNull();
+
+        previous.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+
+        probe.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void cancelledProbeReturnsItsSlot() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        trip(breaker);
+
+        breaker.tryAcquire().onCancelled();
+
+        SlidingWindowCircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertThat(probe).isNotNull();
+        assertThat(breaker.tryAcquire()).isNull();
+        probe.onResult(1, false);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    void cancelledStaleCallDoesNotReturnProbeSlot() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 1);
+        SlidingWindowCircuitBreaker.Permit stale = breaker.tryAcquire();
+        trip(breaker);
+
+        assertThat(breaker.tryAcquire()).isNotNull();
+        stale.onCancelled();
+
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void permitReportsOnlyOnce() {
+        SlidingWindowCircuitBreaker breaker = breaker(0, 2);
+        trip(breaker);
+
+        SlidingWindowCircuitBreaker.Permit probe = breaker.tryAcquire();
+        probe.onResult(1, false);
+        probe.onResult(1, false);
+        probe.onCancelled();
+
+        assertThat(breaker.getState()).isEqualTo(State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isNotNull();
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    void resetIgnoresCallsStartedBeforeReset() {
+        SlidingWindowCircuitBreaker breaker = breaker(60_000, 1);
+        SlidingWindowCircuitBreaker.Permit stale = breaker.tryAcquire();
+        trip(breaker);
+
+        breaker.reset();
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+        stale.onResult(1, true);
+        call(breaker, 1, true);
+
+        assertThat(breaker.getBufferedCalls()).isEqualTo(1);
+        assertThat(breaker.getState()).isEqualTo(State.CLOSED);
+    }
+}
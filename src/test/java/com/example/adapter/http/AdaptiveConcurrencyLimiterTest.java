@@ -0,0 +1,169 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.HttpRequestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 按调用结果以AIMD方式调整并发上限，归还的许可直接转交给排队的调用
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final String HOST = "api.example.com:80";
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private HttpRequestContext context;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveConcurrencyLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "initialLimit", 2);
+        ReflectionTestUtils.setField(limiter, "minLimit", 1);
+        ReflectionTestUtils.setField(limiter, "maxLimit", 4);
+        ReflectionTestUtils.setField(limiter, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(limiter, "rttTolerance", 2.0);
+        ReflectionTestUtils.setField(limiter, "rttWindowMs", 60000L);
+        ReflectionTestUtils.setField(limiter, "queueTimeoutMs", 60000L);
+        ReflectionTestUtils.setField(limiter, "maxQueue", 2);
+        limiter.init();
+
+        context = new HttpRequestContext();
+        context.setUrl("http://api.example.com/users");
+    }
+
+    @Test
+    void limitGrowsAdditivelyWhenSaturated() {
+        // 上限2、两个调用同时进行：每次正常结束加 1/上限，三轮后超过3
+        for (int round = 0; round < 3; round++) {
+            AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+            AdaptiveConcurrencyLimiter.Permit p2 = acquireNow();
+            p1.release(false);
+            p2.release(false);
+        }
+        assertThat(state()).startsWith("limit=3, inFlight=0");
+
+        for (int round = 0; round < 20; round++) {
+            AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+            AdaptiveConcurrencyLimiter.Permit p2 = acquireNow();
+            AdaptiveConcurrencyLimiter.Permit p3 = acquireNow();
+            p1.release(false);
+            p2.release(false);
+            p3.release(false);
+        }
+        assertThat(state()).startsWith("limit=4,");
+    }
+
+    @Test
+    void limitDoesNotGrowWhenUnderused() {
+        ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+
+        for (int i = 0; i < 10; i++) {
+            acquireNow().release(false);
+        }
+
+        assertThat(state()).startsWith("limit=4,");
+    }
+
+    @Test
+    void overloadDecreasesLimitMultiplicativelyOncePerRtt() throws InterruptedException {
+        ReflectionTestUtils.setField(limiter, "initialLimit", 4);
+        AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+        AdaptiveConcurrencyLimiter.Permit p2 = acquireNow();
+        Thread.sleep(5);
+
+        p1.release(true);
+        assertThat(state()).startsWith("limit=2,");
+
+        // 下调之前发出的调用失败不再重复下调
+        p2.release(true);
+        assertThat(state()).startsWith("limit=2, inFlight=0");
+
+        acquireNow().release(true);
+        assertThat(state()).startsWith("limit=1,");
+        acquireNow().release(true);
+        assertThat(state()).startsWith("limit=1,");
+    }
+
+    @Test
+    void cancelReturnsPermitWithoutAdjustingLimit() {
+        AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+        acquireNow().cancel();
+        p1.cancel();
+        p1.release(true);
+
+        assertThat(state()).startsWith("limit=2, inFlight=0");
+    }
+
+    @Test
+    void releaseHandsPermitToQueuedWaiter() {
+        AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+        AdaptiveConcurrencyLimiter.Permit p2 = acquireNow();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter = limiter.acquire(context);
+        assertThat(waiter).isNotDone();
+        assertThat(state()).contains("queued=1");
+
+        p1.release(false);
+
+        assertThat(waiter).isCompleted();
+        assertThat(state()).contains("inFlight=2, queued=0");
+        waiter.join().release(false);
+        p2.release(false);
+        assertThat(state()).contains("inFlight=0");
+    }
+
+    @Test
+    void waiterStaysQueuedWhileOverLoweredLimit() {
+        AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+        AdaptiveConcurrencyLimiter.Permit p2 = acquireNow();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiter = limiter.acquire(context);
+
+        // 上限降到1，进行中的调用仍有1个，不转交
+        p1.release(true);
+        assertThat(waiter).isNotDone();
+        assertThat(state()).startsWith("limit=1, inFlight=1, queued=1");
+
+        p2.release(false);
+        assertThat(waiter).isCompleted();
+        assertThat(state()).contains("inFlight=1, queued=0");
+    }
+
+    @Test
+    void cancelledWaiterIsSkipped() {
+        AdaptiveConcurrencyLimiter.Permit p1 = acquireNow();
+        acquireNow();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> first = limiter.acquire(context);
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second = limiter.acquire(context);
+
+        first.cancel(false);
+        p1.release(false);
+
+        assertThat(second).isCompleted();
+        assertThat(state()).contains("inFlight=2, queued=0");
+    }
+
+    @Test
+    void fullQueueRejectsImmediately() {
+        acquireNow();
+        acquireNow();
+        limiter.acquire(context);
+        limiter.acquire(context);
+
+        assertThat(limiter.acquire(context)).isNull();
+    }
+
+    private AdaptiveConcurrencyLimiter.Permit acquireNow() {
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> future = limiter.acquire(context);
+        assertThat(future).isCompleted();
+        return future.join();
+    }
+
+    private String state() {
+        return limiter.getLimits().get(HOST);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.adapter.http;
+
+import com.example.adapter.dto.HttpRequestContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对冲延迟取最近耗时的分位数，对冲次数受按接口累积的预算限制
+ */
+class HedgingPolicyTest {
+
+    private HedgingPolicy policy;
+    private HttpRequestContext context;
+
+    @BeforeEach
+    void setUp() {
+        policy = new HedgingPolicy();
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "idempotentMethods", Arrays.asList("GET", " head"));
+        ReflectionTestUtils.setField(policy, "percentile", 95);
+        ReflectionTestUtils.setField(policy, "budgetPercent", 25.0);
+        policy.init();
+
+        context = new HttpRequestContext();
+        context.setTenantCode("t1");
+        context.setApiCode("a1");
+        context.setMethod("GET");
+        context.setHedgeDelay(0);
+    }
+
+    @Test
+    void onlyIdempotentMethodsAreEligible() {
+        assertThat(policy.isEligible(context)).isTrue();
+        context.setMethod("head");
+        assertThat(policy.isEligible(context)).isTrue();
+        context.setMethod("POST");
+        assertThat(policy.isEligible(context)).isFalse();
+
+        context.setMethod("GET");
+        context.setHedgeDelay(null);
+        assertThat(policy.isEligible(context)).isFalse();
+    }
+
+    @Test
+    void delayIsPercentileOfRecentCosts() {
+        for (long cost = 1; cost < 20; cost++) {
+            policy.record(context, cost);
+        }
+        // 样本不足时不对冲
+        assertThat(policy.onRequest(context)).isEqualTo(-1);
+
+        for (long cost = 20; cost <= 100; cost++) {
+            policy.record(context, cost);
+        }
+        assertThat(policy.onRequest(context)).isEqualTo(95);
+    }
+
+    @Test
+    void percentileKeepsOnlyRecentSamples() {
+        for (int i = 0; i < 200; i++) {
+            policy.record(context, 1000);
+        }
+        assertThat(policy.onRequest(context)).isEqualTo(1000);
+
+        // 最近200个样本中有190个为10ms
+        for (int i = 0; i < 190; i++) {
+            policy.record(context, 10);
+        }
+        assertThat(policy.onRequest(context)).isEqualTo(10);
+    }
+
+    @Test
+    void configuredDelayOverridesPercentile() {
+        context.setHedgeDelay(30);
+        for (int i = 0; i < 50; i++) {
+            policy.record(context, 500);
+        }
+
+        assertThat(policy.onRequest(context)).isEqualTo(30);
+    }
+
+    @Test
+    void budgetAccruesPerRequest() {
+        for (int i = 0; i < 3; i++) {
+            policy.onRequest(context);
+        }
+        assertThat(policy.tryAcquireBudget(context)).isFalse();
+
+        // 每个请求积累 0.25 个令牌，第4个请求后可对冲一次
+        policy.onRequest(context);
+        assertThat(policy.tryAcquireBudget(context)).isTrue();
+        assertThat(policy.tryAcquireBudget(context)).isFalse();
+    }
+
+    @Test
+    void budgetIsCappedAndPerApi() {
+        for (int i = 0; i < 100; i++) {
+            policy.onRequest(context);
+        }
+        HttpRequestContext other = new HttpRequestContext();
+        other.setTenantCode("t1");
+        other.setApiCode("a2");
+        assertThat(policy.tryAcquireBudget(other)).isFalse();
+
+        int hedges = 0;
+        while (policy.tryAcquireBudget(context)) {
+            hedges++;
+        }
+        assertThat(hedges).isEqualTo(10);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.adapter.http;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式取值与JSONPath在完整解析的 messageBody 上的取值结果一致
+ */
+class JsonStreamExtractorTest {
+
+    private static final String MESSAGE = "{"
+            + "\"tenantCode\":\"t1\","
+            + "\"skipped\":{\"messageBody\":{\"id\":\"wrong\"}},"
+            + "\"messageBody\":{"
+            + "\"id\":1001,"
+            + "\"name\":\"alice\","
+            + "\"flag\":true,"
+            + "\"empty\":null,"
+            + "\"order\":{\"no\":\"A-1\",\"amount\":12.5,\"items\":[{\"id\":1,\"tags\":[\"x\",\"y\"]},{\"id\":2}]},"
+            + "\"matrix\":[[1,2],[3,4]],"
+            + "\"a-b\":{\"c\":\"dash\"},"
+            + "\"a.b\":\"dot\","
+            + "\"big\":{\"list\":[1,2,3],\"nested\":{\"deep\":\"value\"}}"
+            + "},"
+            + "\"apiCode\":\"a1\""
+            + "}";
+
+    private static final String[] PATHS = {
+            "$.id",
+            "$.name",
+            "$.flag",
+            "$.empty",
+            "$.order",
+            "$.order.no",
+            "$.order.amount",
+            "$.order.items",
+            "$.order.items[0].id",
+            "$.order.items[1].id",
+            "$.order.items[0].tags[1]",
+            "$.matrix[1][0]",
+            "$['a-b'].c",
+            "$['a.b']",
+            "$.a-b.c",
+            "$.big.nested.deep",
+            "order.no",
+            "$.missing",
+            "$.order.missing",
+            "$.order.items[5].id",
+            "$.order.no.deeper",
+            "$.name[0]",
+            "$.order.items.id"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonStreamExtractor extractor = new JsonStreamExtractor(objectMapper);
+
+    @Test
+    void matchesJsonPathOnParsedBody() throws Exception {
+        byte[] raw = MESSAGE.getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> message = objectMapper.readValue(raw, new TypeReference<Map<String, Object>>() {
+        });
+        Object body = message.get("messageBody");
+
+        SimpleJsonPath[] paths = new SimpleJsonPath[PATHS.length];
+        for (int i = 0; i < PATHS.length; i++) {
+            paths[i] = SimpleJsonPath.parse(PATHS[i]);
+            assertThat(paths[i]).as(PATHS[i]).isNotNull();
+        }
+
+        Object[] values = extractor.extract(raw, paths);
+
+        for (int i = 0; i < PATHS.length; i++) {
+            assertThat(values[i]).as(PATHS[i]).isEqualTo(readJsonPath(body, PATHS[i]));
+        }
+        assertThat(values[0]).isEqualTo(1001);
+        assertThat(values[12]).isEqualTo("dash");
+        assertThat(values[13]).isEqualTo("dot");
+    }
+
+    @Test
+    void eachPathAloneMatchesJsonPath() throws Exception {
+        byte[] raw = MESSAGE.getBytes(StandardCharsets.UTF_8);
+        Object body = objectMapper.readValue(raw, new TypeReference<Map<String, Object>>() {
+        }).get("messageBody");
+
+        // 单个路径时取到值后立即结束扫描，不受其他路径影响
+        for (String expression : PATHS) {
+            Object[] values = extractor.extract(raw, new SimpleJsonPath[]{SimpleJsonPath.parse(expression)});
+            assertThat(values[0]).as(expression).isEqualTo(readJsonPath(body, expression));
+        }
+    }
+
+    @Test
+    void readBodyMatchesParsedBody() throws Exception {
+        byte[] raw = MESSAGE.getBytes(StandardCharsets.UTF_8);
+        Object body = objectMapper.readValue(raw, new TypeReference<Map<String, Object>>() {
+        }).get("messageBody");
+
+        assertThat(extractor.readBody(raw)).isEqualTo(body);
+    }
+
+    @Test
+    void messageBodyNotAnObject() throws Exception {
+        SimpleJsonPath[] paths = {SimpleJsonPath.parse("$.id"), SimpleJsonPath.parse("$[0]")};
+
+        for (String message : new String[]{
+                "{\"messageBody\":[1,2]}",
+                "{\"messageBody\":\"text\"}",
+                "{\"messageBody\":42}",
+                "{\"messageBody\":null}",
+                "{\"tenantCode\":\"t1\"}",
+                "[{\"messageBody\":{\"id\":1}}]"}) {
+            byte[] raw = message.getBytes(StandardCharsets.UTF_8);
+            Object[] values = extractor.extract(raw, paths);
+
+            assertThat(values[0]).as(message).isNull();
+            assertThat(extractor.readBody(raw)).as(message).isNull();
+        }
+
+        // 数组消息体按下标取值与JSONPath一致
+        Object[] values = extractor.extract("{\"messageBody\":[1,2]}".getBytes(StandardCharsets.UTF_8), paths);
+        assertThat(values[1]).isEqualTo(JsonPath.read("[1,2]", "$[0]"));
+    }
+
+    @Test
+    void emptyPaths() throws Exception {
+        assertThat(extractor.extract(MESSAGE.getBytes(StandardCharsets.UTF_8), new SimpleJsonPath[0])).isEmpty();
+    }
+
+    @Test
+    void complexExpressionsAreNotSimplePaths() {
+        assertThat(SimpleJsonPath.parse("$.order.items[*].id")).isNull();
+        assertThat(SimpleJsonPath.parse("$..id")).isNull();
+        assertThat(SimpleJsonPath.parse("$.order.items[?(@.id > 1)]")).isNull();
+        assertThat(SimpleJsonPath.parse("$.order.items[-1]")).isNull();
+        assertThat(SimpleJsonPath.parse("$.order.items[0:1]")).isNull();
+        assertThat(SimpleJsonPath.parse("$['a','b']")).isNull();
+        assertThat(SimpleJsonPath.parse("$['it\\'s']")).isNull();
+        assertThat(SimpleJsonPath.parse("$.items.length()")).isNull();
+        assertThat(SimpleJsonPath.parse("$")).isNull();
+        assertThat(SimpleJsonPath.parse(null)).isNull();
+    }
+
+    private static Object readJsonPath(Object body, String expression) {
+        try {
+            return JsonPath.read(body, expression);
+        } catch (PathNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.adapter.http;
+
+import com.example.adapter.common.constant.ParamType;
+import com.example.adapter.common.constant.ValueSource;
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.AdapterMessage;
+import com.example.adapter.dto.HttpRequestContext;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 编译后的请求计划与按配置顺序逐个处理参数的结果一致
+ */
+class RequestPlanCompilerTest {
+
+    private RequestBuilder requestBuilder;
+    private ExternalApiConfig config;
+    private List<ApiParamConfig> params;
+    private Map<String, Object> body;
+
+    @BeforeEach
+    void setUp() {
+        requestBuilder = new RequestBuilder(new RequestPlanCompiler(), new JsonStreamExtractor(new ObjectMapper()));
+        config = new ExternalApiConfig();
+        config.setId(1L);
+        config.setHttpMethod("POST");
+        config.setApiUrl("http://api.example.com/users");
+        params = new ArrayList<>();
+        body = new HashMap<>();
+    }
+
+    @Test
+    void laterFixedValueOverridesEarlierDynamicValue() {
+        body.put("token", "from-message");
+        addMessageParam(ParamType.HEADER, "X-Token", "$.token");
+        addFixedParam(ParamType.HEADER, "X-Token", "fixed");
+
+        assertThat(build().getHeaders()).containsEntry("X-Token", "fixed");
+    }
+
+    @Test
+    void laterDynamicValueOverridesEarlierFixedValue() {
+        body.put("token", "from-message");
+        addFixedParam(ParamType.HEADER, "X-Token", "fixed");
+        addMessageParam(ParamType.HEADER, "X-Token", "$.token");
+
+        assertThat(build().getHeaders()).containsEntry("X-Token", "from-message");
+    }
+
+    @Test
+    void nullDynamicValueKeepsEarlierFixedValue() {
+        addFixedParam(ParamType.QUERY, "page", "1");
+        addMessageParam(ParamType.QUERY, "page", "$.page");
+
+        assertThat(build().getQueryParams()).containsEntry("page", "1");
+    }
+
+    @Test
+    void fixedAndDynamicPathParams() {
+        config.setApiUrl("http://api.example.com/{tenant}/users/{userId}/{userId}");
+        body.put("userId", 42);
+        addFixedParam(ParamType.PATH, "tenant", "t1");
+        addMessageParam(ParamType.PATH, "userId", "$.userId");
+
+        HttpRequestContext context = build();
+
+        assertThat(context.getUrl()).isEqualTo("http://api.example.com/t1/users/42/42");
+    }
+
+    @Test
+    void firstNonNullPathValueWins() {
+        config.setApiUrl("http://api.example.com/users/{userId}");
+        body.put("userId", 42);
+        addFixedParam(ParamType.PATH, "userId", "7");
+        addMessageParam(ParamType.PATH, "userId", "$.userId");
+
+        assertThat(build().getUrl()).isEqualTo("http://api.example.com/users/7");
+
+        params.clear();
+        addMessageParam(ParamType.PATH, "userId", "$.userId");
+        addFixedParam(ParamType.PATH, "userId", "7");
+        config.setId(2L);
+
+        assertThat(build().getUrl()).isEqualTo("http://api.example.com/users/42");
+    }
+
+    @Test
+    void nullDynamicPathValueFallsBackToLaterFixedValue() {
+        config.setApiUrl("http://api.example.com/users/{userId}");
+        addMessageParam(ParamType.PATH, "userId", "$.userId");
+        addFixedParam(ParamType.PATH, "userId", "7");
+
+        assertThat(build().getUrl()).isEqualTo("http://api.example.com/users/7");
+    }
+
+    @Test
+    void unresolvedPathParamKeepsPlaceholder() {
+        config.setApiUrl("http://api.example.com/users/{userId}");
+        addMessageParam(ParamType.PATH, "userId", "$.userId");
+
+        assertThat(build().getUrl()).isEqualTo("http://api.example.com/users/{userId}");
+    }
+
+    @Test
+    void requiredDynamicParamMissing() {
+        addMessageParam(ParamType.BODY, "userId", "$.userId").setRequired(1);
+
+        assertRequiredParamMissing();
+    }
+
+    @Test
+    void requiredFixedParamMissing() {
+        addFixedParam(ParamType.HEADER, "X-Token", "").setRequired(1);
+
+        assertRequiredParamMissing();
+    }
+
+    @Test
+    void requiredParamWithUnknownTypeIsStillChecked() {
+        addMessageParam("COOKIE", "session", "$.session").setRequired(1);
+
+        assertRequiredParamMissing();
+
+        body.put("session", "s1");
+        HttpRequestContext context = build();
+        assertThat(context.getHeaders()).isEmpty();
+        assertThat(context.getQueryParams()).isEmpty();
+        assertThat(context.getBody()).isEmpty();
+    }
+
+    @Test
+    void requiredParamOverriddenByLaterFixedValueIsStillChecked() {
+        addMessageParam(ParamType.HEADER, "X-Token", "$.token").setRequired(1);
+        addFixedParam(ParamType.HEADER, "X-Token", "fixed");
+
+        assertRequiredParamMissing();
+    }
+
+    private void assertRequiredParamMissing() {
+        assertThatThrownBy(this::build)
+                .isInstanceOf(BusinessException.class)
+                .extracting(e -> ((BusinessException) e).getCode())
+                .isEqualTo(ErrorCode.REQUIRED_PARAM_MISSING.getCode());
+    }
+
+    private HttpRequestContext build() {
+        AdapterMessage message = new AdapterMessage();
+        message.setTenantCode("t1");
+        message.setApiCode("a1");
+        message.setTraceId("trace-1");
+        message.setMessageBody(body);
+        return requestBuilder.build(config, params, message);
+    }
+
+    private ApiParamConfig addFixedParam(String type, String key, String value) {
+        ApiParamConfig param = addParam(type, key);
+        param.setValueSource(ValueSource.FIXED);
+        param.setParamValue(value);
+        return param;
+    }
+
+    private ApiParamConfig addMessageParam(String type, String key, String expression) {
+        ApiParamConfig param = addParam(type, key);
+        param.setValueSource(ValueSource.MESSAGE);
+        param.setValueExpression(expression);
+        return param;
+    }
+
+    private ApiParamConfig addParam(String type, String key) {
+        ApiParamConfig param = new ApiParamConfig();
+        param.setId((long) params.size() + 1);
+        param.setParamType(type);
+        param.setParamKey(key);
+        params.add(param);
+        return param;
+    }
+}
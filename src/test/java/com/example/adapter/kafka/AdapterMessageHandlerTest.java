@@ -0,0 +1,241 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.common.exception.DownstreamThrottledException;
+import com.example.adapter.common.exception.RateLimitException;
+import com.example.adapter.common.exception.RetryableException;
+import com.example.adapter.service.AdapterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdapterMessageHandlerTest {
+
+    private static final byte[] MESSAGE = "{\"tenantCode\":\"t1\",\"apiCode\":\"a1\",\"traceId\":\"trace-1\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private AdapterService adapterService;
+    private DeadLetterQueueService deadLetterQueueService;
+    private RetryTopicService retryTopicService;
+    private AdapterMessageHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        adapterService = mock(AdapterService.class);
+        deadLetterQueueService = mock(DeadLetterQueueService.class);
+        retryTopicService = mock(RetryTopicService.class);
+        when(retryTopicService.isEnabled()).thenReturn(true);
+        when(deadLetterQueueService.getMaxRetryCount()).thenReturn(3);
+
+        handler = new AdapterMessageHandler(new ObjectMapper(), adapterService, deadLetterQueueService,
+                retryTopicService, Runnable::run);
+        ReflectionTestUtils.setField(handler, "throttleEnabled", true);
+        ReflectionTestUtils.setField(handler, "throttleMaxWaitMs", 1000L);
+        ReflectionTestUtils.setField(handler, "throttleDefaultWaitMs", 100L);
+        ReflectionTestUtils.setField(handler, "orderedRetryBackoffMs", 0L);
+        handler.init();
+    }
+
+    @Test
+    void throttledRecordIsDeferredWithoutConsumingRetryAttempt() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.getRetryAttempt(record)).thenReturn(3);
+        when(retryTopicService.deferToRetryTopic(eq(record), anyString(), anyLong())).thenReturn(RetryTier.RETRY_30S);
+        doThrow(new DownstreamThrottledException("paused", 20_000)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(retryTopicService).deferToRetryTopic(eq(record), anyString(), eq(20_000L));
+        verify(retryTopicService, never()).sendToRetryTopic(any(), anyInt(), anyString());
+        verify(deadLetterQueueService, never()).sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void throttledRecordWithoutRetryAfterUsesDefaultWait() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.deferToRetryTopic(eq(record), anyString(), anyLong())).thenReturn(RetryTier.RETRY_5S);
+        doThrow(new RateLimitException("limited", 0)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(retryTopicService).deferToRetryTopic(eq(record), anyString(), eq(100L));
+    }
+
+    @Test
+    void throttledRecordWithinDeferralLimitIsDeferred() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        ReflectionTestUtils.setField(handler, "throttleMaxDeferMs", 60_000L);
+        when(retryTopicService.getFirstFailureAt(record)).thenReturn(System.currentTimeMillis() - 1_000);
+        when(retryTopicService.deferToRetryTopic(eq(record), anyString(), anyLong())).thenReturn(RetryTier.RETRY_30S);
+        doThrow(new DownstreamThrottledException("paused", 20_000)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(retryTopicService).deferToRetryTopic(eq(record), anyString(), eq(20_000L));
+        verify(deadLetterQueueService, never()).sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void throttledRecordDeferredTooLongGoesToDeadLetterQueue() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        long firstFailureAt = System.currentTimeMillis() - 61_000;
+        ReflectionTestUtils.setField(handler, "throttleMaxDeferMs", 60_000L);
+        when(retryTopicService.getFirstFailureAt(record)).thenReturn(firstFailureAt);
+        when(retryTopicService.getRetryAttempt(record)).thenReturn(2);
+        when(deadLetterQueueService.sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        doThrow(new DownstreamThrottledException("paused", 20_000)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(deadLetterQueueService).sendToDeadLetterQueue(eq(MESSAGE), eq("trace-1"), anyString(), eq(2),
+                eq(firstFailureAt));
+        verify(retryTopicService, never()).deferToRetryTopic(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void throttledRecordDeferredTooLongWithoutRetryTopicGoesToDeadLetterQueue() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        ReflectionTestUtils.setField(handler, "throttleMaxDeferMs", 60_000L);
+        when(retryTopicService.isEnabled()).thenReturn(false);
+        when(deadLetterQueueService.markFailure(record)).thenReturn(System.currentTimeMillis() - 61_000);
+        when(deadLetterQueueService.sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        doThrow(new DownstreamThrottledException("paused", 20_000)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(deadLetterQueueService).clearRetryCount(record);
+        verify(deadLetterQueueService, never()).incrementRetryCount(any());
+    }
+
+    @Test
+    void failedDeadLetterWriteOfThrottledRecordIsRedelivered() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        ReflectionTestUtils.setField(handler, "throttleMaxDeferMs", 60_000L);
+        when(deadLetterQueueService.markFailure(record)).thenReturn(System.currentTimeMillis() - 61_000);
+        when(deadLetterQueueService.sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+        doThrow(new DownstreamThrottledException("paused", 20_000)).when(adapterService).process(any());
+
+        assertThat(handler.handleOrdered(record, null).join()).isFalse();
+
+        verify(deadLetterQueueService, never()).clearRetryCount(record);
+    }
+
+    @Test
+    void retryableErrorConsumesRetryAttempt() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.getRetryAttempt(record)).thenReturn(1);
+        when(retryTopicService.sendToRetryTopic(eq(record), anyInt(), anyString())).thenReturn(RetryTier.RETRY_30S);
+        doThrow(new RetryableException("timeout")).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isTrue();
+
+        verify(retryTopicService).sendToRetryTopic(eq(record), eq(2), anyString());
+    }
+
+    @Test
+    void failedDeferIsRedelivered() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.deferToRetryTopic(eq(record), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("broker down"));
+        doThrow(new DownstreamThrottledException("paused", 1000)).when(adapterService).process(any());
+
+        assertThat(handler.handle(record).join()).isFalse();
+    }
+
+    @Test
+    void throttledRecordWithoutRetryTopicIsRedeliveredWithoutConsumingRetryAttempt() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.isEnabled()).thenReturn(false);
+        doThrow(new RateLimitException("limited", 50)).when(adapterService).process(any());
+
+        long start = System.currentTimeMillis();
+        assertThat(handler.handle(record).join()).isFalse();
+
+        // 按限流结果给出的等待时间延迟后才重新投递
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(50);
+        verify(deadLetterQueueService, never()).incrementRetryCount(any());
+        verify(deadLetterQueueService, never()).sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void orderedRetryableErrorIsRedeliveredInsteadOfDiverted() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        when(deadLetterQueueService.incrementRetryCount(record)).thenReturn(1);
+        doThrow(new RetryableException("timeout")).when(adapterService).process(any());
+
+        assertThat(handler.handleOrdered(record, null).join()).isFalse();
+
+        verify(retryTopicService, never()).sendToRetryTopic(any(), anyInt(), anyString());
+        verify(retryTopicService, never()).deferToRetryTopic(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void orderedRetryableErrorGoesToDeadLetterQueueWhenExhausted() {
+        ConsumerRecord<String, byte[]> record = record();
+        when(deadLetterQueueService.incrementRetryCount(record)).thenReturn(3);
+        when(deadLetterQueueService.sendToDeadLetterQueue(any(), any(), any(), anyInt(), anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+        doThrow(new RetryableException("timeout")).when(adapterService).process(any());
+
+        assertThat(handler.handleOrdered(record, null).join()).isTrue();
+
+        verify(deadLetterQueueService).clearRetryCount(record);
+    }
+
+    @Test
+    void orderedThrottledRecordIsRedeliveredWithoutConsumingRetryAttempt() throws Exception {
+        ConsumerRecord<String, byte[]> record = record();
+        doThrow(new RateLimitException("limited", 1)).when(adapterService).process(any());
+
+        assertThat(handler.handleOrdered(record, null).join()).isFalse();
+
+        verify(deadLetterQueueService, never()).incrementRetryCount(any());
+        verify(retryTopicService, never()).deferToRetryTopic(any(), anyString(), anyLong());
+    }
+
+    @Test
+    void asyncFailureIsRoutedOnWorkerExecutor() throws Exception {
+        List<Runnable> submitted = new ArrayList<>();
+        handler = new AdapterMessageHandler(new ObjectMapper(), adapterService, deadLetterQueueService,
+                retryTopicService, submitted::add);
+        handler.init();
+        ConsumerRecord<String, byte[]> record = record();
+        when(retryTopicService.sendToRetryTopic(eq(record), anyInt(), anyString())).thenReturn(RetryTier.RETRY_5S);
+        when(adapterService.processAsync(any())).thenReturn(CompletableFuture.failedFuture(
+                new RetryableException("timeout")));
+
+        CompletableFuture<Boolean> result = handler.handleAsync(record);
+
+        assertThat(result).isNotDone();
+        verify(retryTopicService, never()).sendToRetryTopic(any(), anyInt(), anyString());
+        assertThat(submitted).hasSize(1);
+        submitted.get(0).run();
+        assertThat(result).isCompletedWithValue(true);
+        verify(retryTopicService).sendToRetryTopic(eq(record), eq(1), anyString());
+    }
+
+    private ConsumerRecord<String, byte[]> record() {
+        return new ConsumerRecord<>("http-adapter-request", 0, 42L, "key", MESSAGE);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncAdapterMessageListenerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("http-adapter-request", 0);
+
+    private AdapterMessageHandler handler;
+    private Acknowledgment ack;
+    private ConsumerRecord<String, byte[]> record;
+    private AsyncAdapterMessageListener listener;
+
+    @BeforeEach
+    void setUp() {
+        handler = mock(AdapterMessageHandler.class);
+        ack = mock(Acknowledgment.class);
+        record = new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 7L, "key", new byte[0]);
+        listener = new AsyncAdapterMessageListener(handler);
+        ReflectionTestUtils.setField(listener, "maxInFlight", 1);
+        ReflectionTestUtils.setField(listener, "redeliveryDelayMs", 10L);
+        listener.init();
+        listener.onPartitionsAssigned(Collections.singletonList(PARTITION));
+    }
+
+    @Test
+    void recordPendingRedeliveryIsReprocessedUntilAcked() throws Exception {
+        when(handler.handleAsync(record)).thenReturn(
+                CompletableFuture.completedFuture(false),
+                CompletableFuture.failedFuture(new IllegalStateException("retry topic down")),
+                CompletableFuture.completedFuture(true));
+
+        listener.onMessage(record, ack);
+
+        verify(ack, timeout(2000)).acknowledge();
+        verify(handler, times(3)).handleAsync(record);
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void revokedPartitionStopsRedeliveryAndReleasesPermit() throws Exception {
+        when(handler.handleAsync(record)).thenAnswer(invocation -> {
+            listener.onPartitionsRevoked(Collections.singletonList(PARTITION));
+            return CompletableFuture.completedFuture(false);
+        });
+
+        listener.onMessage(record, ack);
+
+        verify(handler, after(100).times(1)).handleAsync(record);
+        verify(ack, never()).acknowledge();
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void partitionReassignedDuringDelayStopsRedelivery() throws Exception {
+        ReflectionTestUtils.setField(listener, "redeliveryDelayMs", 50L);
+        when(handler.handleAsync(record)).thenReturn(CompletableFuture.completedFuture(false));
+
+        listener.onMessage(record, ack);
+        // 回收后又分配回本节点：新的消费者从已提交位点重新投递，回收前的消息不再重新处理
+        listener.onPartitionsRevoked(Collections.singletonList(PARTITION));
+        listener.onPartitionsAssigned(Collections.singletonList(PARTITION));
+
+        verify(handler, after(200).times(1)).handleAsync(record);
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    @Test
+    void stoppedListenerStopsRedelivery() throws Exception {
+        when(handler.handleAsync(record)).thenReturn(CompletableFuture.completedFuture(false));
+        listener.stop();
+
+        listener.onMessage(record, ack);
+
+        verify(handler, after(100).times(1)).handleAsync(record);
+        assertThat(availablePermits()).isEqualTo(1);
+    }
+
+    private int availablePermits() {
+        return ((Semaphore) ReflectionTestUtils.getField(listener, "inFlight")).availablePermits();
+    }
+}
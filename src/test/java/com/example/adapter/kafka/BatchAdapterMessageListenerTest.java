@@ -0,0 +1,91 @@
+package com.example.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchAdapterMessageListenerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("http-adapter-request", 0);
+
+    private AdapterMessageHandler handler;
+    private Consumer<String, byte[]> consumer;
+    private BatchAdapterMessageListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        handler = mock(AdapterMessageHandler.class);
+        consumer = mock(Consumer.class);
+        listener = new BatchAdapterMessageListener(handler, Runnable::run);
+    }
+
+    @Test
+    void incompleteRecordSeeksBack() {
+        ConsumerRecord<String, byte[]> r0 = record(0);
+        ConsumerRecord<String, byte[]> r1 = record(1);
+        when(handler.handle(r0)).thenReturn(CompletableFuture.completedFuture(true));
+        when(handler.handle(r1)).thenReturn(CompletableFuture.completedFuture(false));
+
+        listener.onMessages(Arrays.asList(r0, r1), consumer);
+
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(1)));
+        verify(consumer).seek(PARTITION, 1L);
+    }
+
+    @Test
+    void recordsCompletedAfterGapAreNotReprocessedAfterSeek() {
+        ConsumerRecord<String, byte[]> r0 = record(0);
+        ConsumerRecord<String, byte[]> r1 = record(1);
+        ConsumerRecord<String, byte[]> r2 = record(2);
+        when(handler.handle(r0)).thenReturn(CompletableFuture.completedFuture(false));
+        when(handler.handle(r1)).thenReturn(CompletableFuture.completedFuture(true));
+        when(handler.handle(r2)).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Arrays.asList(r0, r1, r2), consumer);
+        verify(consumer).seek(PARTITION, 0L);
+
+        // 回退到位点0后重新拉取同一批消息，只重新处理未完成的消息
+        when(handler.handle(r0)).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Arrays.asList(r0, r1, r2), consumer);
+
+        verify(handler, times(2)).handle(r0);
+        verify(handler, times(1)).handle(r1);
+        verify(handler, times(1)).handle(r2);
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    void pendingDeadLetterWriteIsAwaitedBeforeCommit() {
+        ConsumerRecord<String, byte[]> r0 = record(0);
+        ConsumerRecord<String, byte[]> r1 = record(1);
+        CompletableFuture<Boolean> deadLetterWrite = new CompletableFuture<>();
+        when(handler.handle(r0)).thenReturn(deadLetterWrite);
+        when(handler.handle(r1)).thenAnswer(invocation -> {
+            // 下一条消息在死信写入确认前就开始处理
+            deadLetterWrite.complete(true);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        listener.onMessages(Arrays.asList(r0, r1), consumer);
+
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(2)));
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, null,
+                ("{\"offset\":" + offset + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.adapter.kafka;
+
+import com.example.adapter.dto.AdapterMessage;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeyOrderedAdapterMessageListenerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("http-adapter-request", 0);
+
+    private AdapterMessageHandler handler;
+    private Consumer<String, byte[]> consumer;
+    private KeyOrderedAdapterMessageListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        handler = mock(AdapterMessageHandler.class);
+        consumer = mock(Consumer.class);
+        when(handler.parse(any())).thenAnswer(invocation -> {
+            String[] keys = new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8).split(":");
+            AdapterMessage message = new AdapterMessage();
+            message.setTenantCode(keys[0]);
+            message.setApiCode(keys[1]);
+            return message;
+        });
+        listener = new KeyOrderedAdapterMessageListener(handler, Runnable::run);
+    }
+
+    @Test
+    void blockedLaneStopsAndSeeksBack() {
+        ConsumerRecord<String, byte[]> a0 = record(0, "t1:a");
+        ConsumerRecord<String, byte[]> b1 = record(1, "t2:b");
+        ConsumerRecord<String, byte[]> a2 = record(2, "t1:a");
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(CompletableFuture.completedFuture(false));
+        when(handler.handleOrdered(eq(b1), any())).thenReturn(CompletableFuture.completedFuture(true));
+
+        listener.onMessages(Arrays.asList(a0, b1, a2), consumer);
+
+        verify(handler, never()).handleOrdered(eq(a2), any());
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer).seek(PARTITION, 0L);
+    }
+
+    @Test
+    void recordsCompletedByOtherLanesAreNotReprocessedAfterSeek() {
+        ConsumerRecord<String, byte[]> a0 = record(0, "t1:a");
+        ConsumerRecord<String, byte[]> b1 = record(1, "t2:b");
+        ConsumerRecord<String, byte[]> b2 = record(2, "t2:b");
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(CompletableFuture.completedFuture(false));
+        when(handler.handleOrdered(eq(b1), any())).thenReturn(CompletableFuture.completedFuture(true));
+        when(handler.handleOrdered(eq(b2), any())).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Arrays.asList(a0, b1, b2), consumer);
+
+        // 回退到位点0后重新拉取同一批消息，只重新处理被阻塞的通道
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Arrays.asList(a0, b1, b2), consumer);
+
+        verify(handler, times(2)).handleOrdered(eq(a0), any());
+        verify(handler, times(1)).handleOrdered(eq(b1), any());
+        verify(handler, times(1)).handleOrdered(eq(b2), any());
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void completedAheadSurvivesSmallerRedeliveredBatch() {
+        ConsumerRecord<String, byte[]> a0 = record(0, "t1:a");
+        ConsumerRecord<String, byte[]> b1 = record(1, "t2:b");
+        ConsumerRecord<String, byte[]> b2 = record(2, "t2:b");
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(CompletableFuture.completedFuture(false));
+        when(handler.handleOrdered(eq(b1), any())).thenReturn(CompletableFuture.completedFuture(true));
+        when(handler.handleOrdered(eq(b2), any())).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Arrays.asList(a0, b1, b2), consumer);
+
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(CompletableFuture.completedFuture(true));
+        listener.onMessages(Collections.singletonList(a0), consumer);
+        reset(consumer);
+        listener.onMessages(Arrays.asList(b1, b2), consumer);
+
+        verify(handler, times(1)).handleOrdered(eq(b1), any());
+        verify(handler, times(1)).handleOrdered(eq(b2), any());
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(3)));
+    }
+
+    @Test
+    void pendingDeadLetterWriteDoesNotBlockLane() {
+        ConsumerRecord<String, byte[]> a0 = record(0, "t1:a");
+        ConsumerRecord<String, byte[]> a1 = record(1, "t1:a");
+        CompletableFuture<Boolean> deadLetterWrite = new CompletableFuture<>();
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(deadLetterWrite);
+        when(handler.handleOrdered(eq(a1), any())).thenAnswer(invocation -> {
+            // 同一通道的后续消息在死信写入确认前就开始处理
+            deadLetterWrite.complete(true);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        listener.onMessages(Arrays.asList(a0, a1), consumer);
+
+        verify(consumer).commitSync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(2)));
+    }
+
+    @Test
+    void failedDeadLetterWriteSeeksBack() {
+        ConsumerRecord<String, byte[]> a0 = record(0, "t1:a");
+        ConsumerRecord<String, byte[]> a1 = record(1, "t1:a");
+        CompletableFuture<Boolean> deadLetterWrite = new CompletableFuture<>();
+        when(handler.handleOrdered(eq(a0), any())).thenReturn(deadLetterWrite);
+        when(handler.handleOrdered(eq(a1), any())).thenAnswer(invocation -> {
+            deadLetterWrite.complete(false);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        listener.onMessages(Arrays.asList(a0, a1), consumer);
+
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer).seek(PARTITION, 0L);
+    }
+
+    private ConsumerRecord<String, byte[]> record(long offset, String laneKey) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, null,
+                laneKey.getBytes(StandardCharsets.UTF_8));
+    }
+}
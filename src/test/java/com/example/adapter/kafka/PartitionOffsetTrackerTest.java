@@ -0,0 +1,96 @@
+package com.example.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PartitionOffsetTrackerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("http-adapter-request", 0);
+    private static final TopicPartition P1 = new TopicPartition("http-adapter-request", 1);
+
+    @Test
+    void outOfOrderCompletionCommitsOnceContiguous() {
+        List<ConsumerRecord<String, String>> records = Arrays.asList(record(P0, 10), record(P0, 11), record(P0, 12));
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+
+        tracker.complete(records.get(2));
+        tracker.complete(records.get(1));
+        assertThat(tracker.committableOffsets()).isEmpty();
+        assertThat(tracker.firstIncompleteOffsets()).containsEntry(P0, 10L);
+
+        tracker.complete(records.get(0));
+        assertThat(tracker.committableOffsets()).containsExactly(Map.entry(P0, new OffsetAndMetadata(13)));
+        assertThat(tracker.firstIncompleteOffsets()).isEmpty();
+        assertThat(tracker.nextOffsets()).containsEntry(P0, 13L);
+    }
+
+    @Test
+    void gapStopsCommitAndSeeksBackToIt() {
+        List<ConsumerRecord<String, String>> records = Arrays.asList(record(P0, 10), record(P0, 11), record(P0, 12));
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+        tracker.complete(records.get(0));
+        tracker.complete(records.get(2));
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        tracker.commit(consumer);
+
+        verify(consumer).commitSync(Collections.singletonMap(P0, new OffsetAndMetadata(11)));
+        verify(consumer).seek(P0, 11L);
+        assertThat(tracker.nextOffsets()).containsEntry(P0, 11L);
+        assertThat(tracker.completedFrom(P0, 11L)).containsExactly(12L);
+    }
+
+    @Test
+    void nothingCompletedCommitsNothing() {
+        List<ConsumerRecord<String, String>> records = Arrays.asList(record(P0, 10), record(P0, 11));
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        tracker.commit(consumer);
+
+        verify(consumer, never()).commitSync(anyMap());
+        verify(consumer).seek(P0, 10L);
+    }
+
+    @Test
+    void partitionsAreTrackedIndependently() {
+        List<ConsumerRecord<String, String>> records = Arrays.asList(
+                record(P0, 5), record(P1, 100), record(P0, 6), record(P1, 101), record(P1, 102));
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker(records);
+        tracker.complete(records.get(0));
+        tracker.complete(records.get(2));
+        tracker.complete(records.get(1));
+        tracker.complete(records.get(4));
+        Consumer<?, ?> consumer = mock(Consumer.class);
+
+        tracker.commit(consumer);
+
+        Map<TopicPartition, OffsetAndMetadata> expected = new HashMap<>();
+        expected.put(P0, new OffsetAndMetadata(7));
+        expected.put(P1, new OffsetAndMetadata(101));
+        verify(consumer).commitSync(expected);
+        verify(consumer).seek(P1, 101L);
+        verify(consumer, never()).seek(eq(P0), anyLong());
+    }
+
+    private ConsumerRecord<String, String> record(TopicPartition partition, long offset) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, "{}");
+    }
+}
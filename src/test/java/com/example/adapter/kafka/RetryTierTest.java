@@ -0,0 +1,26 @@
+package com.example.adapter.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryTierTest {
+
+    @Test
+    void forAttemptUsesLastTierWhenExceeded() {
+        assertThat(RetryTier.forAttempt(1)).isEqualTo(RetryTier.RETRY_5S);
+        assertThat(RetryTier.forAttempt(2)).isEqualTo(RetryTier.RETRY_30S);
+        assertThat(RetryTier.forAttempt(3)).isEqualTo(RetryTier.RETRY_5M);
+        assertThat(RetryTier.forAttempt(10)).isEqualTo(RetryTier.RETRY_5M);
+    }
+
+    @Test
+    void forDelayPicksSmallestTierNotShorterThanDelay() {
+        assertThat(RetryTier.forDelay(0)).isEqualTo(RetryTier.RETRY_5S);
+        assertThat(RetryTier.forDelay(100)).isEqualTo(RetryTier.RETRY_5S);
+        assertThat(RetryTier.forDelay(5000)).isEqualTo(RetryTier.RETRY_5S);
+        assertThat(RetryTier.forDelay(5001)).isEqualTo(RetryTier.RETRY_30S);
+        assertThat(RetryTier.forDelay(120_000)).isEqualTo(RetryTier.RETRY_5M);
+        assertThat(RetryTier.forDelay(600_000)).isEqualTo(RetryTier.RETRY_5M);
+    }
+}
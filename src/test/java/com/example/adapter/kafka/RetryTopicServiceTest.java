@@ -0,0 +1,92 @@
+package com.example.adapter.kafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetryTopicServiceTest {
+
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private RetryTopicService retryTopicService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+        sent.set(null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+
+        retryTopicService = new RetryTopicService(kafkaTemplate);
+        ReflectionTestUtils.setField(retryTopicService, "topic", "http-adapter-request");
+        ReflectionTestUtils.setField(retryTopicService, "sendTimeoutMs", 1000L);
+    }
+
+    @Test
+    void retryRecordKeepsOriginalHeadersAndReplacesRetryHeaders() throws Exception {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("http-adapter-request-retry-5s", 0, 1L, "key",
+                bytes("{}"));
+        record.headers().add("x-source", bytes("order-service"));
+        record.headers().add(RetryTopicService.HEADER_RETRY_ATTEMPT, bytes("1"));
+        record.headers().add(RetryTopicService.HEADER_FIRST_FAILURE_AT, bytes("1000"));
+
+        RetryTier tier = retryTopicService.sendToRetryTopic(record, 2, "timeout");
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertThat(tier).isEqualTo(RetryTier.RETRY_30S);
+        assertThat(sent.topic()).isEqualTo("http-adapter-request-retry-30s");
+        assertThat(sent.key()).isEqualTo("key");
+        assertThat(header(sent, "x-source")).isEqualTo("order-service");
+        assertThat(sent.headers().headers(RetryTopicService.HEADER_RETRY_ATTEMPT)).hasSize(1);
+        assertThat(header(sent, RetryTopicService.HEADER_RETRY_ATTEMPT)).isEqualTo("2");
+        assertThat(header(sent, RetryTopicService.HEADER_FIRST_FAILURE_AT)).isEqualTo("1000");
+        assertThat(header(sent, RetryTopicService.HEADER_RETRY_ERROR)).isEqualTo("timeout");
+    }
+
+    @Test
+    void deferredRecordKeepsAttemptAndUsesRequiredDelay() throws Exception {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("http-adapter-request-retry-5s", 0, 1L, "key",
+                bytes("{}"));
+        record.headers().add(RetryTopicService.HEADER_RETRY_ATTEMPT, bytes("2"));
+        long before = System.currentTimeMillis();
+
+        RetryTier tier = retryTopicService.deferToRetryTopic(record, "Throttled", 20_000);
+
+        ProducerRecord<String, byte[]> sent = captureSent();
+        assertThat(tier).isEqualTo(RetryTier.RETRY_30S);
+        assertThat(header(sent, RetryTopicService.HEADER_RETRY_ATTEMPT)).isEqualTo("2");
+        assertThat(Long.parseLong(header(sent, RetryTopicService.HEADER_RETRY_DUE_AT)))
+                .isBetween(before + 20_000, System.currentTimeMillis() + 20_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ProducerRecord<String, byte[]> captureSent() {
+        ArgumentCaptor<ProducerRecord<String, byte[]>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private String header(ProducerRecord<String, byte[]> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.adapter.ratelimit;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在内存中执行限流Lua脚本：用LuaJ解释脚本，redis.call 只实现限流脚本用到的命令，时间由测试控制
+ */
+class LuaRedisStub {
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, Long> expireAt = new HashMap<>();
+
+    private long nowMillis = 1_700_000_000_000L;
+
+    long now() {
+        return nowMillis;
+    }
+
+    void advance(long millis) {
+        nowMillis += millis;
+    }
+
+    String get(String key) {
+        expire(key);
+        return strings.get(key);
+    }
+
+    String hget(String key, String field) {
+        expire(key);
+        Map<String, String> hash = hashes.get(key);
+        return hash != null ? hash.get(field) : null;
+    }
+
+    /**
+     * 按Redis的规则返回脚本结果：数值截断为整数，表转为列表
+     */
+    List<Long> execute(RedisScript<?> script, List<String> keys, Object[] args) {
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("replicate_commands", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs ignored) {
+                return LuaValue.TRUE;
+            }
+        });
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs command) {
+                return redisCall(command);
+            }
+        });
+        globals.set("redis", redis);
+        LuaTable keyTable = new LuaTable();
+        for (int i = 0; i < keys.size(); i++) {
+            keyTable.set(i + 1, LuaValue.valueOf(keys.get(i)));
+        }
+        LuaTable argTable = new LuaTable();
+        for (int i = 0; i < args.length; i++) {
+            argTable.set(i + 1, LuaValue.valueOf(String.valueOf(args[i])));
+        }
+        globals.set("KEYS", keyTable);
+        globals.set("ARGV", argTable);
+
+        LuaValue result = globals.load(script.getScriptAsString()).call();
+        List<Long> reply = new ArrayList<>();
+        for (int i = 1; i <= result.length(); i++) {
+            reply.add(result.get(i).tolong());
+        }
+        return reply;
+    }
+
+    private Varargs redisCall(Varargs command) {
+        String name = command.arg1().tojstring();
+        String key = command.narg() > 1 ? command.arg(2).tojstring() : null;
+        if (key != null) {
+            expire(key);
+        }
+        switch (name) {
+            case "time": {
+                LuaTable time = new LuaTable();
+                time.set(1, LuaValue.valueOf(String.valueOf(nowMillis / 1000)));
+                time.set(2, LuaValue.valueOf(String.valueOf(nowMillis % 1000 * 1000)));
+                return time;
+            }
+            case "get":
+                return strings.containsKey(key) ? LuaValue.valueOf(strings.get(key)) : LuaValue.FALSE;
+            case "set":
+                strings.put(key, command.arg(3).tojstring());
+                expireAt.remove(key);
+                if (command.narg() >= 5 && "PX".equalsIgnoreCase(command.arg(4).tojstring())) {
+                    expireAt.put(key, nowMillis + command.arg(5).tolong());
+                }
+                return LuaValue.valueOf("OK");
+            case "incrby": {
+                long value = Long.parseLong(strings.getOrDefault(key, "0")) + command.arg(3).tolong();
+                strings.put(key, String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            case "del":
+                strings.remove(key);
+                hashes.remove(key);
+                expireAt.remove(key);
+                return LuaValue.ONE;
+            case "pttl":
+                if (!strings.containsKey(key) && !hashes.containsKey(key)) {
+                    return LuaValue.valueOf(-2);
+                }
+                return LuaValue.valueOf(expireAt.containsKey(key) ? expireAt.get(key) - nowMillis : -1);
+            case "expire":
+                expireAt.put(key, nowMillis + command.arg(3).tolong() * 1000);
+                return LuaValue.ONE;
+            case "pexpire":
+                expireAt.put(key, nowMillis + command.arg(3).tolong());
+                return LuaValue.ONE;
+            case "hmget": {
+                LuaTable values = new LuaTable();
+                Map<String, String> hash = hashes.getOrDefault(key, new HashMap<>());
+                for (int i = 3; i <= command.narg(); i++) {
+                    String value = hash.get(command.arg(i).tojstring());
+                    values.set(i - 2, value != null ? LuaValue.valueOf(value) : LuaValue.FALSE);
+                }
+                return values;
+            }
+            case "hset": {
+                Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+                for (int i = 3; i < command.narg(); i += 2) {
+                    hash.put(command.arg(i).tojstring(), command.arg(i + 1).tojstring());
+                }
+                return LuaValue.ONE;
+            }
+            case "hincrby": {
+                Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+                String field = command.arg(3).tojstring();
+                long value = Long.parseLong(hash.getOrDefault(field, "0")) + command.arg(4).tolong();
+                hash.put(field, String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            default:
+                throw new LuaError("Unsupported command: " + name);
+        }
+    }
+
+    private void expire(String key) {
+        Long at = expireAt.get(key);
+        if (at != null && at <= nowMillis) {
+            strings.remove(key);
+            hashes.remove(key);
+            expireAt.remove(key);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.adapter.ratelimit;
+
+import com.example.adapter.common.breaker.RedisCircuitBreaker;
+import com.example.adapter.common.constant.RateLimitType;
+import com.example.adapter.common.constant.StatusConstant;
+import com.example.adapter.common.exception.RateLimitException;
+import com.example.adapter.entity.RateLimitConfig;
+import com.example.adapter.repository.RateLimitConfigMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 限流Lua脚本的额度计算与退还：StringRedisTemplate 执行的脚本由 {@link LuaRedisStub} 在内存中解释执行
+ */
+class RateLimitServiceTest {
+
+    private static final long TENANT_ID = 1L;
+    private static final String API_CODE = "a1";
+    private static final String TENANT_KEY = "adapter:ratelimit:1:default";
+    private static final String API_KEY = "adapter:ratelimit:1:a1";
+
+    private LuaRedisStub redis;
+    private StringRedisTemplate redisTemplate;
+    private LocalFallbackLimiter fallbackLimiter;
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisStub();
+        redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            Object[] arguments = invocation.getArguments();
+            return redis.execute(invocation.getArgument(0), invocation.getArgument(1),
+                    Arrays.copyOfRange(arguments, 2, arguments.length));
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any());
+
+        RedisCircuitBreaker redisCircuitBreaker = new RedisCircuitBreaker();
+        ReflectionTestUtils.setField(redisCircuitBreaker, "failureThreshold", 3);
+        ReflectionTestUtils.setField(redisCircuitBreaker, "openMillis", 5000L);
+        redisCircuitBreaker.init();
+        fallbackLimiter = mock(LocalFallbackLimiter.class);
+
+        rateLimitService = new RateLimitService(mock(RateLimitConfigMapper.class), redisTemplate,
+                mock(ConcurrencyLimiter.class), redisCircuitBreaker, fallbackLimiter);
+        ReflectionTestUtils.setField(rateLimitService, "enabled", true);
+        ReflectionTestUtils.setField(rateLimitService, "defaultQps", 100);
+        ReflectionTestUtils.setField(rateLimitService, "leaseEnabled", false);
+        ReflectionTestUtils.setField(rateLimitService, "leaseRatio", 0.5);
+        ReflectionTestUtils.setField(rateLimitService, "gcraBurstRatio", 0.1);
+        ReflectionTestUtils.setField(rateLimitService, "hostQpsOverrides", "");
+        rateLimitService.init();
+    }
+
+    @Test
+    void fixedWindowRejectionDoesNotConsumeOtherLevels() {
+        RateLimitConfig tenantLimit = config(RateLimitType.QPS, 2);
+        RateLimitConfig apiLimit = config(RateLimitType.QPS, 5);
+
+        check(apiLimit, tenantLimit);
+        check(apiLimit, tenantLimit);
+        redis.advance(300);
+
+        assertThatThrownBy(() -> check(apiLimit, tenantLimit))
+                .isInstanceOf(RateLimitException.class)
+                .extracting(e -> ((RateLimitException) e).getRetryAfterMillis())
+                .isEqualTo(700L);
+        assertThat(redis.get(TENANT_KEY)).isEqualTo("2");
+        assertThat(redis.get(API_KEY)).isEqualTo("2");
+
+        // 窗口过期后重新计数
+        redis.advance(700);
+        check(apiLimit, tenantLimit);
+        assertThat(redis.get(TENANT_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void defaultQpsAppliesWithoutConfig() {
+        ReflectionTestUtils.setField(rateLimitService, "defaultQps", 1);
+
+        check(null, null);
+
+        assertThatThrownBy(() -> check(null, null)).isInstanceOf(RateLimitException.class);
+        assertThat(redis.get(API_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void gcraPacesRequestsByInterval() {
+        // 10次/秒，突发量 max(1, 10 × 0.1) = 1，间隔100ms
+        RateLimitConfig apiLimit = config(RateLimitType.GCRA, 10);
+
+        check(apiLimit, null);
+        redis.advance(40);
+        assertThatThrownBy(() -> check(apiLimit, null))
+                .isInstanceOf(RateLimitException.class)
+                .extracting(e -> ((RateLimitException) e).getRetryAfterMillis())
+                .isEqualTo(60L);
+
+        redis.advance(60);
+        check(apiLimit, null);
+        assertThat(Double.parseDouble(redis.get(API_KEY + ":gcra"))).isEqualTo(redis.now() + 100);
+    }
+
+    @Test
+    void gcraBurstAllowsBackToBackRequests() {
+        ReflectionTestUtils.setField(rateLimitService, "gcraBurstRatio", 0.3);
+        RateLimitConfig apiLimit = config(RateLimitType.GCRA, 10);
+
+        check(apiLimit, null);
+        check(apiLimit, null);
+        check(apiLimit, null);
+
+        assertThatThrownBy(() -> check(apiLimit, null))
+                .isInstanceOf(RateLimitException.class)
+                .extracting(e -> ((RateLimitException) e).getRetryAfterMillis())
+                .isEqualTo(100L);
+    }
+
+    @Test
+    void slidingWindowWeighsPreviousWindow() {
+        RateLimitConfig apiLimit = config(RateLimitType.SLIDING_WINDOW, 4);
+        // 对齐到窗口起点
+        redis.advance(1000 - redis.now() % 1000);
+
+        for (int i = 0; i < 4; i++) {
+            check(apiLimit, null);
+        }
+        assertThatThrownBy(() -> check(apiLimit, null)).isInstanceOf(RateLimitException.class);
+
+        // 下一窗口过去250ms：上一窗口计数按 0.75 计入，4 × 0.75 + 1 = 4，只能再放行一次
+        redis.advance(1250);
+        check(apiLimit, null);
+        assertThatThrownBy(() -> check(apiLimit, null))
+                .isInstanceOf(RateLimitException.class)
+                .extracting(e -> ((RateLimitException) e).getRetryAfterMillis())
+                .isEqualTo(250L);
+        assertThat(redis.hget(API_KEY + ":sliding", "p")).isEqualTo("4");
+        assertThat(redis.hget(API_KEY + ":sliding", "c")).isEqualTo("1");
+    }
+
+    @Test
+    void pacedLevelsAreCheckedTogether() {
+        RateLimitConfig tenantLimit = config(RateLimitType.GCRA, 10);
+        RateLimitConfig apiLimit = config(RateLimitType.SLIDING_WINDOW, 5);
+
+        check(apiLimit, tenantLimit);
+        String tat = redis.get(TENANT_KEY + ":gcra");
+
+        // GCRA层级超限时滑动窗口层级不扣减
+        assertThatThrownBy(() -> check(apiLimit, tenantLimit)).isInstanceOf(RateLimitException.class);
+        assertThat(redis.hget(API_KEY + ":sliding", "c")).isEqualTo("1");
+        assertThat(redis.get(TENANT_KEY + ":gcra")).isEqualTo(tat);
+    }
+
+    @Test
+    void slidingWindowIsRefundedWhenFixedWindowRejects() {
+        RateLimitConfig tenantLimit = config(RateLimitType.QPS, 1);
+        RateLimitConfig apiLimit = config(RateLimitType.SLIDING_WINDOW, 5);
+        redis.advance(1000 - redis.now() % 1000);
+
+        check(apiLimit, tenantLimit);
+        assertThatThrownBy(() -> check(apiLimit, tenantLimit)).isInstanceOf(RateLimitException.class);
+
+        assertThat(redis.hget(API_KEY + ":sliding", "c")).isEqualTo("1");
+        assertThat(redis.get(TENANT_KEY)).isEqualTo("1");
+    }
+
+    @Test
+    void gcraIsRefundedWhenFixedWindowRejects() {
+        RateLimitConfig tenantLimit = config(RateLimitType.QPS, 1);
+        RateLimitConfig apiLimit = config(RateLimitType.GCRA, 10);
+
+        check(apiLimit, tenantLimit);
+        redis.advance(100);
+
+        assertThatThrownBy(() -> check(apiLimit, tenantLimit)).isInstanceOf(RateLimitException.class);
+
+        // 本次放行把TAT推到 now + 100，退还后回退一个间隔到 now，不晚于当前时间的TAT直接删除
+        assertThat(redis.get(API_KEY + ":gcra")).isNull();
+        redis.advance(10);
+        assertThatThrownBy(() -> check(apiLimit, tenantLimit)).isInstanceOf(RateLimitException.class);
+        assertThat(redis.get(API_KEY + ":gcra")).isNull();
+    }
+
+    @Test
+    void leaseReservesBatchAndTakesLocally() {
+        ReflectionTestUtils.setField(rateLimitService, "leaseEnabled", true);
+        RateLimitConfig apiLimit = config(RateLimitType.QPS, 10);
+
+        for (int i = 0; i < 5; i++) {
+            check(apiLimit, null);
+        }
+        // 每次预取 10 × 0.5 = 5 个许可，5次调用只访问一次Redis
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any());
+        assertThat(redis.get(API_KEY)).isEqualTo("5");
+
+        for (int i = 0; i < 5; i++) {
+            check(apiLimit, null);
+        }
+        assertThat(redis.get(API_KEY)).isEqualTo("10");
+        assertThatThrownBy(() -> check(apiLimit, null)).isInstanceOf(RateLimitException.class);
+    }
+
+    @Test
+    void redisFailureFallsBackToLocalLimiter() {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("redis down");
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any());
+
+        check(config(RateLimitType.QPS, 10), null);
+
+        verify(fallbackLimiter).tryAcquire(API_KEY, 10, 1);
+    }
+
+    private void check(RateLimitConfig apiLimit, RateLimitConfig tenantLimit) {
+        rateLimitService.checkRateLimit(TENANT_ID, API_CODE, null, apiLimit, tenantLimit);
+    }
+
+    private static RateLimitConfig config(String limitType, int limitValue) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setTenantId(TENANT_ID);
+        config.setLimitType(limitType);
+        config.setLimitValue(limitValue);
+        config.setTimeWindow(1);
+        config.setStatus(StatusConstant.ENABLED);
+        return config;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.adapter.repository;
+
+import com.example.adapter.dto.ResolvedApiConfig;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.RateLimitConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * selectResolved 一次关联查询取回的配置与逐表查询一致
+ */
+class ExternalApiConfigMapperTest {
+
+    private MapperTestSupport db;
+    private ExternalApiConfigMapper mapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new MapperTestSupport();
+        mapper = db.getMapper(ExternalApiConfigMapper.class);
+
+        db.jdbc().execute("INSERT INTO tenant (id, tenant_code, tenant_name, description, status, update_time) "
+                + "VALUES (1, 't1', 'Tenant 1', 'first tenant', 1, '2024-05-01 10:00:00')");
+        db.jdbc().execute("INSERT INTO tenant (id, tenant_code, tenant_name, status, deleted) "
+                + "VALUES (2, 't2', 'Tenant 2', 1, 1)");
+        db.jdbc().execute("INSERT INTO tenant (id, tenant_code, tenant_name, status) VALUES (3, 't3', 'Tenant 3', 1)");
+
+        db.jdbc().execute("INSERT INTO external_api_config (id, tenant_id, api_code, api_name, api_url, http_method, "
+                + "content_type, timeout, client_profile, hedge_enabled, hedge_delay_ms, retry_count, description, status) "
+                + "VALUES (10, 1, 'a1', 'Api 1', 'http://example.com/a1/{id}', 'GET', 'application/json', 2000, "
+                + "'slow', 1, 150, 2, 'api one', 1)");
+        db.jdbc().execute("INSERT INTO external_api_config (id, tenant_id, api_code, api_name, api_url, deleted) "
+                + "VALUES (11, 1, 'gone', 'Deleted', 'http://example.com/gone', 1)");
+        db.jdbc().execute("INSERT INTO external_api_config (id, tenant_id, api_code, api_name, api_url) "
+                + "VALUES (12, 1, 'a2', 'Api 2', 'http://example.com/a2')");
+
+        db.jdbc().execute("INSERT INTO api_param_config (id, config_id, param_type, param_key, param_value, value_source, "
+                + "value_expression, required, description, sort_order) "
+                + "VALUES (100, 10, 'PATH', 'id', NULL, 'MESSAGE', '$.id', 1, 'path id', 2)");
+        db.jdbc().execute("INSERT INTO api_param_config (id, config_id, param_type, param_key, param_value, sort_order) "
+                + "VALUES (101, 10, 'HEADER', 'X-Key', 'secret', 1)");
+        db.jdbc().execute("INSERT INTO api_param_config (id, config_id, param_type, param_key, param_value, sort_order, deleted) "
+                + "VALUES (102, 10, 'HEADER', 'X-Old', 'old', 0, 1)");
+        db.jdbc().execute("INSERT INTO api_param_config (id, config_id, param_type, param_key, param_value, sort_order) "
+                + "VALUES (103, 12, 'QUERY', 'q', 'v', 0)");
+
+        // 接口级限流
+        db.jdbc().execute("INSERT INTO rate_limit_config (id, tenant_id, api_code, limit_type, limit_value, time_window) "
+                + "VALUES (20, 1, 'a1', 'GCRA', 50, 1)");
+        // 租户级限流（api_code 为 NULL）：已删除的id最小，两条有效配置只取id较小的一条
+        db.jdbc().execute("INSERT INTO rate_limit_config (id, tenant_id, api_code, limit_type, limit_value, time_window, deleted) "
+                + "VALUES (21, 1, NULL, 'QPS', 1, 1, 1)");
+        db.jdbc().execute("INSERT INTO rate_limit_config (id, tenant_id, api_code, limit_type, limit_value, time_window) "
+                + "VALUES (23, 1, NULL, 'QPS', 300, 1)");
+        db.jdbc().execute("INSERT INTO rate_limit_config (id, tenant_id, api_code, limit_type, limit_value, time_window) "
+                + "VALUES (22, 1, NULL, 'SLIDING_WINDOW', 200, 10)");
+        // 其他租户的同名接口限流不影响 t1
+        db.jdbc().execute("INSERT INTO rate_limit_config (id, tenant_id, api_code, limit_type, limit_value, time_window) "
+                + "VALUES (24, 3, 'a1', 'QPS', 5, 1)");
+    }
+
+    @Test
+    void resolvesAllConfigsWithAliasedColumns() {
+        ResolvedApiConfig resolved = mapper.selectResolved("t1", "a1");
+
+        assertThat(resolved.getTenant().getId()).isEqualTo(1L);
+        assertThat(resolved.getTenant().getTenantCode()).isEqualTo("t1");
+        assertThat(resolved.getTenant().getTenantName()).isEqualTo("Tenant 1");
+        assertThat(resolved.getTenant().getDescription()).isEqualTo("first tenant");
+        assertThat(resolved.getTenant().getUpdateTime()).isEqualTo(LocalDateTime.of(2024, 5, 1, 10, 0));
+
+        ExternalApiConfig api = resolved.getApiConfig();
+        assertThat(api.getId()).isEqualTo(10L);
+        assertThat(api.getTenantId()).isEqualTo(1L);
+        assertThat(api.getApiCode()).isEqualTo("a1");
+        assertThat(api.getApiName()).isEqualTo("Api 1");
+        assertThat(api.getApiUrl()).isEqualTo("http://example.com/a1/{id}");
+        assertThat(api.getHttpMethod()).isEqualTo("GET");
+        assertThat(api.getContentType()).isEqualTo("application/json");
+        assertThat(api.getTimeout()).isEqualTo(2000);
+        assertThat(api.getClientProfile()).isEqualTo("slow");
+        assertThat(api.getHedgeEnabled()).isEqualTo(1);
+        assertThat(api.getHedgeDelayMs()).isEqualTo(150);
+        assertThat(api.getRetryCount()).isEqualTo(2);
+        assertThat(api.getDescription()).isEqualTo("api one");
+        assertThat(api.getStatus()).isEqualTo(1);
+
+        // 已删除的参数不返回，按 sort_order 排序
+        assertThat(resolved.getParamConfigs()).extracting(ApiParamConfig::getId).containsExactly(101L, 100L);
+        ApiParamConfig path = resolved.getParamConfigs().get(1);
+        assertThat(path.getConfigId()).isEqualTo(10L);
+        assertThat(path.getParamType()).isEqualTo("PATH");
+        assertThat(path.getParamKey()).isEqualTo("id");
+        assertThat(path.getParamValue()).isNull();
+        assertThat(path.getValueSource()).isEqualTo("MESSAGE");
+        assertThat(path.getValueExpression()).isEqualTo("$.id");
+        assertThat(path.getRequired()).isEqualTo(1);
+        assertThat(path.getDescription()).isEqualTo("path id");
+        assertThat(path.getSortOrder()).isEqualTo(2);
+
+        RateLimitConfig apiLimit = resolved.getRateLimitConfig();
+        assertThat(apiLimit.getId()).isEqualTo(20L);
+        assertThat(apiLimit.getApiCode()).isEqualTo("a1");
+        assertThat(apiLimit.getLimitType()).isEqualTo("GCRA");
+        assertThat(apiLimit.getLimitValue()).isEqualTo(50);
+        assertThat(apiLimit.getTimeWindow()).isEqualTo(1);
+
+        RateLimitConfig tenantLimit = resolved.getTenantRateLimitConfig();
+        assertThat(tenantLimit.getId()).isEqualTo(22L);
+        assertThat(tenantLimit.getApiCode()).isNull();
+        assertThat(tenantLimit.getLimitType()).isEqualTo("SLIDING_WINDOW");
+        assertThat(tenantLimit.getLimitValue()).isEqualTo(200);
+        assertThat(tenantLimit.getTimeWindow()).isEqualTo(10);
+    }
+
+    @Test
+    void apiWithoutOwnRateLimitGetsOnlyTenantLevel() {
+        ResolvedApiConfig resolved = mapper.selectResolved("t1", "a2");
+
+        assertThat(resolved.getApiConfig().getId()).isEqualTo(12L);
+        assertThat(resolved.getParamConfigs()).extracting(ApiParamConfig::getParamKey).containsExactly("q");
+        assertThat(resolved.getRateLimitConfig()).isNull();
+        assertThat(resolved.getTenantRateLimitConfig().getId()).isEqualTo(22L);
+    }
+
+    @Test
+    void tenantWithoutTenantLevelRowGetsOnlyApiLevel() {
+        db.jdbc().execute("INSERT INTO external_api_config (id, tenant_id, api_code, api_name, api_url) "
+                + "VALUES (13, 3, 'a1', 'Api 1 of t3', 'http://example.com/t3')");
+
+        ResolvedApiConfig resolved = mapper.selectResolved("t3", "a1");
+
+        assertThat(resolved.getApiConfig().getId()).isEqualTo(13L);
+        assertThat(resolved.getParamConfigs()).isEmpty();
+        assertThat(resolved.getRateLimitConfig().getId()).isEqualTo(24L);
+        assertThat(resolved.getTenantRateLimitConfig()).isNull();
+    }
+
+    @Test
+    void missingOrDeletedApiConfigResolvesTenantOnly() {
+        for (String apiCode : new String[]{"missing", "gone"}) {
+            ResolvedApiConfig resolved = mapper.selectResolved("t1", apiCode);
+
+            assertThat(resolved.getTenant().getId()).isEqualTo(1L);
+            assertThat(resolved.getApiConfig()).isNull();
+            assertThat(resolved.getParamConfigs()).isEmpty();
+            assertThat(resolved.getRateLimitConfig()).isNull();
+            assertThat(resolved.getTenantRateLimitConfig().getId()).isEqualTo(22L);
+        }
+    }
+
+    @Test
+    void missingOrDeletedTenantResolvesNothing() {
+        assertThat(mapper.selectResolved("missing", "a1")).isNull();
+        assertThat(mapper.selectResolved("t2", "a1")).isNull();
+    }
+}
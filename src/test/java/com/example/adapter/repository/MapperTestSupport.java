@@ -0,0 +1,83 @@
+package com.example.adapter.repository;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.example.adapter.config.MybatisPlusConfig;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mapper测试环境：H2（MySQL模式）内存库按 schema.sql 建表，MyBatis-Plus配置与 application.yml 一致
+ */
+public class MapperTestSupport {
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("CREATE TABLE IF NOT EXISTS (\\w+)");
+    private static final Pattern INDEX = Pattern.compile("(\\bKEY) (\\w+) \\(");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlSessionTemplate sqlSession;
+
+    public MapperTestSupport() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        createTables();
+
+        GlobalConfig globalConfig = new GlobalConfig();
+        GlobalConfig.DbConfig dbConfig = new GlobalConfig.DbConfig();
+        dbConfig.setIdType(IdType.AUTO);
+        dbConfig.setLogicDeleteField("deleted");
+        dbConfig.setLogicDeleteValue("1");
+        dbConfig.setLogicNotDeleteValue("0");
+        globalConfig.setDbConfig(dbConfig);
+        globalConfig.setMetaObjectHandler(new MybatisPlusConfig().metaObjectHandler());
+
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setGlobalConfig(globalConfig);
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+        sqlSession = new SqlSessionTemplate(sqlSessionFactory);
+    }
+
+    public <T> T getMapper(Class<T> mapperClass) {
+        return sqlSession.getMapper(mapperClass);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * 执行 schema.sql 中的建表语句；H2的索引名在库内唯一，按表名加前缀
+     */
+    private void createTables() throws IOException {
+        String schema = StreamUtils.copyToString(new ClassPathResource("schema.sql").getInputStream(),
+                StandardCharsets.UTF_8);
+        for (String statement : schema.split(";")) {
+            Matcher table = CREATE_TABLE.matcher(statement);
+            if (!table.find()) {
+                continue;
+            }
+            String sql = statement.substring(table.start());
+            jdbcTemplate.execute(INDEX.matcher(sql).replaceAll("$1 " + table.group(1) + "_$2 ("));
+        }
+    }
+}
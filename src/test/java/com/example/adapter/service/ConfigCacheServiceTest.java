@@ -0,0 +1,106 @@
+package com.example.adapter.service;
+
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.ResolvedApiConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.Tenant;
+import com.example.adapter.http.RequestPlanCompiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 加载期间发生的配置变更不会被加载前读到的旧数据覆盖
+ */
+class ConfigCacheServiceTest {
+
+    private ExternalApiConfigService apiConfigService;
+    private ConfigCacheService cacheService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        apiConfigService = mock(ExternalApiConfigService.class);
+        ObjectProvider<ConfigSnapshotService> snapshotServiceProvider = mock(ObjectProvider.class);
+        cacheService = new ConfigCacheService(mock(TenantService.class), apiConfigService, new RequestPlanCompiler(),
+                snapshotServiceProvider);
+        ReflectionTestUtils.setField(cacheService, "enabled", true);
+        ReflectionTestUtils.setField(cacheService, "expireMinutes", 5L);
+        ReflectionTestUtils.setField(cacheService, "negativeExpireSeconds", 30L);
+        cacheService.init();
+    }
+
+    @Test
+    void resolveCachesLoadedConfig() {
+        when(apiConfigService.resolve("t1", "a1")).thenReturn(resolved("http://old.example.com/a1"));
+
+        cacheService.resolve("t1", "a1");
+        cacheService.resolve("t1", "a1");
+
+        verify(apiConfigService, times(1)).resolve("t1", "a1");
+    }
+
+    @Test
+    void changeDuringLoadDropsLoadedConfig() {
+        when(apiConfigService.resolve("t1", "a1")).thenAnswer(invocation -> {
+            // 查询返回后、回填前收到变更通知
+            cacheService.onConfigChange(new ConfigChangeEvent(ConfigChangeEvent.Type.API_CONFIG, 10L));
+            return resolved("http://old.example.com/a1");
+        }).thenReturn(resolved("http://new.example.com/a1"));
+
+        assertThat(cacheService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://old.example.com/a1");
+
+        assertThat(cacheService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://new.example.com/a1");
+        assertThat(cacheService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://new.example.com/a1");
+        verify(apiConfigService, times(2)).resolve("t1", "a1");
+    }
+
+    @Test
+    void changeDuringLoadDropsNegativeCache() {
+        when(apiConfigService.resolve("t1", "a1")).thenAnswer(invocation -> {
+            cacheService.onConfigChange(new ConfigChangeEvent(ConfigChangeEvent.Type.API_CONFIG, 10L));
+            throw new BusinessException(ErrorCode.API_CONFIG_NOT_FOUND);
+        }).thenReturn(resolved("http://new.example.com/a1"));
+
+        assertThatThrownBy(() -> cacheService.resolve("t1", "a1")).isInstanceOf(BusinessException.class);
+
+        assertThat(cacheService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://new.example.com/a1");
+    }
+
+    @Test
+    void negativeCacheWithoutChange() {
+        when(apiConfigService.resolve("t1", "a1")).thenThrow(new BusinessException(ErrorCode.API_CONFIG_NOT_FOUND));
+
+        assertThatThrownBy(() -> cacheService.resolve("t1", "a1")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> cacheService.resolve("t1", "a1")).isInstanceOf(BusinessException.class);
+
+        verify(apiConfigService, times(1)).resolve("t1", "a1");
+    }
+
+    private static ResolvedApiConfig resolved(String apiUrl) {
+        Tenant tenant = new Tenant();
+        tenant.setId(1L);
+        tenant.setTenantCode("t1");
+        ExternalApiConfig apiConfig = new ExternalApiConfig();
+        apiConfig.setId(10L);
+        apiConfig.setTenantId(1L);
+        apiConfig.setApiCode("a1");
+        apiConfig.setApiUrl(apiUrl);
+        ResolvedApiConfig resolved = new ResolvedApiConfig();
+        resolved.setTenant(tenant);
+        resolved.setApiConfig(apiConfig);
+        resolved.setParamConfigs(Collections.emptyList());
+        return resolved;
+    }
+}
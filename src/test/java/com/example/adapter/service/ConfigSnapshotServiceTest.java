@@ -0,0 +1,110 @@
+package com.example.adapter.service;
+
+import com.example.adapter.common.constant.StatusConstant;
+import com.example.adapter.common.exception.BusinessException;
+import com.example.adapter.common.exception.ErrorCode;
+import com.example.adapter.dto.ResolvedApiConfig;
+import com.example.adapter.entity.ApiParamConfig;
+import com.example.adapter.entity.ExternalApiConfig;
+import com.example.adapter.entity.Tenant;
+import com.example.adapter.http.HedgingPolicy;
+import com.example.adapter.http.HttpClientService;
+import com.example.adapter.repository.ApiParamConfigMapper;
+import com.example.adapter.repository.ExternalApiConfigMapper;
+import com.example.adapter.repository.MapperTestSupport;
+import com.example.adapter.repository.RateLimitConfigMapper;
+import com.example.adapter.repository.TenantMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 通过管理接口修改配置后，快照的增量刷新能读到修改
+ */
+class ConfigSnapshotServiceTest {
+
+    private MapperTestSupport db;
+    private ConfigSnapshotService snapshotService;
+    private TenantService tenantService;
+    private ExternalApiConfigService apiConfigService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        db = new MapperTestSupport();
+        db.jdbc().execute("INSERT INTO tenant (id, tenant_code, tenant_name, status, update_time) "
+                + "VALUES (1, 't1', 'Tenant 1', 1, '2020-01-01 00:00:00')");
+        db.jdbc().execute("INSERT INTO external_api_config (id, tenant_id, api_code, api_name, api_url, update_time) "
+                + "VALUES (10, 1, 'a1', 'Api 1', 'http://old.example.com/a1', '2020-01-01 00:00:00')");
+        db.jdbc().execute("INSERT INTO api_param_config (id, config_id, param_type, param_key, param_value, update_time) "
+                + "VALUES (100, 10, 'HEADER', 'X-Key', 'old', '2020-01-01 00:00:00')");
+        // 之后修改过的其他数据，使快照的 lastSeen 晚于上面的记录
+        db.jdbc().execute("INSERT INTO tenant (id, tenant_code, tenant_name, status, update_time) "
+                + "VALUES (2, 't2', 'Tenant 2', 1, '2021-01-01 00:00:00')");
+
+        TenantMapper tenantMapper = db.getMapper(TenantMapper.class);
+        ExternalApiConfigMapper apiConfigMapper = db.getMapper(ExternalApiConfigMapper.class);
+        ApiParamConfigMapper paramConfigMapper = db.getMapper(ApiParamConfigMapper.class);
+        ConfigChangeNotifier notifier = mock(ConfigChangeNotifier.class);
+
+        snapshotService = new ConfigSnapshotService(tenantMapper, apiConfigMapper, paramConfigMapper,
+                db.getMapper(RateLimitConfigMapper.class));
+        ReflectionTestUtils.setField(snapshotService, "overlapSeconds", 5L);
+        tenantService = new TenantService(tenantMapper, notifier);
+        apiConfigService = new ExternalApiConfigService(apiConfigMapper, paramConfigMapper, tenantService, notifier,
+                mock(HttpClientService.class), mock(HedgingPolicy.class));
+
+        snapshotService.refresh();
+        assertThat(snapshotService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://old.example.com/a1");
+    }
+
+    @Test
+    void refreshSeesTenantUpdate() {
+        Tenant update = new Tenant();
+        update.setStatus(0);
+        tenantService.update(1L, update);
+
+        snapshotService.refresh();
+
+        assertThatThrownBy(() -> snapshotService.resolve("t1", "a1"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage(ErrorCode.TENANT_DISABLED.getMessage());
+    }
+
+    @Test
+    void refreshSeesApiConfigUpdate() {
+        ExternalApiConfig update = new ExternalApiConfig();
+        update.setApiUrl("http://new.example.com/a1");
+        apiConfigService.update(10L, update);
+
+        snapshotService.refresh();
+
+        assertThat(snapshotService.resolve("t1", "a1").getApiConfig().getApiUrl()).isEqualTo("http://new.example.com/a1");
+
+        update = new ExternalApiConfig();
+        update.setStatus(0);
+        apiConfigService.update(10L, update);
+
+        snapshotService.refresh();
+
+        assertThatThrownBy(() -> snapshotService.resolve("t1", "a1"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage(ErrorCode.API_CONFIG_DISABLED.getMessage());
+    }
+
+    @Test
+    void refreshSeesParamUpdate() {
+        ApiParamConfig update = new ApiParamConfig();
+        update.setParamValue("new");
+        apiConfigService.updateParam(100L, update);
+
+        snapshotService.refresh();
+
+        ResolvedApiConfig resolved = snapshotService.resolve("t1", "a1");
+        assertThat(resolved.getParamConfigs()).extracting(ApiParamConfig::getParamValue).containsExactly("new");
+        assertThat(resolved.getTenant().getStatus()).isEqualTo(StatusConstant.ENABLED);
+    }
+}